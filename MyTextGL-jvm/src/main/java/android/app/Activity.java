@@ -0,0 +1,2 @@
+package android.app;
+public class Activity extends android.content.Context { protected void onCreate(android.os.Bundle b){} protected void onResume(){} protected void onPause(){} public void setContentView(android.view.View v){} }
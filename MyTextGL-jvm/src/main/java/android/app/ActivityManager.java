@@ -0,0 +1,2 @@
+package android.app;
+public class ActivityManager { public android.content.pm.ConfigurationInfo getDeviceConfigurationInfo(){return null;} }
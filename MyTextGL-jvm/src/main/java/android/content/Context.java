@@ -0,0 +1,20 @@
+package android.content;
+
+import android.content.res.AssetManager;
+
+// Plain JVM stand-in for android.content.Context (assets and package only).
+public class Context {
+	public static final String ACTIVITY_SERVICE = "activity", VIBRATOR_SERVICE = "vibrator";
+
+	final AssetManager assets = new AssetManager();
+	final android.content.pm.PackageManager packages = new android.content.pm.PackageManager();
+
+	public AssetManager getAssets() { return assets; }
+	public android.content.res.Resources getResources() { return null; }
+	public Object getSystemService(String s) { return null; }
+	public java.io.File getCacheDir() { return null; }
+	public java.io.File getFilesDir() { return null; }
+	public Context getApplicationContext() { return this; }
+	public android.content.pm.PackageManager getPackageManager() { return packages; }
+	public String getPackageName() { return "com.pacificHymalaya.MyTextGL"; }
+}
@@ -0,0 +1,2 @@
+package android.content.pm;
+public class ConfigurationInfo { public int reqGlEsVersion; }
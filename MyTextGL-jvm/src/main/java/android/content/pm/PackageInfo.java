@@ -0,0 +1,6 @@
+package android.content.pm;
+
+// Plain JVM stand-in for android.content.pm.PackageInfo.
+public class PackageInfo {
+	public long lastUpdateTime; // (Never Updated)
+}
@@ -0,0 +1,15 @@
+package android.content.pm;
+
+// Plain JVM stand-in for android.content.pm.PackageManager (own package only).
+public class PackageManager {
+
+	public static class NameNotFoundException extends Exception {
+		public NameNotFoundException(String name) { super(name); }
+	}
+
+	final PackageInfo info = new PackageInfo();
+
+	public PackageInfo getPackageInfo(String packageName, int flags) throws NameNotFoundException {
+		return info;
+	}
+}
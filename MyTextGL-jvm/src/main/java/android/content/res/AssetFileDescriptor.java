@@ -0,0 +1,2 @@
+package android.content.res;
+public class AssetFileDescriptor { public long getLength(){return 0;} public void close() throws java.io.IOException {} }
@@ -0,0 +1,11 @@
+package android.content.res;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+// Plain JVM stand-in for android.content.res.AssetManager: every asset is an
+// empty file (fonts are the synthetic font of android.graphics.Paint).
+public class AssetManager {
+	public InputStream open(String f) throws java.io.IOException { return new ByteArrayInputStream(new byte[0]); }
+	public AssetFileDescriptor openFd(String f) throws java.io.IOException { return new AssetFileDescriptor(); }
+}
@@ -0,0 +1,69 @@
+package android.graphics;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+// Plain JVM stand-in for android.graphics.Bitmap: ALPHA_8 bitmaps hold their
+// pixels (one byte each, tightly packed rows); other configs hold nothing.
+public class Bitmap {
+
+	public enum Config {
+		ALPHA_8, ARGB_8888, RGB_565
+	}
+
+	public enum CompressFormat {
+		PNG, JPEG
+	}
+
+	final int width, height;
+	final Config config;
+	final byte[] alpha; // ALPHA_8 Pixels (Row Major)
+
+	Bitmap(int width, int height, Config config) {
+		this.width = width;
+		this.height = height;
+		this.config = config;
+		this.alpha = (config == Config.ALPHA_8 ? new byte[width * height] : null);
+	}
+
+	public static Bitmap createBitmap(int w, int h, Config c) {
+		return new Bitmap(w, h, c);
+	}
+
+	public void eraseColor(int c) {
+		if (alpha != null)
+			java.util.Arrays.fill(alpha, (byte) (c >>> 24));
+	}
+
+	public int getWidth() { return width; }
+	public int getHeight() { return height; }
+	public int getRowBytes() { return alpha != null ? width : width * 4; }
+	public Config getConfig() { return config; }
+	public boolean compress(CompressFormat f, int q, java.io.OutputStream o) { return true; }
+	public void recycle() {}
+	public boolean isRecycled() { return false; }
+	public void getPixels(int[] p, int o, int s, int x, int y, int w, int h) {}
+
+	public void copyPixelsToBuffer(Buffer b) {
+		if (alpha != null)
+			((ByteBuffer) b).put(alpha);
+	}
+
+	public void copyPixelsFromBuffer(Buffer b) {
+		if (alpha != null)
+			((ByteBuffer) b).get(alpha);
+	}
+
+	// fill a rectangle (clipped) with full coverage
+	void fill(int l, int t, int r, int b) {
+		if (alpha == null)
+			return;
+		l = Math.max(l, 0);
+		t = Math.max(t, 0);
+		r = Math.min(r, width);
+		b = Math.min(b, height);
+		for (int y = t; y < b; y++)
+			for (int x = l; x < r; x++)
+				alpha[y * width + x] = (byte) 0xff;
+	}
+}
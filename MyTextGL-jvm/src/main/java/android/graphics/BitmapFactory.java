@@ -0,0 +1,2 @@
+package android.graphics;
+public class BitmapFactory { public static class Options { public boolean inScaled; } public static Bitmap decodeResource(android.content.res.Resources r,int id,Options o){return null;} }
@@ -0,0 +1,32 @@
+package android.graphics;
+
+// Plain JVM stand-in for android.graphics.Canvas: text is drawn as the ink
+// boxes of the synthetic font (see Paint).
+public class Canvas {
+
+	final Bitmap bitmap;
+	final Rect ink = new Rect();
+
+	public Canvas(Bitmap b) {
+		bitmap = b;
+	}
+
+	public void drawText(char[] t, int index, int count, float x, float y, Paint p) {
+		float pen = x;
+		for (int i = index; i < index + count; i += Character.charCount(Character.codePointAt(t, i))) {
+			int cp = Character.codePointAt(t, i);
+			p.inkBounds(cp, pen, ink);
+			if (!ink.isEmpty())
+				bitmap.fill(ink.left, (int) y + ink.top, ink.right, (int) y + ink.bottom);
+			pen += p.advance(cp);
+		}
+	}
+
+	public void drawText(String t, float x, float y, Paint p) {
+		drawText(t.toCharArray(), 0, t.length(), x, y, p);
+	}
+
+	public void drawRect(float l, float t, float r, float b, Paint p) {
+		bitmap.fill((int) l, (int) t, (int) r, (int) b);
+	}
+}
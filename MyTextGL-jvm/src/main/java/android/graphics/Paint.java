@@ -0,0 +1,95 @@
+package android.graphics;
+
+// Plain JVM stand-in for android.graphics.Paint, measuring a synthetic font:
+// every code point has a deterministic advance between 0.4 and 0.67 of the
+// text size and an ink box inside it (capitals and digits reach the ascent,
+// some letters the descent); white space has no ink. Canvas.drawText() fills
+// the ink boxes, so atlases and distance fields get real pixels to work on.
+public class Paint {
+
+	public static class FontMetrics {
+		public float top, ascent, descent, bottom, leading;
+	}
+
+	public enum Style {
+		FILL, STROKE, FILL_AND_STROKE
+	}
+
+	float textSize = 12.0f;
+
+	public void setAntiAlias(boolean b) {}
+	public void setTextSize(float f) { textSize = f; }
+	public void setColor(int c) {}
+	public Typeface setTypeface(Typeface t) { return t; }
+	public void setStyle(Style s) {}
+
+	public FontMetrics getFontMetrics() {
+		FontMetrics fm = new FontMetrics();
+		fm.top = -0.95f * textSize;
+		fm.ascent = -0.8f * textSize;
+		fm.descent = 0.2f * textSize;
+		fm.bottom = 0.25f * textSize;
+		return fm;
+	}
+
+	// advance of a code point
+	float advance(int cp) {
+		return textSize * (0.4f + (cp * 7 % 10) * 0.03f);
+	}
+
+	public int getTextWidths(char[] t, int index, int count, float[] widths) {
+		int n = 0;
+		for (int i = index; i < index + count; i += Character.charCount(Character.codePointAt(t, i)))
+			widths[n++] = advance(Character.codePointAt(t, i));
+		return n;
+	}
+
+	public int getTextWidths(String t, float[] widths) {
+		char[] c = t.toCharArray();
+		return getTextWidths(c, 0, c.length, widths);
+	}
+
+	public float measureText(String s) {
+		float w = 0;
+		for (int i = 0; i < s.length(); i += Character.charCount(s.codePointAt(i)))
+			w += advance(s.codePointAt(i));
+		return w;
+	}
+
+	// ink box of a code point relative to the pen position (y down)
+	void inkBounds(int cp, float x, Rect r) {
+		if (Character.isWhitespace(cp) || Character.isISOControl(cp)) {
+			r.set(0, 0, 0, 0);
+			return;
+		}
+		boolean tall = Character.isUpperCase(cp) || Character.isDigit(cp)
+				|| "bdfhklt".indexOf(cp) >= 0;
+		boolean deep = "gjpqy".indexOf(cp) >= 0;
+		r.set((int) (x + 1), (int) -(textSize * (tall ? 0.75f : 0.5f)),
+				(int) Math.ceil(x + advance(cp) - 1),
+				deep ? (int) (textSize * 0.2f) : 0);
+	}
+
+	public void getTextBounds(char[] t, int index, int count, Rect bounds) {
+		bounds.set(0, 0, 0, 0);
+		Rect r = new Rect();
+		float x = 0;
+		for (int i = index; i < index + count; i += Character.charCount(Character.codePointAt(t, i))) {
+			int cp = Character.codePointAt(t, i);
+			inkBounds(cp, x, r);
+			x += advance(cp);
+			if (r.isEmpty())
+				continue;
+			if (bounds.isEmpty()) {
+				bounds.set(r.left, r.top, r.right, r.bottom);
+			} else {
+				bounds.set(Math.min(bounds.left, r.left), Math.min(bounds.top, r.top),
+						Math.max(bounds.right, r.right), Math.max(bounds.bottom, r.bottom));
+			}
+		}
+	}
+
+	public void getTextBounds(String t, int start, int end, Rect bounds) {
+		getTextBounds(t.toCharArray(), start, end - start, bounds);
+	}
+}
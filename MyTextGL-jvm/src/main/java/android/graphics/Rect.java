@@ -0,0 +1,28 @@
+package android.graphics;
+
+// Plain JVM stand-in for android.graphics.Rect.
+public class Rect {
+
+	public int left, top, right, bottom;
+
+	public Rect() {
+	}
+
+	public int width() { return right - left; }
+	public int height() { return bottom - top; }
+	public boolean isEmpty() { return left >= right || top >= bottom; }
+
+	public void inset(int dx, int dy) {
+		left += dx;
+		top += dy;
+		right -= dx;
+		bottom -= dy;
+	}
+
+	public void set(int l, int t, int r, int b) {
+		left = l;
+		top = t;
+		right = r;
+		bottom = b;
+	}
+}
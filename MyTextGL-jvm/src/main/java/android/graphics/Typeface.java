@@ -0,0 +1,11 @@
+package android.graphics;
+
+// Plain JVM stand-in for android.graphics.Typeface (every font file is the
+// synthetic font of Paint).
+public class Typeface {
+	static final Typeface SYNTHETIC = new Typeface();
+
+	public static Typeface createFromAsset(android.content.res.AssetManager a, String f) { return SYNTHETIC; }
+	public static Typeface createFromFile(String f) { return SYNTHETIC; }
+	public static Typeface createFromFile(java.io.File f) { return SYNTHETIC; }
+}
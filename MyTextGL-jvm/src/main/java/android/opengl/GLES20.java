@@ -0,0 +1,144 @@
+package android.opengl;
+
+import java.nio.Buffer;
+
+// Plain JVM stand-in for android.opengl.GLES20: no rendering, but every call
+// is counted, shaders compile and programs link, names are handed out, and
+// the draw calls and buffer/texture bytes are recorded, so the text code runs
+// (and can be measured) off the device. Counters are global; see reset().
+// Buffer object sizes are tracked, and a glBufferSubData() past the end of
+// the bound buffer throws (GL would only flag GL_INVALID_VALUE).
+public class GLES20 {
+
+	public static final int GL_BLEND = 0x0BE2, GL_CLAMP_TO_EDGE = 0x812F,
+			GL_COLOR_BUFFER_BIT = 0x4000, GL_COMPILE_STATUS = 0x8B81,
+			GL_CULL_FACE = 0x0B44, GL_DEPTH_BUFFER_BIT = 0x100,
+			GL_DEPTH_TEST = 0x0B71, GL_FLOAT = 0x1406,
+			GL_FRAGMENT_SHADER = 0x8B30, GL_LINK_STATUS = 0x8B82,
+			GL_NEAREST = 0x2600, GL_LINEAR = 0x2601, GL_NO_ERROR = 0,
+			GL_ONE_MINUS_SRC_ALPHA = 0x303, GL_SRC_ALPHA = 0x302, GL_ONE = 1,
+			GL_ZERO = 0, GL_TEXTURE0 = 0x84C0, GL_TEXTURE_2D = 0x0DE1,
+			GL_TEXTURE_MAG_FILTER = 0x2800, GL_TEXTURE_MIN_FILTER = 0x2801,
+			GL_TEXTURE_WRAP_S = 0x2802, GL_TEXTURE_WRAP_T = 0x2803,
+			GL_TRIANGLES = 4, GL_UNSIGNED_SHORT = 0x1403,
+			GL_UNSIGNED_BYTE = 0x1401, GL_UNSIGNED_INT = 0x1405,
+			GL_SHORT = 0x1402, GL_BYTE = 0x1400, GL_VERTEX_SHADER = 0x8B31,
+			GL_ARRAY_BUFFER = 0x8892, GL_ELEMENT_ARRAY_BUFFER = 0x8893,
+			GL_STATIC_DRAW = 0x88E4, GL_DYNAMIC_DRAW = 0x88E8,
+			GL_STREAM_DRAW = 0x88E0, GL_ALPHA = 0x1906,
+			GL_LUMINANCE = 0x1909, GL_RGBA = 0x1908,
+			GL_UNPACK_ALIGNMENT = 0x0CF5, GL_EXTENSIONS = 0x1F03,
+			GL_VERSION = 0x1F02, GL_MAX_TEXTURE_SIZE = 0x0D33,
+			GL_SCISSOR_TEST = 0x0C11, GL_TEXTURE_BINDING_2D = 0x8069;
+
+	// --Recording--//
+	public static long calls; // All Calls
+	public static long drawCalls; // glDrawArrays/Elements(Instanced)
+	public static long bytesUploaded; // Buffer and Texture Bytes Sent
+	private static int nextName = 1; // Next Program/Shader/Buffer/Texture
+	private static int arrayBuffer, elementBuffer; // Bound Buffers
+	private static int[] sizes = new int[256]; // Buffer -> Size (Bytes)
+	private static boolean depthTest; // GL_DEPTH_TEST (glIsEnabled())
+
+	// D: clear the counters
+	public static void reset() {
+		calls = drawCalls = bytesUploaded = 0;
+	}
+
+	static void call() {
+		calls++;
+	}
+
+	static void draw() {
+		calls++;
+		drawCalls++;
+	}
+
+	static void upload(Buffer data, int bytes) {
+		calls++;
+		if (data != null)
+			bytesUploaded += bytes;
+	}
+
+	private static void gen(int n, int[] names, int offset) {
+		calls++;
+		for (int i = 0; i < n; i++)
+			names[offset + i] = nextName++;
+	}
+
+	public static void glActiveTexture(int a) { call(); }
+	public static void glAttachShader(int a, int b) { call(); }
+	public static void glBindAttribLocation(int a, int b, String c) { call(); }
+	public static void glBindTexture(int a, int b) { call(); }
+	public static void glBlendFunc(int a, int b) { call(); }
+	public static void glClear(int a) { call(); }
+	public static void glClearColor(float a, float b, float c, float d) { call(); }
+	public static void glCompileShader(int a) { call(); }
+	public static int glCreateProgram() { call(); return nextName++; }
+	public static int glCreateShader(int a) { call(); return nextName++; }
+	public static void glDeleteProgram(int a) { call(); }
+	public static void glDeleteShader(int a) { call(); }
+	public static void glDisable(int a) { call(); if (a == GL_DEPTH_TEST) depthTest = false; }
+	public static void glEnable(int a) { call(); if (a == GL_DEPTH_TEST) depthTest = true; }
+	public static boolean glIsEnabled(int a) { call(); return (a == GL_DEPTH_TEST && depthTest); }
+	public static void glDisableVertexAttribArray(int a) { call(); }
+	public static void glEnableVertexAttribArray(int a) { call(); }
+	public static void glDrawArrays(int a, int b, int c) { draw(); }
+	public static void glDrawElements(int a, int b, int c, Buffer d) { draw(); }
+	public static void glDrawElements(int a, int b, int c, int d) { draw(); }
+	public static void glGenTextures(int n, int[] a, int o) { gen(n, a, o); }
+	public static void glDeleteTextures(int n, int[] a, int o) { call(); }
+	public static int glGetAttribLocation(int a, String b) { call(); return 0; }
+	public static int glGetError() { call(); return GL_NO_ERROR; }
+	public static String glGetProgramInfoLog(int a) { call(); return ""; }
+	public static void glGetProgramiv(int a, int b, int[] c, int d) { call(); c[d] = 1; }
+	public static String glGetShaderInfoLog(int a) { call(); return ""; }
+	public static void glGetShaderiv(int a, int b, int[] c, int d) { call(); c[d] = 1; }
+	public static int glGetUniformLocation(int a, String b) { call(); return 0; }
+	public static void glLinkProgram(int a) { call(); }
+	public static void glShaderSource(int a, String b) { call(); }
+	public static void glTexParameteri(int a, int b, int c) { call(); }
+	public static void glUniform1i(int a, int b) { call(); }
+	public static void glUniform1f(int a, float b) { call(); }
+	public static void glUniform2f(int a, float b, float c) { call(); }
+	public static void glUniform4f(int a, float b, float c, float d, float e) { call(); }
+	public static void glUniform4fv(int a, int b, float[] c, int d) { call(); }
+	public static void glUniformMatrix4fv(int a, int b, boolean c, float[] d, int e) { call(); }
+	public static void glUseProgram(int a) { call(); }
+	public static void glVertexAttribPointer(int a, int b, int c, boolean d, int e, Buffer f) { call(); }
+	public static void glVertexAttribPointer(int a, int b, int c, boolean d, int e, int f) { call(); }
+	public static void glViewport(int a, int b, int c, int d) { call(); }
+	public static void glGenBuffers(int n, int[] a, int o) { gen(n, a, o); }
+	public static void glDeleteBuffers(int n, int[] a, int o) { call(); }
+	public static void glBindBuffer(int target, int buffer) {
+		call();
+		if (target == GL_ARRAY_BUFFER)
+			arrayBuffer = buffer;
+		else
+			elementBuffer = buffer;
+	}
+
+	public static void glBufferData(int target, int size, Buffer data, int usage) {
+		upload(data, size);
+		int buffer = (target == GL_ARRAY_BUFFER ? arrayBuffer : elementBuffer);
+		if (buffer >= sizes.length)
+			sizes = java.util.Arrays.copyOf(sizes, buffer * 2);
+		sizes[buffer] = size;
+	}
+
+	public static void glBufferSubData(int target, int offset, int size, Buffer data) {
+		upload(data, size);
+		int buffer = (target == GL_ARRAY_BUFFER ? arrayBuffer : elementBuffer);
+		int capacity = (buffer < sizes.length ? sizes[buffer] : 0);
+		if (offset + size > capacity)
+			throw new IllegalStateException("glBufferSubData past the end: "
+					+ (offset + size) + " > " + capacity + " bytes");
+	}
+	public static void glTexImage2D(int a, int b, int c, int w, int h, int f, int g, int t, Buffer i) { upload(i, w * h); }
+	public static void glTexSubImage2D(int a, int b, int x, int y, int w, int h, int g, int t, Buffer i) { upload(i, w * h); }
+	public static void glPixelStorei(int a, int b) { call(); }
+	public static String glGetString(int a) { call(); return a == GL_VERSION ? "OpenGL ES 2.0 (JVM stand-in)" : ""; }
+	public static void glGetIntegerv(int a, int[] b, int c) { call(); b[c] = (a == GL_MAX_TEXTURE_SIZE ? 4096 : 0); }
+	public static void glScissor(int a, int b, int c, int d) { call(); }
+	public static void glVertexAttrib4f(int a, float b, float c, float d, float e) { call(); }
+}
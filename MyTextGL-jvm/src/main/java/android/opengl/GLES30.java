@@ -0,0 +1,13 @@
+package android.opengl;
+
+// Plain JVM stand-in for android.opengl.GLES30 (see GLES20).
+public class GLES30 extends GLES20 {
+
+	public static final int GL_TRIANGLE_STRIP = 5;
+
+	public static void glVertexAttribDivisor(int a, int b) { call(); }
+	public static void glDrawArraysInstanced(int a, int b, int c, int d) { draw(); }
+	public static void glGenVertexArrays(int n, int[] a, int o) { glGenBuffers(n, a, o); }
+	public static void glBindVertexArray(int a) { call(); }
+	public static void glDeleteVertexArrays(int n, int[] a, int o) { call(); }
+}
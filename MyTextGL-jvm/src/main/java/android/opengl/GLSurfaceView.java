@@ -0,0 +1,2 @@
+package android.opengl;
+public class GLSurfaceView extends android.view.View { public GLSurfaceView(android.content.Context c){super(c);} public interface Renderer { void onSurfaceCreated(javax.microedition.khronos.opengles.GL10 g, javax.microedition.khronos.egl.EGLConfig c); void onSurfaceChanged(javax.microedition.khronos.opengles.GL10 g,int w,int h); void onDrawFrame(javax.microedition.khronos.opengles.GL10 g);} public void setEGLContextClientVersion(int v){} public void setRenderer(Renderer r){} public void onResume(){} public void onPause(){} public void queueEvent(Runnable r){} public void requestRender(){} }
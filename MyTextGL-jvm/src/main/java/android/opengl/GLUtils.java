@@ -0,0 +1,2 @@
+package android.opengl;
+public class GLUtils { public static void texImage2D(int a,int b,android.graphics.Bitmap c,int d){} public static void texImage2D(int a,int b,int f,android.graphics.Bitmap c,int d){} public static void texSubImage2D(int a,int b,int x,int y,android.graphics.Bitmap c){} }
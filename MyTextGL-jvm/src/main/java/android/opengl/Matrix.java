@@ -0,0 +1,2 @@
+package android.opengl;
+public class Matrix { public static void orthoM(float[] m,int o,float a,float b,float c,float d,float e,float f){} public static void setIdentityM(float[] m,int o){} public static void translateM(float[] m,int o,float x,float y,float z){} public static void scaleM(float[] m,int o,float x,float y,float z){} public static void multiplyMM(float[] a,int b,float[] c,int d,float[] e,int f){} public static void setLookAtM(float[] m,int o,float a,float b,float c,float d,float e,float f,float g,float h,float i){} }
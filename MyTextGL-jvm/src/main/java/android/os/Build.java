@@ -0,0 +1,2 @@
+package android.os;
+public class Build { public static class VERSION { public static final int SDK_INT = 18; } public static class VERSION_CODES { public static final int JELLY_BEAN_MR2 = 18; } }
@@ -0,0 +1,2 @@
+package android.os;
+public class Debug { public static void startAllocCounting(){} public static void stopAllocCounting(){} public static int getThreadAllocCount(){return 0;} public static int getGlobalAllocCount(){return 0;} public static void resetThreadAllocCount(){} public static void resetGlobalAllocCount(){} public static int getThreadAllocSize(){return 0;} }
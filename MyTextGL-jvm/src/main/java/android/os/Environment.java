@@ -0,0 +1,2 @@
+package android.os;
+public class Environment { public static java.io.File getExternalStorageDirectory(){return null;} }
@@ -0,0 +1,15 @@
+package android.os;
+
+// Plain JVM stand-in for android.os.SystemClock.
+public class SystemClock {
+	public static long uptimeMillis() { return System.nanoTime() / 1000000L; }
+	public static long elapsedRealtime() { return uptimeMillis(); }
+
+	public static void sleep(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
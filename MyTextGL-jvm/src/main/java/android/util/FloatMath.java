@@ -0,0 +1,8 @@
+package android.util;
+
+// Plain JVM stand-in for android.util.FloatMath.
+public class FloatMath {
+	public static float sqrt(float f) { return (float) Math.sqrt(f); }
+	public static float floor(float f) { return (float) Math.floor(f); }
+	public static float ceil(float f) { return (float) Math.ceil(f); }
+}
@@ -0,0 +1,22 @@
+package android.util;
+
+// Plain JVM stand-in for android.util.Log: messages are dropped, except
+// errors, which go to stderr (benchmarks should not measure logging).
+public class Log {
+
+	public static int d(String tag, String msg) { return 0; }
+	public static int i(String tag, String msg) { return 0; }
+	public static int w(String tag, String msg) { return 0; }
+	public static int w(String tag, String msg, Throwable t) { return 0; }
+
+	public static int e(String tag, String msg) {
+		System.err.println(tag + ": " + msg);
+		return 0;
+	}
+
+	public static int e(String tag, String msg, Throwable t) {
+		e(tag, msg);
+		t.printStackTrace();
+		return 0;
+	}
+}
@@ -0,0 +1,2 @@
+package android.view;
+public class View { public View(android.content.Context c){} public android.content.Context getContext(){return null;} }
@@ -0,0 +1,55 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.content.Context;
+
+// Distance field generation of a 48px coverage atlas (see
+// DistanceField.generate()) on the calling thread against the worker pool.
+// Each invocation restores the coverage pixels first (a copy, small next to
+// the transform).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceFieldBenchmarks {
+
+	@Param({ "1", "2", "4" })
+	// Number of Tasks (1 = Calling Thread)
+	public int threads;
+
+	FontAtlas atlas;
+	byte[] coverage, pixels;
+
+	@Setup
+	public void setup() {
+		atlas = FontAtlas.build(new Context().getAssets(),
+				JvmFonts.FILE, 48, GLText.SDF_SPREAD, GLText.SDF_SPREAD, false);
+		coverage = new byte[atlas.pixels.capacity()];
+		atlas.pixels.get(coverage);
+		pixels = new byte[coverage.length];
+	}
+
+	@Benchmark
+	public byte[] generate() {
+		System.arraycopy(coverage, 0, pixels, 0, coverage.length);
+		DistanceField.generate(pixels, atlas.rowBytes, atlas.rectX,
+				atlas.rectY, atlas.rectW, atlas.rectH, GLText.CHAR_CNT,
+				GLText.SDF_SPREAD, threads);
+		return pixels;
+	}
+}
@@ -0,0 +1,26 @@
+package com.pacificHymalaya.MyTextGL;
+
+import android.content.Context;
+
+// Creates fonts off the device: a GLText on the stand-in GLES20 with the
+// synthetic font of the stand-in Paint uploaded (see FontAtlas.build()), for
+// the benchmarks and tests of the plain JVM build.
+public class JvmFonts {
+
+	final static String FILE = "Synthetic.ttf"; // (Any Name; Same Font)
+
+	// --Create--//
+	// D: create a loaded font
+	// A: size - pixel size of the font
+	// distanceField - build a distance field atlas
+	// R: the font
+	public static GLText create(int size, boolean distanceField) {
+		GLText font = new GLText(new Context(), new float[16]);
+		FontAtlas atlas = FontAtlas.build(new Context().getAssets(), FILE,
+				size, 2, 2, distanceField);
+		if (atlas == null)
+			throw new RuntimeException("Font size out of range: " + size);
+		font.upload(atlas);
+		return font;
+	}
+}
@@ -0,0 +1,155 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH versions of the TextBenchmark cases: the CPU side of batching (GL calls
+// go to the recording GLES20 stand-in), vertex upload, index generation,
+// text measuring, number formatting and atlas building. Results are
+// operations per millisecond plus glyphs per millisecond (the "glyphs"
+// counter); the two textRenderer cases compare the GLES2 and the instanced
+// backend on 10k glyphs per operation, and also count the bytes uploaded
+// ("uploadBytes" divided by the operations = bytes per 10k glyphs). Run
+// with the gc profiler to see the bytes allocated per operation:
+//
+//   java -jar target/benchmarks.jar TextBenchmarks -prof gc
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextBenchmarks {
+
+	final static String LINE = TextBenchmark.LINE;
+
+	// Glyphs Handled (Reported per Time Unit Next to the Operations)
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Glyphs {
+		public long glyphs;
+		public long uploadBytes; // (textRenderer Cases)
+	}
+
+	GLText font;
+	SpriteBatch batch;
+	TextureRegion region;
+	TextRenderer renderer, instancedRenderer;
+	float[] vertices;
+	int color;
+	final char[] digits = new char[32];
+	long counter;
+
+	@Setup
+	public void setup() {
+		font = JvmFonts.create(24, false);
+		batch = font.batch;
+		region = font.charRgn['A' - GLText.CHAR_START];
+		renderer = new TextRenderer(batch.mMvpMatrix);
+		instancedRenderer = new TextRenderer(batch.mMvpMatrix, true);
+		color = Vertices.packColor(1.0f, 1.0f, 1.0f, 1.0f);
+		vertices = new float[batch.maxSprites
+				* SpriteBatch.VERTICES_PER_SPRITE * batch.vertices.vertexStride];
+	}
+
+	@Benchmark
+	public void spriteBatchDrawSprite(Glyphs g) {
+		// fill the batch without flushing, then empty it
+		batch.beginBatch(font.textureId, font.mCurrentColor);
+		int n = batch.maxSprites - 1;
+		for (int i = 0; i < n; i++)
+			batch.drawSprite(i, 100, 10, 12, region);
+		batch.numSprites = 0;
+		batch.bufferIndex = 0;
+		g.glyphs += n;
+	}
+
+	@Benchmark
+	public void drawLines(Glyphs g) {
+		font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+		for (int i = 0; i < 16; i++)
+			font.draw(LINE, 0, i * 20);
+		font.end();
+		g.glyphs += 16 * LINE.length();
+	}
+
+	@Benchmark
+	public void drawCentered(Glyphs g) {
+		font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+		for (int i = 0; i < 16; i++)
+			font.drawC(LINE, 400, i * 20);
+		font.end();
+		g.glyphs += 16 * LINE.length();
+	}
+
+	@Benchmark
+	public float getLength(Glyphs g) {
+		g.glyphs += LINE.length();
+		return font.getLength(LINE);
+	}
+
+	@Benchmark
+	public void verticesSetVertices(Glyphs g) {
+		batch.vertices.setVertices(vertices, 0, vertices.length);
+		g.glyphs += batch.maxSprites; // (Sprites Worth of Vertices)
+	}
+
+	@Benchmark
+	public SpriteBatch spriteBatchConstructor() {
+		// mostly the index generation
+		return new SpriteBatch(batch.maxSprites, batch.mProgram,
+				batch.mMvpMatrix, batch.compact);
+	}
+
+	@Benchmark
+	public int formatInt() {
+		return GLText.formatInt(-1234567890123L + (counter++), digits);
+	}
+
+	@Benchmark
+	public int formatFloat() {
+		return GLText.formatFloat(-12345.678f + (counter++ & 1023), 3,
+				digits);
+	}
+
+	@Benchmark
+	public long textRenderer10kGlyphs(Glyphs g) {
+		return drawGlyphs(renderer, g);
+	}
+
+	@Benchmark
+	public long textRendererInstanced10kGlyphs(Glyphs g) {
+		return drawGlyphs(instancedRenderer, g);
+	}
+
+	// record and flush a frame of 10k glyphs (one bucket)
+	private long drawGlyphs(TextRenderer renderer, Glyphs g) {
+		long uploaded = renderer.getUploadedBytes();
+		TextRenderer.Bucket b = renderer.bucket(font.textureId, 0.0f, 1.0f);
+		for (int i = 0; i < TextBenchmark.GLYPHS; i++) {
+			float x = (i % 100) * 10, y = (i / 100) * 10;
+			b.addSprite(x, y, x + 8, y + 10, region, color);
+		}
+		renderer.endFrame();
+		g.glyphs += TextBenchmark.GLYPHS;
+		g.uploadBytes += renderer.getUploadedBytes() - uploaded;
+		return renderer.getUploadedBytes();
+	}
+
+	@Benchmark
+	public FontAtlas fontAtlasBuild(Glyphs g) {
+		g.glyphs += GLText.CHAR_CNT;
+		return FontAtlas.build(font.assets, JvmFonts.FILE, 24, 2, 2, false);
+	}
+}
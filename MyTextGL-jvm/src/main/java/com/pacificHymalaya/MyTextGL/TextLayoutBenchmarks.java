@@ -0,0 +1,68 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Paragraph layout of a 64 KB text: a full layout() against the relayout
+// after typing one character (textChanged()), in both break modes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextLayoutBenchmarks {
+
+	@Param({ "0", "1" })
+	// TextLayout.GREEDY, TextLayout.OPTIMAL
+	public int mode;
+
+	TextLayout layout;
+	StringBuilder text;
+	int edit;
+
+	@Setup
+	public void setup() {
+		GLText font = JvmFonts.create(24, false);
+		text = new StringBuilder();
+		String[] words = { "the", "quick", "brown", "fox", "jumps", "over",
+				"lazy", "dogs", "typography", "a" };
+		for (int i = 0; text.length() < 65536; i++) {
+			text.append(words[(i * 7 + i / 3) % words.length]);
+			text.append(i % 97 == 96 ? '\n' : ' ');
+		}
+		layout = new TextLayout(font);
+		layout.setMode(mode);
+		layout.setWrapWidth(600.0f);
+		layout.setText(text);
+		layout.layout();
+		edit = text.length() / 2;
+	}
+
+	@Benchmark
+	public int fullLayout() {
+		layout.layout();
+		return layout.getLineCount();
+	}
+
+	@Benchmark
+	public int typeCharacter() {
+		// insert a character, then remove it again (two edits)
+		text.insert(edit, 'x');
+		layout.textChanged(edit, 0, 1);
+		text.deleteCharAt(edit);
+		layout.textChanged(edit, 1, 0);
+		return layout.getLineCount();
+	}
+}
@@ -0,0 +1,30 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.lang.management.ManagementFactory;
+
+// Counts the heap bytes allocated by the calling thread (HotSpot's
+// com.sun.management.ThreadMXBean), for tests that assert a path does not
+// allocate.
+class Allocations {
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	// --Measure--//
+	// D: run a task (after warming it up, so the JIT has compiled it) and
+	// return the bytes it allocated
+	// A: task - the task
+	// runs - how often to run it while measuring
+	// R: the bytes allocated by the measured runs
+	static long measure(Runnable task, int runs) {
+		for (int i = 0; i < 20000; i++) // Warm Up
+			task.run();
+		long id = Thread.currentThread().getId();
+		long overhead = THREADS.getThreadAllocatedBytes(id);
+		overhead = THREADS.getThreadAllocatedBytes(id) - overhead;
+		long start = THREADS.getThreadAllocatedBytes(id);
+		for (int i = 0; i < runs; i++)
+			task.run();
+		return THREADS.getThreadAllocatedBytes(id) - start - overhead;
+	}
+}
@@ -0,0 +1,89 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import android.opengl.GLES20;
+
+public class GLTextTest {
+
+	// a line culled above the clip rectangle is measured without rasterizing
+	// its glyphs (which could flush), and continues like a drawn line
+	@Test
+	public void culledAlignedLineIsOnlyMeasured() {
+		GLText font = JvmFonts.create(24, false);
+		font.setClip(0, 0, 100, 100);
+		String text = "café über";
+		font.begin();
+		float length = font.drawAligned(text, 50, 500, GLText.ALIGN_CENTER, 0);
+		font.end();
+		assertEquals(GlyphCache.NONE, font.glyphCache.get('é'));
+		assertEquals(GlyphCache.NONE, font.glyphCache.get('ü'));
+		assertEquals(500, font.lastY, 0);
+		assertEquals(50 + length / 2 + font.getSpace() * font.scaleX,
+				font.lastX, 0.001f);
+
+		font.clearClip();
+		assertEquals(font.getLength(text), length, 0.001f);
+	}
+
+	// control characters have no glyph and no advance (not the unknown
+	// glyph's)
+	@Test
+	public void controlCharactersAreSkipped() {
+		GLText font = JvmFonts.create(24, false);
+		assertEquals(font.getLength("ab"), font.getLength("a\nb\r"), 0);
+		assertEquals(0, font.getCharWidth('\t'), 0);
+		TextMesh mesh = font.createMesh("a\u0001b\n");
+		mesh.draw(0, 0);
+		assertEquals(2, mesh.numGlyphs);
+	}
+
+	// a distance field load is asynchronous, but an unsupported size is
+	// still reported by load() itself
+	@Test
+	public void distanceFieldLoadChecksTheSize() {
+		GLText font = new GLText(new android.content.Context(), new float[16]);
+		assertFalse(font.load(JvmFonts.FILE, GLText.FONT_SIZE_MAX * 4, 2, 2,
+				true));
+		assertFalse(font.isLoaded());
+	}
+
+	// text is drawn without depth testing, but leaves the caller's depth
+	// test (set outside GLState) as it found it, unless opted out
+	@Test
+	public void depthTestIsRestored() {
+		GLText font = JvmFonts.create(24, false);
+		GLState.reset();
+		GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+		font.begin();
+		font.draw("batch", 0, 0);
+		font.end();
+		assertTrue(GLES20.glIsEnabled(GLES20.GL_DEPTH_TEST));
+		font.createMesh("mesh").draw(0, 0);
+		assertTrue(GLES20.glIsEnabled(GLES20.GL_DEPTH_TEST));
+
+		TextRenderer renderer = new TextRenderer(new float[16], false);
+		font.setRenderer(renderer);
+		font.begin();
+		font.draw("renderer", 0, 0);
+		font.end();
+		renderer.endFrame();
+		assertTrue(GLES20.glIsEnabled(GLES20.GL_DEPTH_TEST));
+
+		GLState.setRestoreDepthTest(false);
+		try {
+			font.begin();
+			font.draw("opt out", 0, 0);
+			font.end();
+			renderer.endFrame();
+			assertFalse(GLES20.glIsEnabled(GLES20.GL_DEPTH_TEST));
+		} finally {
+			GLState.setRestoreDepthTest(true);
+			GLState.reset();
+		}
+	}
+}
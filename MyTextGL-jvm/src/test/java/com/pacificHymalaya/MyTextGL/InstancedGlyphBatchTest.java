@@ -0,0 +1,57 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InstancedGlyphBatchTest {
+
+	// a record expanded the way the vertex shader does (corners (0,0) (1,0)
+	// (1,1) (0,1) = p0 p1 p2 p3) gives back the corners, texture coordinates
+	// and color of every vertex of the packed sprite
+	@Test
+	public void convertKeepsTheSprite() {
+		GLText font = JvmFonts.create(24, false);
+		TextureRegion region = font.charRgn['g' - GLText.CHAR_START];
+		assertTrue(region.su1 != region.su2 && region.sv1 != region.sv2);
+		int color = Vertices.packColor(0.25f, 0.5f, 0.75f, 1.0f);
+		int s = TextRenderer.SPRITE_INTS; // (Second Sprite: Offsets Count)
+		int[] sprites = new int[2 * s];
+		SpriteBatch.packSprite(sprites, s, 10.5f, -3.0f, 22.25f, 17.0f,
+				region, color);
+		int d = 1;
+		int[] records = new int[d + InstancedGlyphBatch.INSTANCE_INTS];
+		InstancedGlyphBatch.convert(sprites, s, records, d, 1);
+
+		assertEquals(10.5f, Float.intBitsToFloat(records[d]), 0);
+		assertEquals(-3.0f, Float.intBitsToFloat(records[d + 1]), 0);
+		assertEquals(22.25f, Float.intBitsToFloat(records[d + 2]), 0);
+		assertEquals(17.0f, Float.intBitsToFloat(records[d + 3]), 0);
+		assertEquals(region.su1, u(records[d + 4]));
+		assertEquals(region.sv2, v(records[d + 4]));
+		assertEquals(region.su2, u(records[d + 5]));
+		assertEquals(region.sv1, v(records[d + 5]));
+		assertEquals(color, records[d + 6]);
+
+		int[][] corners = { { 0, 0 }, { 1, 0 }, { 1, 1 }, { 0, 1 } };
+		for (int i = 0; i < SpriteBatch.VERTICES_PER_SPRITE; i++) {
+			int p = s + i * SpriteBatch.COMPACT_VERTEX_SIZE;
+			int cx = corners[i][0], cy = corners[i][1];
+			assertEquals(sprites[p], records[d + cx * 2]); // x
+			assertEquals(sprites[p + 1], records[d + 1 + cy * 2]); // y
+			assertEquals(sprites[p + 2], records[d + 6]); // color
+			assertEquals(u(sprites[p + 3]), u(records[d + 4 + cx])); // u
+			assertEquals(v(sprites[p + 3]), v(records[d + 4 + cy])); // v
+		}
+	}
+
+	// unpack the (normalized short) texture coordinates of Vertices.packTexCoords()
+	private static int u(int texCoords) {
+		return (Vertices.LITTLE_ENDIAN ? texCoords & 0xFFFF : texCoords >>> 16);
+	}
+
+	private static int v(int texCoords) {
+		return (Vertices.LITTLE_ENDIAN ? texCoords >>> 16 : texCoords & 0xFFFF);
+	}
+}
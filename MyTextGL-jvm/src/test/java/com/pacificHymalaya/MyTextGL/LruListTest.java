@@ -0,0 +1,35 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LruListTest {
+
+	// free entries are handed out in order, then the entry used longest ago
+	// (touching an entry moves it to the front)
+	@Test
+	public void fullListReusesLeastRecentlyUsed() {
+		LruList lru = new LruList(3);
+		assertEquals(0, lru.take());
+		assertEquals(1, lru.take());
+		assertEquals(2, lru.take());
+		assertTrue(lru.isFull());
+
+		lru.touch(0); // Order (Most Recent First): 0 2 1
+		assertEquals(1, lru.nextEntry());
+		assertEquals(1, lru.take()); // 1 0 2
+		assertEquals(2, lru.take()); // 2 1 0
+		lru.touch(2); // (Already Most Recent)
+		assertEquals(0, lru.take()); // 0 2 1
+		assertEquals(1, lru.tail);
+
+		lru.clear();
+		assertFalse(lru.isFull());
+		assertEquals(0, lru.take());
+		assertEquals(0, lru.head);
+		assertEquals(0, lru.tail);
+	}
+}
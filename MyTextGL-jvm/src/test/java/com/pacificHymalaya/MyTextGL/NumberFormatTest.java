@@ -0,0 +1,125 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+// GLText.formatInt()/formatFloat() and the allocation free draw overloads
+public class NumberFormatTest {
+
+	final char[] buffer = new char[GLText.DIGITS_SIZE];
+
+	String formatInt(long value) {
+		int len = GLText.formatInt(value, buffer);
+		return new String(buffer, buffer.length - len, len);
+	}
+
+	String formatFloat(float value, int decimals) {
+		int len = GLText.formatFloat(value, decimals, buffer);
+		return new String(buffer, buffer.length - len, len);
+	}
+
+	@Test
+	public void formatIntEdgeCases() {
+		long[] values = { 0, 1, -1, 9, -9, 10, -10, Integer.MAX_VALUE,
+				Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE,
+				Long.MIN_VALUE + 1 };
+		for (long v : values)
+			assertEquals(Long.toString(v), formatInt(v));
+	}
+
+	@Test
+	public void formatIntRandom() {
+		Random random = new Random(1);
+		for (int i = 0; i < 100000; i++) {
+			long v = random.nextLong() >> random.nextInt(64);
+			assertEquals(Long.toString(v), formatInt(v));
+		}
+	}
+
+	@Test
+	public void formatFloatEdgeCases() {
+		assertEquals("0.00", formatFloat(0.0f, 2));
+		assertEquals("0.00", formatFloat(-0.0f, 2)); // Negative Zero
+		assertEquals("0.00", formatFloat(-0.001f, 2)); // Rounds to Zero
+		assertEquals("-0.01", formatFloat(-0.006f, 2));
+		assertEquals("10.000", formatFloat(9.9996f, 3)); // Carry
+		assertEquals("100.0", formatFloat(99.96f, 1));
+		assertEquals("-1000", formatFloat(-999.5f, 0));
+		assertEquals("1", formatFloat(0.5f, 0)); // Halves Away From Zero
+		assertEquals("-3", formatFloat(-2.5f, 0));
+		assertEquals("2", formatFloat(1.5f, -1)); // Clamped to 0..9
+		assertEquals("0.100000001", formatFloat(0.1f, 12));
+		assertEquals("NaN", formatFloat(Float.NaN, 2));
+		assertEquals("Inf", formatFloat(Float.POSITIVE_INFINITY, 2));
+		assertEquals("-Inf", formatFloat(Float.NEGATIVE_INFINITY, 2));
+		assertEquals("Inf", formatFloat(Float.MAX_VALUE, 0));
+		assertEquals("-Inf", formatFloat(-2e18f, 0));
+		// too large for the decimals: drops them
+		assertEquals("99999998430674944", formatFloat(1e17f, 3));
+	}
+
+	@Test
+	public void formatFloatRandom() {
+		Random random = new Random(2);
+		for (int i = 0; i < 100000; i++) {
+			float v = (float) ((random.nextDouble() - 0.5) * Math.pow(10,
+					random.nextInt(12)));
+			int decimals = random.nextInt(6);
+			BigDecimal exact = new BigDecimal(v).movePointRight(decimals);
+			BigDecimal fraction = exact.abs().subtract(
+					exact.abs().setScale(0, RoundingMode.DOWN));
+			if (fraction.subtract(new BigDecimal("0.5")).abs()
+					.compareTo(new BigDecimal("1e-6")) < 0)
+				continue; // (Double Rounding Before the Half)
+			String expected = new BigDecimal(v).setScale(decimals,
+					RoundingMode.HALF_UP).toPlainString();
+			if (expected.startsWith("-") && expected.matches("-[0.]*"))
+				expected = expected.substring(1); // No "-0.00"
+			assertEquals(v + " " + decimals, expected, formatFloat(v, decimals));
+		}
+	}
+
+	@Test
+	public void formatDoesNotAllocate() {
+		assertEquals(0, Allocations.measure(new Runnable() {
+			long n;
+
+			@Override
+			public void run() {
+				n++;
+				GLText.formatInt(Long.MIN_VALUE + n, buffer);
+				GLText.formatFloat(n * -0.37f, 3, buffer);
+				GLText.formatFloat(Float.NaN, 3, buffer);
+				GLText.formatFloat(Float.NEGATIVE_INFINITY, 3, buffer);
+			}
+		}, 10000));
+	}
+
+	@Test
+	public void drawOverloadsDoNotAllocate() {
+		final GLText font = JvmFonts.create(24, false);
+		final StringBuilder text = new StringBuilder("Score: ");
+		final char[] chars = "Frame time".toCharArray();
+		assertEquals(0, Allocations.measure(new Runnable() {
+			int frame;
+
+			@Override
+			public void run() {
+				frame++;
+				font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+				font.drawInt(frame * -1234567L, 10, 10);
+				font.drawFloat(frame * 0.016f, 3, 10, 40);
+				text.setLength(7);
+				text.append(frame); // (Reuses the Builder's Array)
+				font.draw(text, 10, 70);
+				font.draw(chars, 0, chars.length, 10, 100);
+				font.end();
+			}
+		}, 1000));
+	}
+}
@@ -0,0 +1,69 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SpriteBatchTest {
+
+	// a frame of batched text (flushed by end()) in steady state, with
+	// either vertex layout
+	@Test
+	public void flushDoesNotAllocate() {
+		for (final boolean compact : new boolean[] { true, false }) {
+			final GLText font = new GLText(new android.content.Context(),
+					new float[16], compact);
+			font.upload(FontAtlas.build(font.assets, JvmFonts.FILE, 24, 2,
+					2, false));
+			final String line = TextBenchmark.LINE;
+			Runnable frame = new Runnable() {
+				@Override
+				public void run() {
+					font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+					for (int i = 0; i < 40; i++)
+						font.draw(line, 0, i * 20);
+					font.end();
+				}
+			};
+			long flushes = font.batch.getFlushCount();
+			frame.run();
+			assertTrue("no flush", font.batch.getFlushCount() - flushes > 0);
+			assertEquals("bytes allocated (compact " + compact + ")", 0,
+					Allocations.measure(frame, 1000));
+		}
+	}
+
+	// a flush must not limit the length of the next batch
+	@Test
+	public void batchesMayGrowBetweenFlushes() {
+		GLText font = JvmFonts.create(24, false);
+		for (int lines = 1; lines <= 8; lines++) {
+			font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+			for (int i = 0; i < lines; i++)
+				font.draw(TextBenchmark.LINE, 0, i * 20);
+			font.end();
+		}
+		assertEquals(8, font.batch.getFlushCount());
+	}
+
+	// quads recorded outside the batch have the batch's compact layout
+	@Test
+	public void packSpriteMatchesDrawSpriteCompact() {
+		GLText font = JvmFonts.create(24, false);
+		SpriteBatch batch = font.batch;
+		TextureRegion region = font.charRgn['g' - GLText.CHAR_START];
+		float[] color = { 0.25f, 0.5f, 0.75f, 1.0f };
+		batch.beginBatch(font.textureId, color);
+		batch.drawSpriteCompact(10.5f, -3.0f, 20.25f, 12.0f, region);
+		int[] packed = new int[TextRenderer.SPRITE_INTS + 1];
+		assertEquals(packed.length, SpriteBatch.packSprite(packed, 1, 10.5f,
+				-3.0f, 20.25f, 12.0f, region, Vertices.packColor(color[0],
+						color[1], color[2], color[3])));
+		for (int i = 0; i < TextRenderer.SPRITE_INTS; i++)
+			assertEquals("element " + i, batch.packedBuffer.get(i),
+					packed[i + 1]);
+		batch.numSprites = 0;
+		batch.bufferIndex = 0;
+	}
+}
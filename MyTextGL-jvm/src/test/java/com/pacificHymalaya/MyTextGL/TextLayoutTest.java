@@ -0,0 +1,132 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+// TextLayout: incremental relayout after random edits must give exactly the
+// lines of a full layout of the edited text
+public class TextLayoutTest {
+
+	final static float WRAP = 200.0f;
+	static GLText font;
+
+	@BeforeClass
+	public static void createFont() {
+		font = JvmFonts.create(16, false);
+	}
+
+	// random text of words, spaces, tabs and newlines
+	static String randomText(Random random, int length, boolean tabs) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++)
+			sb.append(randomChar(random, tabs));
+		return sb.toString();
+	}
+
+	static char randomChar(Random random, boolean tabs) {
+		int k = random.nextInt(40);
+		if (k < 6)
+			return ' ';
+		if (k == 6)
+			return '\n';
+		if (k == 7 && tabs)
+			return '\t';
+		if (k == 8) // (Runs Into Words Too Wide for a Line)
+			return 'W';
+		return (char) ('a' + random.nextInt(26));
+	}
+
+	static TextLayout fullLayout(CharSequence text, int mode) {
+		TextLayout layout = new TextLayout(font);
+		layout.setMode(mode);
+		layout.setWrapWidth(WRAP);
+		layout.setText(text);
+		return layout;
+	}
+
+	static void assertSameLines(String edit, TextLayout expected,
+			TextLayout actual) {
+		assertEquals(edit + ": lines", expected.getLineCount(),
+				actual.getLineCount());
+		for (int l = 0; l < expected.getLineCount(); l++) {
+			String line = edit + ": line " + l;
+			assertEquals(line, expected.getLineStart(l), actual.getLineStart(l));
+			assertEquals(line, expected.getLineEnd(l), actual.getLineEnd(l));
+			assertEquals(line, expected.getLineWidth(l),
+					actual.getLineWidth(l), 0.01f);
+		}
+	}
+
+	void randomEdits(int mode, boolean tabs, long seed) {
+		Random random = new Random(seed);
+		StringBuilder text = new StringBuilder(randomText(random, 3000, tabs));
+		TextLayout layout = fullLayout(text, mode);
+		for (int e = 0; e < 2000; e++) {
+			int start;
+			if (random.nextInt(3) == 0) // Edit at a Line Start
+				start = layout.getLineStart(random.nextInt(layout
+						.getLineCount()));
+			else
+				start = random.nextInt(text.length() + 1);
+			int before = Math.min(random.nextInt(4), text.length() - start);
+			StringBuilder inserted = new StringBuilder();
+			for (int n = random.nextInt(4); n > 0; n--)
+				inserted.append(random.nextInt(3) == 0 ? '\n' : randomChar(
+						random, tabs));
+			text.replace(start, start + before, inserted.toString());
+			layout.textChanged(start, before, inserted.length());
+			assertSameLines("mode " + mode + " edit " + e + " at " + start,
+					fullLayout(text, mode), layout);
+		}
+	}
+
+	@Test
+	public void greedyIncrementalMatchesFull() {
+		randomEdits(TextLayout.GREEDY, true, 1);
+	}
+
+	@Test
+	public void optimalIncrementalMatchesFull() {
+		randomEdits(TextLayout.OPTIMAL, false, 2);
+	}
+
+	// paragraphs with tabs or too wide words fall back to greedy breaking, so
+	// their lines are not those of a paragraph starting at the same offset
+	@Test
+	public void optimalWithGreedyParagraphsMatchesFull() {
+		randomEdits(TextLayout.OPTIMAL, true, 3);
+	}
+
+	@Test
+	public void newlineInsertedAtGreedyLineStart() {
+		StringBuilder text = new StringBuilder("\t");
+		for (int i = 0; i < 60; i++)
+			text.append(i % 3 == 0 ? "a " : "wordy ");
+		TextLayout layout = fullLayout(text, TextLayout.OPTIMAL);
+		assertTrue(layout.getLineCount() > 3);
+		int start = layout.getLineStart(2);
+		text.insert(start, '\n');
+		layout.textChanged(start, 0, 1);
+		assertSameLines("newline", fullLayout(text, TextLayout.OPTIMAL), layout);
+	}
+
+	@Test
+	public void linesFitTheWrapWidth() {
+		Random random = new Random(4);
+		String text = randomText(random, 5000, false);
+		for (int mode = TextLayout.GREEDY; mode <= TextLayout.OPTIMAL; mode++) {
+			TextLayout layout = fullLayout(text, mode);
+			for (int l = 0; l < layout.getLineCount(); l++) {
+				String line = text.substring(layout.getLineStart(l),
+						layout.getLineEnd(l));
+				if (line.indexOf(' ') >= 0) // (A Single Word May Not Fit)
+					assertTrue(line, layout.getLineWidth(l) <= WRAP + 0.01f);
+			}
+		}
+	}
+}
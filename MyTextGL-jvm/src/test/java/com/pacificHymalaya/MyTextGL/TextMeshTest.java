@@ -0,0 +1,25 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TextMeshTest {
+
+	// the buffers are sized for a quad per character, although empty glyphs
+	// write none, so a text of the same length with more visible glyphs fits
+	@Test
+	public void relayoutFitsTheBuffer() {
+		GLText font = JvmFonts.create(24, false);
+		TextMesh mesh = font.createMesh("a b c");
+		mesh.draw(0, 0);
+		assertEquals(3, mesh.numGlyphs);
+		mesh.setText("abcde");
+		mesh.draw(0, 0);
+		assertEquals(5, mesh.numGlyphs);
+		mesh.setText("ab");
+		mesh.draw(0, 0);
+		assertEquals(2, mesh.numGlyphs);
+		assertEquals(5, mesh.capacity);
+	}
+}
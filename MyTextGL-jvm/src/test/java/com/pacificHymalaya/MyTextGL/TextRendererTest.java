@@ -0,0 +1,44 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TextRendererTest {
+
+	// text of a font drawn over text of another font recorded earlier goes
+	// into a new bucket (drawn last); text elsewhere joins the first bucket
+	@Test
+	public void overlappingTextKeepsItsOrder() {
+		TextRenderer renderer = new TextRenderer(new float[16], false);
+		GLText a = JvmFonts.create(24, false);
+		GLText b = JvmFonts.create(32, false);
+		a.setRenderer(renderer);
+		b.setRenderer(renderer);
+
+		a.begin();
+		a.draw("first", 0, 0);
+		a.end();
+		b.begin();
+		b.draw("second", 0, 0);
+		b.end();
+		assertEquals(2, renderer.numBuckets);
+
+		a.begin();
+		a.draw("elsewhere", 0, 500);
+		a.end();
+		assertEquals(2, renderer.numBuckets);
+		assertEquals(14, renderer.buckets[0].numSprites);
+
+		a.begin();
+		a.draw("on top", 10, 5);
+		a.end();
+		assertEquals(3, renderer.numBuckets);
+
+		a.begin();
+		a.drawAligned("on top too", 0, 10, GLText.ALIGN_CENTER, 0);
+		a.end();
+		assertEquals(3, renderer.numBuckets);
+		renderer.endFrame();
+	}
+}
@@ -0,0 +1,43 @@
+package com.pacificHymalaya.MyTextGL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VerticesTest {
+
+	// components outside 0..1 saturate instead of wrapping around
+	@Test
+	public void packColorClamps() {
+		assertEquals(Vertices.packColor(1, 0, 1, 1),
+				Vertices.packColor(1.2f, -0.5f, 100.0f, Float.POSITIVE_INFINITY));
+		assertEquals(Vertices.packColor(0, 0, 0, 0),
+				Vertices.packColor(-1e-3f, Float.NEGATIVE_INFINITY, Float.NaN, -2));
+		assertEquals(0xff, Vertices.colorByte(1.0f));
+		assertEquals(128, Vertices.colorByte(0.5f));
+	}
+
+	// the client-side array path is chosen per instance, and kept when the
+	// batch grows (a new Vertices)
+	@Test
+	public void bufferObjectsArePerInstance() {
+		GLText client = JvmFonts.create(24, false);
+		GLText buffers = JvmFonts.create(24, false);
+		client.batch.vertices.setUseBufferObjects(false);
+		StringBuilder line = new StringBuilder();
+		while (line.length() <= GLText.CHAR_BATCH_SIZE)
+			line.append("Buffers ");
+		for (GLText font : new GLText[] { client, buffers }) {
+			font.begin();
+			font.draw("Buffers", 0, 0);
+			font.drawAligned(line, 0, 20, GLText.ALIGN_LEFT, 0);
+			font.end();
+		}
+		assertTrue("no resize", client.batch.resizeCount > 0);
+		assertFalse(client.batch.vertices.useBufferObjects);
+		assertEquals(0, client.batch.vertices.bufferIds[0]);
+		assertTrue(buffers.batch.vertices.bufferIds[0] != 0);
+	}
+}
@@ -0,0 +1,207 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+// On-disk cache of built font atlases (see FontAtlas), so a font only has to
+// be rasterized the first time it is loaded. One file per font/size/padding/
+// mode, holding a versioned header (with the stamp of the font file, so an
+// updated font is rebuilt), the metrics and the raw texture pixels. Reading
+// memory-maps the file, and the pixels are uploaded straight from the
+// mapping.
+//
+// NOTE: any problem reading (missing, stale or damaged file) is a cache miss;
+// problems writing are logged and otherwise ignored.
+class AtlasCache {
+
+	private final static String TAG = "AtlasCache";
+
+	// --Constants--//
+	private final static int MAGIC = 0x474C5458; // "GLTX"
+	// Format Version (Bump When the Layout or the Atlas Building Changes)
+	private final static int VERSION = 2;
+	// Size of the Key Part of the Header (Magic .. Glyph Cache Size)
+	private final static int KEY_BYTES = 2 * 4 + 8 + 7 * 4;
+
+	// --Font Stamp--//
+	// D: return a value that changes whenever a font file may have changed:
+	// assets only change with the app, so the time the package was last
+	// installed or updated (the font file is not read, so a cache hit never
+	// touches it)
+	// A: context - context of the app holding the font file
+	// file - the font file
+	// R: the stamp
+	static long fontStamp(Context context, String file) throws IOException {
+		try {
+			return context.getPackageManager().getPackageInfo(
+					context.getPackageName(), 0).lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) { // (Own Package)
+			return fontCrc(context.getAssets(), file);
+		}
+	}
+
+	// compute the CRC32 of a font file
+	private static long fontCrc(AssetManager assets, String file)
+			throws IOException {
+		CRC32 crc = new CRC32();
+		InputStream in = assets.open(file);
+		try {
+			byte[] buffer = new byte[16 * 1024];
+			int n;
+			while ((n = in.read(buffer)) > 0)
+				crc.update(buffer, 0, n);
+		} finally {
+			in.close();
+		}
+		return crc.getValue();
+	}
+
+	// --Get File--//
+	// D: return the cache file of an atlas
+	// A: dir - the cache directory (eg. Context.getCacheDir())
+	// file, fontSize, padX, padY, distanceField - see FontAtlas
+	// R: the cache file (may not exist)
+	static File getFile(File dir, String file, int fontSize, int padX,
+			int padY, boolean distanceField) {
+		return new File(dir, "atlas_" + file.replaceAll("[^A-Za-z0-9._-]", "_")
+				+ "_" + fontSize + "_" + padX + "_" + padY
+				+ (distanceField ? "_sdf" : "") + ".bin");
+	}
+
+	// --Read--//
+	// D: read a cached atlas
+	// A: cacheFile - the cache file (see getFile())
+	// stamp - stamp of the font file (see fontStamp())
+	// file, fontSize, padX, padY, distanceField - the expected key
+	// R: the atlas (pixels backed by the mapped file), or null on a miss
+	static FontAtlas read(File cacheFile, long stamp, String file, int fontSize,
+			int padX, int padY, boolean distanceField) {
+		if (!cacheFile.exists())
+			return null;
+		try {
+			MappedByteBuffer map;
+			RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				// NOTE: the mapping stays valid after the channel is closed
+				map = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						channel.size());
+			} finally {
+				raf.close();
+			}
+
+			// check the header
+			if (map.remaining() < KEY_BYTES || map.getInt() != MAGIC
+					|| map.getInt() != VERSION || map.getLong() != stamp
+					|| map.getInt() != fontSize || map.getInt() != padX
+					|| map.getInt() != padY
+					|| map.getInt() != (distanceField ? 1 : 0)
+					|| map.getInt() != GLText.CHAR_START
+					|| map.getInt() != GLText.CHAR_END
+					|| map.getInt() != GLText.GLYPH_CACHE_SIZE) {
+				Log.d(TAG, "stale atlas cache: " + cacheFile.getName());
+				return null;
+			}
+
+			FontAtlas atlas = new FontAtlas(file, fontSize, padX, padY,
+					distanceField);
+			atlas.fontHeight = map.getFloat();
+			atlas.fontAscent = map.getFloat();
+			atlas.fontDescent = map.getFloat();
+			atlas.charWidthMax = map.getFloat();
+			atlas.charHeight = map.getFloat();
+			atlas.cellWidth = map.getInt();
+			atlas.cellHeight = map.getInt();
+			atlas.textureSize = map.getInt();
+			atlas.cacheSlots = map.getInt();
+			atlas.rowBytes = map.getInt();
+			if (atlas.cacheSlots < 0
+					|| atlas.cacheSlots > GLText.GLYPH_CACHE_SIZE)
+				return null;
+			for (int c = 0; c < GLText.CHAR_CNT; c++) {
+				atlas.charWidths[c] = map.getFloat();
+				atlas.rectX[c] = map.getInt();
+				atlas.rectY[c] = map.getInt();
+				atlas.rectW[c] = map.getInt();
+				atlas.rectH[c] = map.getInt();
+				atlas.offsetX[c] = map.getFloat();
+				atlas.offsetY[c] = map.getFloat();
+			}
+			for (int i = 0; i < atlas.cacheSlots; i++) {
+				atlas.cacheCellX[i] = map.getInt();
+				atlas.cacheCellY[i] = map.getInt();
+			}
+			if (map.remaining() != atlas.rowBytes * atlas.textureSize)
+				return null; // Truncated
+			atlas.pixels = map.slice();
+			return atlas;
+		} catch (Exception e) { // IOException, or Underflow (Damaged File)
+			Log.w(TAG, "unreadable atlas cache: " + cacheFile.getName(), e);
+			return null;
+		}
+	}
+
+	// --Write--//
+	// D: write an atlas to the cache (replacing the previous file atomically)
+	// A: cacheFile - the cache file (see getFile())
+	// stamp - stamp of the font file (see fontStamp())
+	// atlas - the atlas to write
+	// R: [none]
+	static void write(File cacheFile, long stamp, FontAtlas atlas) {
+		int headerSize = KEY_BYTES + 10 * 4 + GLText.CHAR_CNT * 7 * 4
+				+ atlas.cacheSlots * 2 * 4;
+		ByteBuffer header = ByteBuffer.allocate(headerSize);
+		header.putInt(MAGIC).putInt(VERSION).putLong(stamp);
+		header.putInt(atlas.fontSize).putInt(atlas.padX).putInt(atlas.padY);
+		header.putInt(atlas.distanceField ? 1 : 0);
+		header.putInt(GLText.CHAR_START).putInt(GLText.CHAR_END);
+		header.putInt(GLText.GLYPH_CACHE_SIZE);
+		header.putFloat(atlas.fontHeight).putFloat(atlas.fontAscent);
+		header.putFloat(atlas.fontDescent).putFloat(atlas.charWidthMax);
+		header.putFloat(atlas.charHeight);
+		header.putInt(atlas.cellWidth).putInt(atlas.cellHeight);
+		header.putInt(atlas.textureSize).putInt(atlas.cacheSlots);
+		header.putInt(atlas.rowBytes);
+		for (int c = 0; c < GLText.CHAR_CNT; c++) {
+			header.putFloat(atlas.charWidths[c]);
+			header.putInt(atlas.rectX[c]).putInt(atlas.rectY[c]);
+			header.putInt(atlas.rectW[c]).putInt(atlas.rectH[c]);
+			header.putFloat(atlas.offsetX[c]).putFloat(atlas.offsetY[c]);
+		}
+		for (int i = 0; i < atlas.cacheSlots; i++)
+			header.putInt(atlas.cacheCellX[i]).putInt(atlas.cacheCellY[i]);
+		header.flip();
+
+		File tmp = new File(cacheFile.getPath() + ".tmp");
+		try {
+			FileOutputStream out = new FileOutputStream(tmp);
+			try {
+				FileChannel channel = out.getChannel();
+				while (header.hasRemaining())
+					channel.write(header);
+				ByteBuffer pixels = atlas.pixels.duplicate();
+				pixels.rewind();
+				while (pixels.hasRemaining())
+					channel.write(pixels);
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(cacheFile))
+				throw new IOException("rename failed");
+		} catch (IOException e) {
+			Log.w(TAG, "could not write atlas cache: " + cacheFile.getName(), e);
+			tmp.delete();
+		}
+	}
+}
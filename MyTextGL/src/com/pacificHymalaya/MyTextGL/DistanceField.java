@@ -0,0 +1,224 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// Converts rasterized (coverage) glyphs into signed distance fields, using
+// the 8-point sequential signed Euclidean distance transform (8SSEDT): two
+// passes over a grid of nearest-point offsets, once towards the glyph and
+// once away from it. The result is stored back into the same pixels as
+// 0.5 + distance / (2 * spread), clamped to 0..1 (inside > 0.5), so a
+// GL_LINEAR sampled atlas can be thresholded at any scale.
+//
+// NOTE: the transform is CPU heavy (a few ms per atlas), so atlases are split
+// into glyph rectangles that are transformed in parallel on a small pool of
+// background threads. Whole atlases are only transformed on load threads
+// (GLText.loadAsync()); single glyphs added to the glyph cache of a distance
+// field font are transformed on the GL thread, with scratch arrays owned by
+// the font (see Scratch), so a cache miss does not allocate. MyTextGL-jvm's
+// DistanceFieldBenchmarks measures the atlas transform on 1 and more threads.
+class DistanceField {
+
+	// --Constants--//
+	private final static int FAR = 1 << 14; // Offset of "No Point Found Yet"
+	private final static int THREADS = Math.max(1, Runtime.getRuntime()
+			.availableProcessors());
+
+	private static ExecutorService executor; // Shared Worker Pool (Lazy)
+
+	// Working grids of the transform (nearest-point offsets), reused by the
+	// transforms of one thread
+	static class Scratch {
+		int[] inX, inY; // Offsets to Inside Point
+		int[] outX, outY; // Offsets to Outside Point
+
+		// A: size - the number of pixels of the largest rectangle
+		Scratch(int size) {
+			ensure(size);
+		}
+
+		// grow the grids to hold size pixels
+		void ensure(int size) {
+			if (inX != null && inX.length >= size)
+				return;
+			inX = new int[size];
+			inY = new int[size];
+			outX = new int[size];
+			outY = new int[size];
+		}
+	}
+
+	// --Executor--//
+	// D: return the shared pool running distance field (and other load time)
+	// work off the GL thread; the threads are daemons and never block exit
+	static synchronized ExecutorService getExecutor() {
+		if (executor == null)
+			executor = Executors.newFixedThreadPool(THREADS,
+					new ThreadFactory() {
+						private int count;
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "GLText-worker-"
+									+ (++count));
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		return executor;
+	}
+
+	static int getThreadCount() {
+		return THREADS;
+	}
+
+	// --Generate (Parallel)--//
+	// D: transform a set of glyph rectangles of an 8-bit coverage image in
+	// place, spreading the rectangles over the worker threads. blocks until
+	// all rectangles are done
+	// A: pixels - the image (one byte per pixel)
+	// stride - bytes per image row
+	// rectX, rectY, rectW, rectH - the rectangles (pixels; 0 width = skip)
+	// count - number of rectangles
+	// spread - distance (pixels) mapped to the full 0..0.5 range
+	// threads - number of tasks (default: one per core; 1 = calling thread)
+	// R: [none]
+	static void generate(byte[] pixels, int stride, int[] rectX, int[] rectY,
+			int[] rectW, int[] rectH, int count, int spread) {
+		generate(pixels, stride, rectX, rectY, rectW, rectH, count, spread,
+				THREADS);
+	}
+
+	static void generate(final byte[] pixels, final int stride,
+			final int[] rectX, final int[] rectY, final int[] rectW,
+			final int[] rectH, final int count, final int spread,
+			final int threads) {
+		if (threads <= 1) { // IF Single Threaded
+			Scratch scratch = new Scratch(0);
+			for (int i = 0; i < count; i++)
+				if (rectW[i] > 0)
+					transform(pixels, stride, rectX[i], rectY[i], rectW[i],
+							rectH[i], spread, scratch);
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+		for (int t = 0; t < threads; t++) {
+			final int first = t;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					// rectangles are interleaved over the threads (glyph
+					// sizes are sorted, so this balances the work)
+					Scratch scratch = new Scratch(0);
+					for (int i = first; i < count; i += threads)
+						if (rectW[i] > 0)
+							transform(pixels, stride, rectX[i], rectY[i],
+									rectW[i], rectH[i], spread, scratch);
+					return null;
+				}
+			});
+		}
+		try {
+			List<Future<Void>> results = getExecutor().invokeAll(tasks);
+			for (int i = 0; i < results.size(); i++)
+				results.get(i).get(); // Propagate Worker Failures
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Distance field generation interrupted");
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Distance field generation failed",
+					e.getCause());
+		}
+	}
+
+	// --Transform--//
+	// D: transform one rectangle of an 8-bit coverage image in place (see
+	// class description)
+	// A: pixels - the image (one byte per pixel)
+	// stride - bytes per image row
+	// x, y, w, h - the rectangle (pixels)
+	// spread - distance (pixels) mapped to the full 0..0.5 range
+	// scratch - the working grids (grown to w * h if smaller)
+	// R: [none]
+	static void transform(byte[] pixels, int stride, int x, int y, int w,
+			int h, int spread, Scratch scratch) {
+		scratch.ensure(w * h);
+		int[] inX = scratch.inX, inY = scratch.inY;
+		int[] outX = scratch.outX, outY = scratch.outY;
+		for (int j = 0; j < h; j++)
+			for (int i = 0; i < w; i++) {
+				int p = j * w + i;
+				boolean inside = (pixels[(y + j) * stride + x + i] & 0xFF) >= 128;
+				inX[p] = inY[p] = (inside ? 0 : FAR);
+				outX[p] = outY[p] = (inside ? FAR : 0);
+			}
+		sweep(inX, inY, w, h);
+		sweep(outX, outY, w, h);
+
+		float scale = 0.5f / spread;
+		for (int j = 0; j < h; j++)
+			for (int i = 0; i < w; i++) {
+				int p = j * w + i;
+				// positive inside: distance to outside minus distance to inside
+				float d = (float) (Math.sqrt(dist(outX[p], outY[p])) - Math
+						.sqrt(dist(inX[p], inY[p])));
+				float v = 0.5f + d * scale;
+				int value = (int) (v * 255.0f + 0.5f);
+				if (value < 0)
+					value = 0;
+				else if (value > 255)
+					value = 255;
+				pixels[(y + j) * stride + x + i] = (byte) value;
+			}
+	}
+
+	private static int dist(int dx, int dy) {
+		return dx * dx + dy * dy;
+	}
+
+	// propagate nearest point offsets over the grid (8SSEDT passes)
+	private static void sweep(int[] gx, int[] gy, int w, int h) {
+		// pass 1: top to bottom
+		for (int j = 0; j < h; j++) {
+			for (int i = 0; i < w; i++) {
+				compare(gx, gy, w, h, i, j, -1, 0);
+				compare(gx, gy, w, h, i, j, 0, -1);
+				compare(gx, gy, w, h, i, j, -1, -1);
+				compare(gx, gy, w, h, i, j, 1, -1);
+			}
+			for (int i = w - 1; i >= 0; i--)
+				compare(gx, gy, w, h, i, j, 1, 0);
+		}
+		// pass 2: bottom to top
+		for (int j = h - 1; j >= 0; j--) {
+			for (int i = w - 1; i >= 0; i--) {
+				compare(gx, gy, w, h, i, j, 1, 0);
+				compare(gx, gy, w, h, i, j, 0, 1);
+				compare(gx, gy, w, h, i, j, -1, 1);
+				compare(gx, gy, w, h, i, j, 1, 1);
+			}
+			for (int i = 0; i < w; i++)
+				compare(gx, gy, w, h, i, j, -1, 0);
+		}
+	}
+
+	// take the neighbour's nearest point if it is closer
+	private static void compare(int[] gx, int[] gy, int w, int h, int i,
+			int j, int ox, int oy) {
+		int ni = i + ox, nj = j + oy;
+		if (ni < 0 || ni >= w || nj < 0 || nj >= h)
+			return;
+		int p = j * w + i, q = nj * w + ni;
+		int dx = gx[q] + ox, dy = gy[q] + oy;
+		if (dist(dx, dy) < dist(gx[p], gy[p])) {
+			gx[p] = dx;
+			gy[p] = dy;
+		}
+	}
+}
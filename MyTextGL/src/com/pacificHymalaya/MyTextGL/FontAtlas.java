@@ -0,0 +1,301 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.os.Environment;
+import android.util.Log;
+
+// CPU side of a loaded font: the metrics of the fixed characters, where each
+// glyph (and each glyph cache cell) lives on the texture, and the texture
+// pixels (ALPHA_8, coverage or distance field). An atlas is either built from
+// the font file (see build()) or read back from the AtlasCache, and then
+// handed to GLText, which uploads it. Building does not touch GL.
+class FontAtlas {
+
+	private final static String TAG = "FontAtlas";
+
+	// --Key--//
+	final String file; // Font File (In 'Assets' Folder)
+	final int fontSize; // Pixel Size the Glyphs are Rasterized At
+	final int padX, padY; // Padding Around Each Glyph (Pixels)
+	final boolean distanceField; // Pixels Hold Distance Fields
+
+	// --Metrics--//
+	float fontHeight, fontAscent, fontDescent; // Font Metrics (Pixels)
+	float charWidthMax, charHeight; // Character Maximums (Pixels)
+	int cellWidth, cellHeight; // Glyph Cache Cell Size (Pixels)
+	final float[] charWidths = new float[GLText.CHAR_CNT]; // Advances
+	// Rectangle of Each Glyph on the Texture (Pixels; 0 Width = Empty)
+	final int[] rectX = new int[GLText.CHAR_CNT];
+	final int[] rectY = new int[GLText.CHAR_CNT];
+	final int[] rectW = new int[GLText.CHAR_CNT];
+	final int[] rectH = new int[GLText.CHAR_CNT];
+	// Quad Offset of Each Glyph from the Pen Position (Pixels; Y Up)
+	final float[] offsetX = new float[GLText.CHAR_CNT];
+	final float[] offsetY = new float[GLText.CHAR_CNT];
+	int textureSize; // Texture Size (Square; Pixels)
+	int cacheSlots; // Number of Glyph Cache Cells
+	final int[] cacheCellX = new int[GLText.GLYPH_CACHE_SIZE];
+	final int[] cacheCellY = new int[GLText.GLYPH_CACHE_SIZE];
+
+	// --Pixels--//
+	int rowBytes; // Bytes per Texture Row
+	ByteBuffer pixels; // Texture Pixels (Direct; rowBytes * textureSize)
+
+	// --Constructor--//
+	FontAtlas(String file, int fontSize, int padX, int padY,
+			boolean distanceField) {
+		this.file = file;
+		this.fontSize = fontSize;
+		this.padX = padX;
+		this.padY = padY;
+		this.distanceField = distanceField;
+	}
+
+	// --Create Paint--//
+	// D: load the font and setup a paint instance for drawing it
+	// A: assets - asset manager holding the font file
+	// file - the font file
+	// size - pixel size (height) of the font
+	// R: the paint
+	static Paint createPaint(AssetManager assets, String file, int size) {
+		// Create the Typeface from Font File
+		Typeface tf = Typeface.createFromAsset(assets, file);
+		Paint paint = new Paint(); // Create Android Paint Instance
+		paint.setAntiAlias(true); // Enable Anti Alias
+		paint.setTextSize(size); // Set Text Size
+		paint.setColor(0xffffffff); // Set ARGB (White, Opaque)
+		paint.setTypeface(tf); // Set Typeface
+		return paint;
+	}
+
+	// --Measure--//
+	// D: measure the fixed characters of a font and size the glyph cache
+	// cells (the first step of build(), without packing or rasterizing)
+	// A: paint - the paint of the font (see createPaint())
+	// file, fontSize, padX, padY, distanceField - see constructor
+	// R: the atlas (metrics only), or null if the font size is out of range
+	private static FontAtlas measure(Paint paint, String file, int fontSize,
+			int padX, int padY, boolean distanceField) {
+		FontAtlas atlas = new FontAtlas(file, fontSize, padX, padY,
+				distanceField);
+
+		// Get Font Metrics
+		Paint.FontMetrics fm = paint.getFontMetrics();
+		// Calculate Font Height
+		atlas.fontHeight = (float) Math.ceil(Math.abs(fm.bottom)
+				+ Math.abs(fm.top));
+		// Save Font Ascent
+		atlas.fontAscent = (float) Math.ceil(Math.abs(fm.ascent));
+		// Save Font Descent
+		atlas.fontDescent = (float) Math.ceil(Math.abs(fm.descent));
+
+		// determine the width and bounds of each character (including unknown
+		// character); also determine the maximum character width
+		int cnt = GLText.CHAR_CNT;
+		char[] s = new char[2]; // Create Character Array
+		float[] w = new float[2]; // Working Width Value
+		Rect bounds = new Rect(); // Working Glyph Bounds
+		float charWidthMax = 0;
+		for (int c = 0; c < cnt; c++) { // FOR Each Character
+			s[0] = character(c); // Set Character
+			paint.getTextWidths(s, 0, 1, w); // Get Character Advance
+			atlas.charWidths[c] = w[0]; // Get Width
+			// IF Width Larger Than Max Width
+			if (w[0] > charWidthMax)
+				charWidthMax = w[0]; // Save New Max Width
+			// get the ink bounds (relative to the pen position on the
+			// baseline), grown by a pixel for anti aliasing, plus padding
+			paint.getTextBounds(s, 0, 1, bounds);
+			if (bounds.isEmpty()) // IF Nothing to Draw (eg. Space)
+				continue;
+			bounds.inset(-1, -1);
+			atlas.rectW[c] = bounds.width() + (2 * padX);
+			atlas.rectH[c] = bounds.height() + (2 * padY);
+			// quad offset from the bottom-left of the text (including descent)
+			atlas.offsetX[c] = bounds.left - padX;
+			atlas.offsetY[c] = atlas.fontDescent - bounds.bottom - padY;
+		}
+		atlas.charWidthMax = charWidthMax;
+		// set character height to font height
+		atlas.charHeight = atlas.fontHeight;
+
+		// find the maximum size, validate, and setup the glyph cache cell size
+		// NOTE: dynamic glyphs (eg. CJK) can be a full em wide
+		float cellMax = Math.max(charWidthMax, fontSize);
+		int cellWidth = (int) Math.ceil(cellMax) + 2 + (2 * padX);
+		int cellHeight = (int) atlas.charHeight + 2 + (2 * padY);
+		atlas.cellWidth = cellWidth;
+		atlas.cellHeight = cellHeight;
+		// Save Max Size (Width/Height)
+		int maxSize = cellWidth > cellHeight ? cellWidth : cellHeight;
+		// IF Maximum Size Outside Valid Bounds
+		if (maxSize < GLText.FONT_SIZE_MIN || maxSize > GLText.FONT_SIZE_MAX)
+			return null; // Return Error
+		return atlas;
+	}
+
+	// --Supports Size--//
+	// D: return whether build() accepts a font size (cheap: measures only)
+	// A: see build()
+	// R: false if the font size is out of range
+	static boolean supportsSize(AssetManager assets, String file,
+			int fontSize, int padX, int padY, boolean distanceField) {
+		return (measure(createPaint(assets, file, fontSize), file, fontSize,
+				padX, padY, distanceField) != null);
+	}
+
+	// --Build--//
+	// D: measure, pack and rasterize the fixed characters of a font (and
+	// convert them to distance fields if requested)
+	// NOTE: does not touch GL, so may run on any thread
+	// A: assets - asset manager holding the font file
+	// file, fontSize, padX, padY, distanceField - see constructor
+	// R: the atlas, or null if the font size is out of range
+	static FontAtlas build(AssetManager assets, String file, int fontSize,
+			int padX, int padY, boolean distanceField) {
+		Paint paint = createPaint(assets, file, fontSize);
+		FontAtlas atlas = measure(paint, file, fontSize, padX, padY,
+				distanceField);
+		if (atlas == null) // IF Font Size Not Supported
+			return null; // Return Error
+		int cnt = GLText.CHAR_CNT;
+		char[] s = new char[2]; // Working Character
+		int cellWidth = atlas.cellWidth, cellHeight = atlas.cellHeight;
+
+		// pack the glyph rectangles (tallest first), followed by the glyph
+		// cache cells, into the smallest power of two texture they fit in
+		int[] rectW = atlas.rectW, rectH = atlas.rectH;
+		int[] order = new int[cnt]; // Character Indices by Height
+		for (int i = 0; i < cnt; i++) {
+			int j = i;
+			while (j > 0 && rectH[order[j - 1]] < rectH[i]) {
+				order[j] = order[j - 1];
+				j--;
+			}
+			order[j] = i;
+		}
+		int textureSize;
+		int cacheSlots = 0; // Glyph Cache Cells Placed
+		SkylinePacker packer = null;
+		for (textureSize = GLText.TEXTURE_SIZE_MIN; textureSize <= GLText.TEXTURE_SIZE_MAX; textureSize *= 2) {
+			packer = new SkylinePacker(textureSize, textureSize);
+			boolean fits = true;
+			for (int i = 0; i < cnt && fits; i++) {
+				int c = order[i];
+				if (rectW[c] == 0) // Empty Glyph
+					continue;
+				fits = packer.pack(rectW[c], rectH[c]);
+				atlas.rectX[c] = packer.packedX;
+				atlas.rectY[c] = packer.packedY;
+			}
+			if (!fits)
+				continue; // Try Next Size
+			cacheSlots = 0;
+			while (cacheSlots < GLText.GLYPH_CACHE_SIZE
+					&& packer.pack(cellWidth, cellHeight)) {
+				atlas.cacheCellX[cacheSlots] = packer.packedX;
+				atlas.cacheCellY[cacheSlots] = packer.packedY;
+				cacheSlots++;
+			}
+			// use the largest texture even if the cache does not fully fit
+			if (cacheSlots == GLText.GLYPH_CACHE_SIZE
+					|| textureSize == GLText.TEXTURE_SIZE_MAX)
+				break;
+		}
+		if (textureSize > GLText.TEXTURE_SIZE_MAX) // IF Glyphs Did Not Fit
+			return null; // Return Error
+		atlas.textureSize = textureSize;
+		atlas.cacheSlots = cacheSlots;
+		float staticOccupancy = (float) (packer.usedArea - cacheSlots
+				* cellWidth * cellHeight)
+				/ ((float) textureSize * textureSize);
+		Log.d(TAG, file + " atlas " + textureSize + "x" + textureSize + " ("
+				+ (textureSize * textureSize / 1024) + " KB): " + cnt
+				+ " glyphs + " + cacheSlots + " cache cells, occupancy "
+				+ Math.round(packer.getOccupancy() * 100) + "% (glyphs "
+				+ Math.round(staticOccupancy * 100) + "%)");
+
+		// create an empty bitmap (alpha only)
+		Bitmap bitmap = Bitmap.createBitmap(textureSize, textureSize,
+				Bitmap.Config.ALPHA_8);
+		// Create Canvas for Rendering to Bitmap
+		Canvas canvas = new Canvas(bitmap);
+		bitmap.eraseColor(0x00000000); // Set Transparent Background
+
+		// render each of the characters to its rectangle (ie. build the font
+		// map)
+		for (int c = 0; c < cnt; c++) { // FOR Each Character
+			if (rectW[c] == 0) // Empty Glyph
+				continue;
+			s[0] = character(c);
+			// Pen Position (Baseline) Inside the Rectangle
+			float x = atlas.rectX[c] - atlas.offsetX[c];
+			float y = atlas.rectY[c] + rectH[c] + atlas.offsetY[c]
+					- atlas.fontDescent;
+			canvas.drawText(s, 0, 1, x, y, paint); // Draw Character
+		}
+		atlas.rowBytes = bitmap.getRowBytes();
+		ByteBuffer pixels = ByteBuffer.allocateDirect(atlas.rowBytes
+				* textureSize);
+		bitmap.copyPixelsToBuffer(pixels);
+		pixels.rewind();
+		if (distanceField) { // Convert Coverage to Distance Fields
+			byte[] data = new byte[pixels.capacity()];
+			pixels.get(data);
+			// pass the rectangles tallest first (balances the threads)
+			int[] sortedX = new int[cnt], sortedY = new int[cnt];
+			int[] sortedW = new int[cnt], sortedH = new int[cnt];
+			for (int i = 0; i < cnt; i++) {
+				sortedX[i] = atlas.rectX[order[i]];
+				sortedY[i] = atlas.rectY[order[i]];
+				sortedW[i] = rectW[order[i]];
+				sortedH[i] = rectH[order[i]];
+			}
+			DistanceField.generate(data, atlas.rowBytes, sortedX, sortedY,
+					sortedW, sortedH, cnt, GLText.SDF_SPREAD);
+			pixels.rewind();
+			pixels.put(data);
+			pixels.rewind();
+		}
+		if (GLText.DEBUG_SAVE_ATLAS) {
+			bitmap.copyPixelsFromBuffer(pixels);
+			pixels.rewind();
+			saveBitmap(bitmap, "fontMap.png");
+		}
+		bitmap.recycle(); // Release the Bitmap
+		atlas.pixels = pixels;
+		return atlas;
+	}
+
+	// return the character drawn for an index (the last is the unknown
+	// character)
+	static char character(int index) {
+		return (char) (index == GLText.CHAR_UNKNOWN ? GLText.CHAR_NONE
+				: GLText.CHAR_START + index);
+	}
+
+	// Save bitmap into file
+	// For debug purpose
+	private static void saveBitmap(Bitmap bitmap, String fileName) {
+		String mFilePath = Environment.getExternalStorageDirectory().toString() + File.separator.toString() + fileName;
+		//write the bytes in file
+		try {
+			FileOutputStream fo = new FileOutputStream(mFilePath);
+			bitmap.compress(Bitmap.CompressFormat.PNG, 60, fo);
+			fo.flush();
+			fo.close();
+		} catch (IOException e) {
+			Log.w(TAG, "could not save " + mFilePath, e);
+		}
+
+	}
+}
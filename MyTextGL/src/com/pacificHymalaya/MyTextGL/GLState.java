@@ -0,0 +1,174 @@
+package com.pacificHymalaya.MyTextGL;
+
+import android.opengl.GLES20;
+
+// Shadow copy of the GL state touched by the text renderer. Each setter only
+// calls into GL when the requested value differs from the current one, and
+// counts the calls it skipped so the savings can be verified per frame.
+//
+// NOTE: GL state belongs to the context, so this must only be used on the GL
+// thread, and reset() must be called whenever a new context is created
+// (ie. in onSurfaceCreated). State changed with direct GLES20 calls is not
+// seen by the tracker; change tracked state through this class only.
+public class GLState {
+
+	// --Constants--//
+	private final static int UNKNOWN = -1; // State Not Known (Always Set)
+
+	// --Members--//
+	private static int program = UNKNOWN; // Current Program
+	private static int activeTexture = UNKNOWN; // Active Texture Unit
+	private static int texture = UNKNOWN; // Texture Bound to Unit 0
+	private static int blend = UNKNOWN; // GL_BLEND (0 = Off, 1 = On)
+	private static int blendSrc = UNKNOWN, blendDst = UNKNOWN; // Blend Function
+	private static int depthTest = UNKNOWN; // GL_DEPTH_TEST (0 = Off, 1 = On)
+	private static boolean restoreDepthTest = true; // See restoreDepthTest()
+
+	private static int skippedCalls; // Calls Skipped (Current Frame)
+	private static int issuedCalls; // Calls Made (Current Frame)
+	private static int lastSkippedCalls; // Calls Skipped (Last Frame)
+	private static int lastIssuedCalls; // Calls Made (Last Frame)
+
+	// --Reset--//
+	// D: forget all tracked state (eg. after the GL context was re-created),
+	// so the next request for each state is passed on to GL
+	// A: [none]
+	// R: [none]
+	public static void reset() {
+		program = UNKNOWN;
+		activeTexture = UNKNOWN;
+		texture = UNKNOWN;
+		blend = UNKNOWN;
+		blendSrc = UNKNOWN;
+		blendDst = UNKNOWN;
+		depthTest = UNKNOWN;
+	}
+
+	// --Program--//
+	public static void useProgram(int handle) {
+		if (program == handle) {
+			skippedCalls++;
+			return;
+		}
+		GLES20.glUseProgram(handle);
+		program = handle;
+		issuedCalls++;
+	}
+
+	// --Texture--//
+	// D: bind the texture to texture unit 0 (the only unit used for text)
+	// A: textureId - the texture to bind
+	// R: [none]
+	public static void bindTexture(int textureId) {
+		if (activeTexture != GLES20.GL_TEXTURE0) {
+			GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
+			activeTexture = GLES20.GL_TEXTURE0;
+			issuedCalls++;
+		} else
+			skippedCalls++;
+		if (texture == textureId) {
+			skippedCalls++;
+			return;
+		}
+		GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
+		texture = textureId;
+		issuedCalls++;
+	}
+
+	// D: forget a texture binding (call when deleting the texture, as GL
+	// reuses texture names)
+	public static void textureDeleted(int textureId) {
+		if (texture == textureId)
+			texture = UNKNOWN;
+	}
+
+	// --Blending--//
+	public static void setBlend(boolean enabled) {
+		int value = enabled ? 1 : 0;
+		if (blend == value) {
+			skippedCalls++;
+			return;
+		}
+		if (enabled)
+			GLES20.glEnable(GLES20.GL_BLEND);
+		else
+			GLES20.glDisable(GLES20.GL_BLEND);
+		blend = value;
+		issuedCalls++;
+	}
+
+	public static void setBlendFunc(int src, int dst) {
+		if (blendSrc == src && blendDst == dst) {
+			skippedCalls++;
+			return;
+		}
+		GLES20.glBlendFunc(src, dst);
+		blendSrc = src;
+		blendDst = dst;
+		issuedCalls++;
+	}
+
+	// --Depth Test--//
+	public static void setDepthTest(boolean enabled) {
+		int value = enabled ? 1 : 0;
+		if (depthTest == value) {
+			skippedCalls++;
+			return;
+		}
+		if (enabled)
+			GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+		else
+			GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+		depthTest = value;
+		issuedCalls++;
+	}
+
+	// D: set depth testing for a draw of the text renderer, returning the
+	// caller's state, which restoreDepthTest() puts back after the draw (so
+	// text draws leave the global state as they found it). state set outside
+	// the tracker is queried from GL once
+	// A: enabled - the state for the draw
+	// R: the previous state
+	static boolean overrideDepthTest(boolean enabled) {
+		if (depthTest == UNKNOWN) // Set Outside the Tracker: Ask GL
+			depthTest = (GLES20.glIsEnabled(GLES20.GL_DEPTH_TEST) ? 1 : 0);
+		boolean previous = (depthTest == 1);
+		setDepthTest(enabled);
+		return previous;
+	}
+
+	static void restoreDepthTest(boolean previous) {
+		if (restoreDepthTest)
+			setDepthTest(previous);
+	}
+
+	// D: whether text draws restore the depth test state (true, default);
+	// false leaves depth testing disabled after text, saving two state
+	// changes per draw when nothing drawn later needs it (opt-in)
+	// A: restore - false to leave depth testing disabled
+	// R: [none]
+	public static void setRestoreDepthTest(boolean restore) {
+		restoreDepthTest = restore;
+	}
+
+	// --Frame Statistics--//
+	// D: close the statistics of the current frame (call once per frame)
+	// A: [none]
+	// R: [none]
+	public static void endFrame() {
+		lastSkippedCalls = skippedCalls;
+		lastIssuedCalls = issuedCalls;
+		skippedCalls = 0;
+		issuedCalls = 0;
+	}
+
+	// D: return the number of redundant calls skipped/state calls made
+	// during the last (completed) frame
+	public static int getSkippedCalls() {
+		return lastSkippedCalls;
+	}
+
+	public static int getIssuedCalls() {
+		return lastIssuedCalls;
+	}
+}
@@ -11,22 +11,27 @@ package com.pacificHymalaya.MyTextGL;
 
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import android.content.*;
 import android.opengl.GLES20;
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.Typeface;
-import android.opengl.GLUtils;
-import android.os.Environment;
+import android.graphics.Rect;
 import android.util.Log;
 
 public class GLText {
 
-	private final String TAG = "GLText";
+	private final static String TAG = "GLText";
 	// --Constants--//
 	public final static int CHAR_START = 32; // First Character (ASCII Code)
 	public final static int CHAR_END = 126; // Last Character (ASCII Code)
@@ -40,8 +45,34 @@ public class GLText {
 	public final static int FONT_SIZE_MIN = 6;
 	// Maximum Font Size (Pixels)
 	public final static int FONT_SIZE_MAX = 180; 
-	// Number of Characters to Render Per Batch
+	// Number of Characters to Render Per Batch (Initially; the batch grows on
+	// demand, see SpriteBatch.reserve())
 	public final static int CHAR_BATCH_SIZE = 100; 
+	// Horizontal Alignments (see drawAligned())
+	public final static int ALIGN_LEFT = 0;
+	public final static int ALIGN_CENTER = 1;
+	public final static int ALIGN_RIGHT = 2;
+	public final static int ALIGN_JUSTIFY = 3; // Spaces Stretched to a Width
+	// Index of the Last Character Rendered Without a Lookup (ie. CHAR_END)
+	final static int CHAR_LAST = CHAR_END - CHAR_START;
+	// Number of Atlas Cells Reserved for Glyphs Outside CHAR_START..CHAR_END
+	// (Rasterized on First Use, Least Recently Used Evicted; 0 = Disabled)
+	public final static int GLYPH_CACHE_SIZE = 64;
+	// Smallest/Largest Font Texture Size (Pixels; Square, Power of Two)
+	public final static int TEXTURE_SIZE_MIN = 64;
+	public final static int TEXTURE_SIZE_MAX = 2048;
+	// Distance Field Mode: Distance (Pixels at the Loaded Size) Covered by the
+	// Field Outside/Inside the Glyph Edge (Also the Minimum Padding)
+	public final static int SDF_SPREAD = 4;
+	// Distance Field Mode: Width of the Anti Aliased Edge (Screen Pixels)
+	public final static float SDF_SMOOTHING = 0.75f;
+	// Number of Fonts Loaded in Parallel (See loadAsync())
+	final static int LOAD_THREADS = 3;
+	// Write Each Built Atlas to External Storage as fontMap.png (Debugging)
+	public final static boolean DEBUG_SAVE_ATLAS = false;
+	// Uniforms of the Batch Program (Vertices Resolves Its Own by Name)
+	final static String[] TEXT_UNIFORMS = { "u_mvpMatrix", "s_texture",
+			"u_edge" };
 
 	// --Members--//
 	Context mContext;
@@ -55,7 +86,7 @@ public class GLText {
 	float fontAscent; // Font Ascent (Above Baseline; Pixels)
 	float fontDescent; // Font Descent (Below Baseline; Pixels)
 	// Font Texture ID
-	private int textureId;
+	int textureId;
 	 // Texture Size for Font (Square)
 	private int textureSize;
 	// Full Texture Region
@@ -63,42 +94,172 @@ public class GLText {
 
 	float charWidthMax; // Character Width (Maximum; Pixels)
 	float charHeight; // Character Height (Maximum; Pixels)
+	// NOTE: indices 0..CHAR_CNT-1 hold the fixed characters, followed by
+	// the dynamic glyph cache slots (see getGlyph())
 	final float[] charWidths; // Width of Each Character (Actual; Pixels)
 	TextureRegion[] charRgn; // Region of Each Character (Texture Coordinates)
-	int cellWidth, cellHeight; // Character Cell Width/Height
-	int rowCnt, colCnt; // Number of Rows/Columns
+	int cellWidth, cellHeight; // Glyph Cache Cell Width/Height
+	// Position of Each Glyph Cache Cell on the Texture (Pixels)
+	final int[] cacheCellX = new int[GLYPH_CACHE_SIZE];
+	final int[] cacheCellY = new int[GLYPH_CACHE_SIZE];
 
 	float scaleX, scaleY; // Font Scale (X,Y Axis)
 	float spaceX; // Additional (X,Y Axis) Spacing (Unscaled)
 	float lastX, lastY; //book keeping of the last X,Y
+	// Clip rectangle (see setClip()): text outside is culled before batching
+	boolean mClipping; // Clip Rectangle Set
+	float clipLeft, clipBottom, clipRight, clipTop; // Clip Rectangle
+	float atlasOccupancy; // Share of the Atlas Used (0..1)
+	long atlasUsed, atlasTexels; // Texels Used/Total (see RenderMetrics)
+	// Extents of the font box (ascent/descent plus padding) and of all glyphs
+	// rasterized so far, relative to the pen position (unscaled)
+	float glyphMinX, glyphMinY, glyphMaxY;
+	// Incremented on every (re)load, so retained meshes know to re-layout
+	int fontVersion;
+	// Number of uploads (0 = Not Loaded); written last by upload(), so a
+	// thread reading it sees the metrics/regions of that upload
+	volatile int mUploads;
 	//holder for current color in {R G B A}
 	float[] mCurrentColor; 
+	// color used by drawTexture() {R G B A}
+	final float[] mTextureColor = { 0.0f, 0.0f, 1.0f, 0.5f };
 
+	// Dynamic glyphs (code points outside CHAR_START..CHAR_END)
+	GlyphCache glyphCache; // Slot Bookkeeping (null = Disabled)
+	Paint mPaint; // Paint of the Loaded Font (Rasterizes Dynamic Glyphs; Lazy)
+	Bitmap mGlyphBitmap; // Single Cell Bitmap for Rasterizing a Glyph
+	Canvas mGlyphCanvas; // Canvas Drawing into mGlyphBitmap
+	final char[] mGlyphChars = new char[2]; // Working Characters (UTF-16)
+	final float[] mGlyphWidths = new float[2]; // Working Widths
+	final Rect mGlyphBounds = new Rect(); // Working Glyph Bounds
+	ByteBuffer mGlyphPixels; // Pixels of mGlyphBitmap (Upload Buffer)
+	byte[] mGlyphData; // Pixels of mGlyphBitmap (Distance Field Mode)
+	DistanceField.Scratch mGlyphScratch; // Transform Grids (Same Mode)
 
-	final String mVertexShader = "uniform mat4 u_mvpMatrix; \n"
+	boolean distanceField; // Atlas Holds Distance Fields (Scales Freely)
+	int fontSize; // Pixel Size the Font was Loaded (Rasterized) At
+	String fontFile; // Font File (In 'Assets' Folder)
+	Future<FontAtlas> mPending; // Atlas of an Asynchronous Load (GL Thread)
+	long mPendingStart; // Start Time of the Asynchronous Load (ns)
+	boolean mSkipping; // Current begin() Found No Font Loaded
+	private static ExecutorService loadExecutor; // Asynchronous Load Workers
+
+	// Shared frame renderer (see setRenderer(); null = Draw with Own Batch)
+	TextRenderer mRenderer;
+	TextRenderer.Bucket mBucket; // Bucket of the Current begin() (or null)
+	final float[] mEdge = new float[2]; // u_edge Values (see computeEdge())
+
+	// Deferred mode (see setDeferred()): the own batch stays open across
+	// begin()/end() pairs and is drawn by flushFrame()
+	boolean mDeferred;
+	boolean mBatchOpen; // Own Batch Holds Deferred Sprites
+	final float[] mBatchEdge = new float[2]; // u_edge Values of the Open Batch
+
+	// Reused by the char[]/number overloads of draw() (allocation free)
+	final static int DIGITS_SIZE = 32; // Longest Formatted Number
+	final char[] mDigits = new char[DIGITS_SIZE];
+	final CharArray mCharArray = new CharArray();
+
+	WidthCache widthCache; // Measured Widths (see setWidthCache(); null = Off)
+	int[] mSpaceSprites = new int[16]; // Quads Emitted Before Each Space
+
+	// A character array range as a CharSequence (re-pointed, not copied)
+	static class CharArray implements CharSequence {
+		char[] chars;
+		int offset, count;
+
+		CharArray set(char[] chars, int offset, int count) {
+			if (offset < 0 || count < 0 || offset + count > chars.length)
+				throw new IndexOutOfBoundsException("Invalid range");
+			this.chars = chars;
+			this.offset = offset;
+			this.count = count;
+			return this;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return chars[offset + index];
+		}
+
+		@Override
+		public int length() {
+			return count;
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(chars, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, offset, count);
+		}
+	}
+
+
+	final static String mVertexShader = "uniform mat4 u_mvpMatrix; \n"
 			+ "attribute vec4 a_position; \n" + "attribute vec2 a_texCoord; \n"
 			+ "attribute vec4 a_color; \n" + "varying vec2 v_texCoord; \n"
 			+ "varying vec4 v_color; \n" + "void main() { \n"
 			+ "  v_texCoord = a_texCoord; \n" + "  v_color = a_color; \n"
 			+ "  gl_Position = u_mvpMatrix * a_position; }\n";
 
-	final String mFragmentShader = "precision mediump float; \n"
-			+ "uniform sampler2D s_texture; \n" + "varying vec4 v_color;\n"
+	final static String mFragmentShader = "precision mediump float; \n"
+			+ "uniform sampler2D s_texture; \n" + "uniform vec2 u_edge; \n"
+			+ "varying vec4 v_color;\n"
 			+ "varying vec2 v_texCoord; \n" + "void main() { \n"
-			+"   vec4 texture = texture2D(s_texture, v_texCoord);\n"
 			+ "  gl_FragColor.rgb = v_color.rgb; \n"
-			+ "  gl_FragColor.a = texture.a;"
+			// the font texture is GL_ALPHA: coverage, or a distance field
+			// thresholded by u_edge (start, 1 / width; 0,1 = coverage as is)
+			+ "  gl_FragColor.a = clamp((texture2D(s_texture, v_texCoord).a"
+			+ " - u_edge.x) * u_edge.y, 0.0, 1.0);"
+			+ " }\n";
+
+	// Shaders for retained meshes (see TextMesh): the glyph quads are stored
+	// unscaled, translation/scale and color are supplied as uniforms
+	final String mMeshVertexShader = "uniform mat4 u_mvpMatrix; \n"
+			+ "uniform vec4 u_transform; \n" + "attribute vec2 a_position; \n"
+			+ "attribute vec2 a_texCoord; \n" + "varying vec2 v_texCoord; \n"
+			+ "void main() { \n" + "  v_texCoord = a_texCoord; \n"
+			+ "  vec2 pos = a_position * u_transform.zw + u_transform.xy; \n"
+			+ "  gl_Position = u_mvpMatrix * vec4(pos, -2.0, 1.0); }\n";
+
+	final String mMeshFragmentShader = "precision mediump float; \n"
+			+ "uniform sampler2D s_texture; \n" + "uniform vec4 u_color; \n"
+			+ "uniform vec2 u_edge; \n"
+			+ "varying vec2 v_texCoord; \n" + "void main() { \n"
+			+ "  gl_FragColor.rgb = u_color.rgb; \n"
+			+ "  gl_FragColor.a = clamp((texture2D(s_texture, v_texCoord).a"
+			+ " - u_edge.x) * u_edge.y, 0.0, 1.0) * u_color.a;"
 			+ " }\n";
 
 	private float[] mMVPMatrix;
 
-	/** This is a handle to our per-vertex cube shading program. */
-	private int mGLTextProgramHandle;
+	/** This is our text rendering program (locations resolved at link). */
+	private ShaderProgram mGLTextProgram;
+
+	// Retained mesh program and its (resolved once) uniform locations
+	private ShaderProgram mMeshProgram;
+	private int mMeshMvpMatrixHandle;
+	private int mMeshTransformHandle;
+	private int mMeshColorHandle;
+	private int mMeshEdgeHandle;
+	private int mEdgeHandle; // u_edge of the Batch Program
 
-	Bitmap mBitmap;
 	
 	// --Constructor--//
+	// D: create the font renderer (requires a current GL context)
+	// A: context - context used to access the font assets
+	// mvpMatrix - reference to the MVP matrix used for rendering
+	// compactVertices - (true, default) batch glyphs with the compact
+	// vertex layout (16 bytes per vertex) instead of 9 floats (36 bytes)
 	public GLText(Context context, float[] mvpMatrix) {
+		this(context, mvpMatrix, true);
+	}
+
+	public GLText(Context context, float[] mvpMatrix, boolean compactVertices) {
 		this.mContext = context;
 		this.mMVPMatrix = mvpMatrix;
 		this.assets = mContext.getAssets(); 
@@ -109,15 +270,16 @@ public class GLText {
 		this.mCurrentColor[2] = 0.0f; // B
 		this.mCurrentColor[3] = 1.0f; // A
 		// Create the Array of Character Widths
-		charWidths = new float[CHAR_CNT];
+		charWidths = new float[CHAR_CNT + GLYPH_CACHE_SIZE];
 		// Create the Array of Character Regions
-		charRgn = new TextureRegion[CHAR_CNT]; 
+		charRgn = new TextureRegion[CHAR_CNT + GLYPH_CACHE_SIZE]; 
 		// initialize remaining members
 		fontPadX = 0;
 		fontPadY = 0;
 		
 		lastX = 0.0f;
 		lastY = 0.0f;
+		fontVersion = 0;
 
 		fontHeight = 0.0f;
 		fontAscent = 0.0f;
@@ -131,8 +293,6 @@ public class GLText {
 
 		cellWidth = 0;
 		cellHeight = 0;
-		rowCnt = 0;
-		colCnt = 0;
 
 		scaleX = 1.0f; // Default Scale = 1 (Unscaled)
 		scaleY = 1.0f; // Default Scale = 1 (Unscaled)
@@ -142,191 +302,352 @@ public class GLText {
 				GLES20.GL_VERTEX_SHADER, mVertexShader);
 		int fragmentShader = TextGLRenderer.compileShader(
 				GLES20.GL_FRAGMENT_SHADER, mFragmentShader);
-		mGLTextProgramHandle = TextGLRenderer.createAndLinkProgram(
-				vertexShader, fragmentShader, new String[] { "a_position",
-						"a_texcoord", "a_color" });
-		batch = new SpriteBatch(CHAR_BATCH_SIZE, mGLTextProgramHandle,
-				mMVPMatrix); // Create Sprite Batch
+		mGLTextProgram = TextGLRenderer.createAndLinkProgram(vertexShader,
+				fragmentShader, Vertices.ATTRIBUTES, TEXT_UNIFORMS);
+		mEdgeHandle = mGLTextProgram.getUniformLocation("u_edge");
+		batch = new SpriteBatch(CHAR_BATCH_SIZE, mGLTextProgram,
+				mMVPMatrix, compactVertices); // Create Sprite Batch
 		// (with Defined Size)
-		// Add program to OpenGL ES environment
-//		GLES20.glUseProgram(mGLTextProgramHandle);
+		// load and link the retained mesh shader
+		vertexShader = TextGLRenderer.compileShader(GLES20.GL_VERTEX_SHADER,
+				mMeshVertexShader);
+		fragmentShader = TextGLRenderer.compileShader(
+				GLES20.GL_FRAGMENT_SHADER, mMeshFragmentShader);
+		mMeshProgram = TextGLRenderer.createAndLinkProgram(vertexShader,
+				fragmentShader, new String[] { "a_position", "a_texCoord" },
+				new String[] { "u_mvpMatrix", "u_transform", "u_color",
+						"s_texture", "u_edge" });
+		mMeshMvpMatrixHandle = mMeshProgram.getUniformLocation("u_mvpMatrix");
+		mMeshTransformHandle = mMeshProgram.getUniformLocation("u_transform");
+		mMeshColorHandle = mMeshProgram.getUniformLocation("u_color");
+		mMeshEdgeHandle = mMeshProgram.getUniformLocation("u_edge");
+		// Add program to OpenGL ES environment, sampler reads texture unit 0
+		mMeshProgram.use();
+		GLES20.glUniform1i(mMeshProgram.getUniformLocation("s_texture"), 0);
 	}
 
 	// --Load Font--//
 	// description
 	// this will load the specified font file, create a texture for the defined
 	// character range, and setup all required values used to render with it.
+	// the built atlas is kept in the app's cache directory (see AtlasCache),
+	// so later loads of the same font/size skip measuring and rasterizing.
 	// arguments:
 	// file - Filename of the font (.ttf, .otf) to use. In 'Assets' folder.
 	// targetFontSize - Requested pixel size of font (height)
 	// padX, padY - Extra padding per character (X+Y Axis); to prevent
 	// overlapping characters.
+	// distanceField - (false, default) store signed distance fields instead
+	// of coverage: one atlas (loaded at a moderate size, eg. 32) then renders
+	// sharp at any scale (see setTextSize()); generation is CPU heavy, so
+	// after checking the size, such a load runs asynchronously (see
+	// loadAsync()): it returns before the font is ready, and the caller must
+	// poll isLoaded() (drawing draws nothing until it returns true)
+	// returns false if the font size is not supported (nothing loaded)
 	public boolean load(String file, int targetFontSize, int padX, int padY) {
+		return load(file, targetFontSize, padX, padY, false);
+	}
 
-		// setup requested values
-		fontPadX = padX; // Set Requested X Axis Padding
-		fontPadY = padY; // Set Requested Y Axis Padding
-
-		// load the font and setup paint instance for drawing
-		Typeface tf = Typeface.createFromAsset(assets, file); // Create the
-																// Typeface from
-																// Font File
-		Paint paint = new Paint(); // Create Android Paint Instance
-		paint.setAntiAlias(true); // Enable Anti Alias
-		paint.setTextSize(targetFontSize); // Set Text Size
-		paint.setColor(0xffffffff); // Set ARGB (White, Opaque)
-		paint.setTypeface(tf); // Set Typeface
-
-		// Get Font Metrics
-		Paint.FontMetrics fm = paint.getFontMetrics();
-		// Calculate Font Height
-		fontHeight = (float) Math.ceil(Math.abs(fm.bottom) + Math.abs(fm.top));
-		// Save Font Ascent
-		fontAscent = (float) Math.ceil(Math.abs(fm.ascent));
-		// Save Font Descent
-		fontDescent = (float) Math.ceil(Math.abs(fm.descent));
-
-		// determine the width of each character (including unknown character)
-		// also determine the maximum character width
-		char[] s = new char[2]; // Create Character Array
-		charWidthMax = charHeight = 0; // Reset Character Width/Height Maximums
-		float[] w = new float[2]; // Working Width Value
-		int cnt = 0; // Array Counter
-		for (char c = CHAR_START; c <= CHAR_END; c++) { // FOR Each Character
-			s[0] = c; // Set Character
-			paint.getTextWidths(s, 0, 1, w); // Get Character Bounds
-			charWidths[cnt] = w[0]; // Get Width
-			// IF Width Larger Than Max Width
-			if (charWidths[cnt] > charWidthMax) 
-				charWidthMax = charWidths[cnt]; // Save New Max Width
-			cnt++; // Advance Array Counter
-		}
-		s[0] = CHAR_NONE; // Set Unknown Character
-		paint.getTextWidths(s, 0, 1, w); // Get Character Bounds
-		charWidths[cnt] = w[0]; // Get Width
-		if (charWidths[cnt] > charWidthMax) // IF Width Larger Than Max Width
-			charWidthMax = charWidths[cnt]; // Save New Max Width
-		cnt++; // Advance Array Counter
-
-		// set character height to font height
-		charHeight = fontHeight; // Set Character Height
-
-		// find the maximum size, validate, and setup cell sizes
-		cellWidth = (int) charWidthMax + (2 * fontPadX); // Set Cell Width
-		cellHeight = (int) charHeight + (2 * fontPadY); // Set Cell Height
-		// Save Max Size (Width/Height)
-		int maxSize = cellWidth > cellHeight ? cellWidth : cellHeight;
-		// IF Maximum Size Outside Valid Bounds
-		if (maxSize < FONT_SIZE_MIN || maxSize > FONT_SIZE_MAX)
+	public boolean load(String file, int targetFontSize, int padX, int padY,
+			boolean distanceField) {
+		if (distanceField) { // Never Wait for the Generation on the GL Thread
+			if (!FontAtlas.supportsSize(assets, file,
+					targetFontSize, Math.max(padX, SDF_SPREAD),
+					Math.max(padY, SDF_SPREAD), true))
+				return false; // Return Error
+			loadAsync(file, targetFontSize, padX, padY, true);
+			return true;
+		}
+		mPending = null; // Supersedes a Pending Asynchronous Load
+		long start = System.nanoTime();
+		FontAtlas atlas = prepare(mContext, file, targetFontSize, padX, padY,
+				distanceField);
+		if (atlas == null) // IF Font Size Not Supported
 			return false; // Return Error
+		long built = System.nanoTime();
+		upload(atlas);
+		Log.i(TAG, "load " + file + " " + targetFontSize + "px: prepared "
+				+ (built - start) / 1000 + " us, upload "
+				+ (System.nanoTime() - built) / 1000 + " us");
 
-		// set texture size based on max font size (width or height)
-		// NOTE: these values are fixed, based on the defined characters. when
-		// changing start/end characters (CHAR_START/CHAR_END) this will need
-		// adjustment too!
-		if (maxSize <= 24) // IF Max Size is 18 or Less
-			textureSize = 256; // Set 256 Texture Size
-		else if (maxSize <= 40) // ELSE IF Max Size is 40 or Less
-			textureSize = 512; // Set 512 Texture Size
-		else if (maxSize <= 80) // ELSE IF Max Size is 80 or Less
-			textureSize = 1024; // Set 1024 Texture Size
-		else
-			// ELSE IF Max Size is Larger Than 80 (and Less than FONT_SIZE_MAX)
-			textureSize = 2048; // Set 2048 Texture Size
-
-		// create an empty bitmap (alpha only)
-//		mBitmap = Bitmap.createBitmap(textureSize, textureSize, Bitmap.Config.ALPHA_8);
-		mBitmap = Bitmap.createBitmap( textureSize, textureSize, Bitmap.Config.ARGB_8888 ); 
-		// Create Canvas for Rendering to Bitmap
-		Canvas canvas = new Canvas(mBitmap); 
-		mBitmap.eraseColor(0x00000000); // Set Transparent Background (ARGB)
-		//draw a rectangle to cover the whole area, for debug purpose
-//		paint.setStyle(Paint.Style.STROKE);  
-//		canvas.drawRect(0.0f, textureSize, textureSize, 0.0f, paint);
-//		paint.setStyle(Paint.Style.FILL_AND_STROKE); 
-		// calculate rows/columns
-		// NOTE: while not required for anything, these may be useful to have :)
-		colCnt = textureSize / cellWidth; // Calculate Number of Columns
-		// Calculate Number of Rows
-		rowCnt = (int) Math.ceil((float) CHAR_CNT / (float) colCnt);
-
-		// render each of the characters to the canvas (ie. build the font map)
-		float x = fontPadX; // Set Start Position (X)
-		float y = (cellHeight - 1) - fontDescent - fontPadY; // Set Start
-																// Position (Y)
-		for (char c = CHAR_START; c <= CHAR_END; c++) { // FOR Each Character
-			s[0] = c; // Set Character to Draw
-			canvas.drawText(s, 0, 1, x, y, paint); // Draw Character
-			x += cellWidth; // Move to Next Character
-			// IF End of Line Reached
-			if ((x + cellWidth - fontPadX) > textureSize) {
-				x = fontPadX; // Set X for New Row
-				y += cellHeight; // Move Down a Row
+		// return success
+		return true; // Return Success
+	}
+
+	// --Load Font (Asynchronous)--//
+	// D: same as load(), but the atlas is read/built on a worker thread; only
+	// the texture upload is left to the GL thread, which picks the atlas up
+	// in the first begin() (or isLoaded()) after it is ready. until then,
+	// drawing with this instance draws nothing
+	// A: see load()
+	// R: the pending atlas; its value is null if the font size is not
+	// supported (errors surface on the GL thread when the atlas is picked up)
+	public Future<?> loadAsync(String file, int targetFontSize, int padX,
+			int padY) {
+		return loadAsync(file, targetFontSize, padX, padY, false);
+	}
+
+	public Future<?> loadAsync(final String file, final int targetFontSize,
+			final int padX, final int padY, final boolean distanceField) {
+		final Context context = mContext;
+		mPendingStart = System.nanoTime();
+		mPending = getLoadExecutor().submit(new Callable<FontAtlas>() {
+			@Override
+			public FontAtlas call() {
+				return prepare(context, file, targetFontSize, padX, padY,
+						distanceField);
+			}
+		});
+		return mPending;
+	}
+
+	// --Is Loaded--//
+	// D: return whether a font is ready for drawing, uploading the atlas of a
+	// finished asynchronous load first
+	// NOTE: must be called on the GL thread
+	// A: [none]
+	// R: true if a font is loaded
+	public boolean isLoaded() {
+		if (mPending != null && mPending.isDone()) {
+			Future<FontAtlas> pending = mPending;
+			mPending = null;
+			FontAtlas atlas;
+			try {
+				atlas = pending.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Font loading interrupted");
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Error loading font", e.getCause());
+			}
+			if (atlas == null)
+				Log.e(TAG, "font size not supported, nothing loaded");
+			else {
+				long ready = System.nanoTime();
+				upload(atlas);
+				Log.i(TAG, "loadAsync " + atlas.file + " " + atlas.fontSize
+						+ "px: ready after " + (ready - mPendingStart) / 1000
+						+ " us, upload " + (System.nanoTime() - ready) / 1000
+						+ " us");
 			}
-			
 		}
-		s[0] = CHAR_NONE; // Set Character to Use for NONE
-		canvas.drawText(s, 0, 1, x, y, paint); // Draw Character
-		saveBitmap("fontMap.png");
+		return (textureId > 0);
+	}
+
+	// --Prepare--//
+	// D: read an atlas from the cache, or build (and cache) it
+	// NOTE: does not touch GL or the instance, so may run on any thread
+	// A: context - context used to access the font assets and cache
+	// file, targetFontSize, padX, padY, distanceField - see load()
+	// R: the atlas, or null if the font size is not supported
+	static FontAtlas prepare(Context context, String file, int targetFontSize,
+			int padX, int padY, boolean distanceField) {
+		long start = System.nanoTime();
+		if (distanceField) { // Field Needs Room Outside the Glyph
+			padX = Math.max(padX, SDF_SPREAD);
+			padY = Math.max(padY, SDF_SPREAD);
+		}
+		AssetManager assets = context.getAssets();
+		File cacheFile = AtlasCache.getFile(context.getCacheDir(), file,
+				targetFontSize, padX, padY, distanceField);
+		long stamp;
+		FontAtlas atlas;
+		try {
+			stamp = AtlasCache.fontStamp(context, file);
+			atlas = AtlasCache.read(cacheFile, stamp, file, targetFontSize, padX,
+					padY, distanceField);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading font file: " + file, e);
+		}
+		boolean cached = (atlas != null);
+		if (!cached) {
+			atlas = FontAtlas.build(assets, file, targetFontSize, padX, padY,
+					distanceField);
+			if (atlas == null) // IF Font Size Not Supported
+				return null;
+			AtlasCache.write(cacheFile, stamp, atlas);
+		}
+		Log.d(TAG, file + " " + targetFontSize + "px: "
+				+ (cached ? "atlas cache hit " : "atlas built ")
+				+ (System.nanoTime() - start) / 1000 + " us");
+		return atlas;
+	}
+
+	// --Load Executor--//
+	// D: return the pool running asynchronous loads (separate from the
+	// distance field workers, which the loads wait for)
+	static synchronized ExecutorService getLoadExecutor() {
+		if (loadExecutor == null)
+			loadExecutor = Executors.newFixedThreadPool(LOAD_THREADS,
+					new ThreadFactory() {
+						private int count;
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "GLText-loader-"
+									+ (++count));
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		return loadExecutor;
+	}
+
+	// --Upload--//
+	// D: take over the metrics of an atlas, and create the font texture from
+	// its pixels (replacing the texture of a previous load)
+	// NOTE: must be called on the GL thread
+	// A: atlas - the atlas to use
+	// R: [none]
+	void upload(FontAtlas atlas) {
+		flushFrame(); // Deferred Text Uses the Previous Texture
+		if (widthCache != null)
+			widthCache.clear(); // Measured With the Previous Metrics
+		// setup requested values
+		fontFile = atlas.file;
+		fontSize = atlas.fontSize;
+		distanceField = atlas.distanceField;
+		fontPadX = atlas.padX; // Set Requested X Axis Padding
+		fontPadY = atlas.padY; // Set Requested Y Axis Padding
+		mPaint = null; // Created on First Dynamic Glyph
+
+		// setup the metrics
+		fontHeight = atlas.fontHeight;
+		fontAscent = atlas.fontAscent;
+		fontDescent = atlas.fontDescent;
+		charWidthMax = atlas.charWidthMax;
+		charHeight = atlas.charHeight;
+		cellWidth = atlas.cellWidth;
+		cellHeight = atlas.cellHeight;
+		textureSize = atlas.textureSize;
+		System.arraycopy(atlas.charWidths, 0, charWidths, 0, CHAR_CNT);
+		glyphMinX = -fontPadX; // Font Box (Any Glyph Within Ascent/Descent)
+		glyphMinY = -fontPadY;
+		glyphMaxY = fontDescent + fontAscent + fontPadY;
+		for (int c = 0; c < CHAR_CNT; c++) { // Create Region for Character
+			charRgn[c] = new TextureRegion(textureSize, textureSize,
+					atlas.rectX[c], atlas.rectY[c], atlas.rectW[c],
+					atlas.rectH[c], atlas.offsetX[c], atlas.offsetY[c]);
+			extendGlyphExtents(charRgn[c]);
+		}
+		int cacheSlots = atlas.cacheSlots;
+		System.arraycopy(atlas.cacheCellX, 0, cacheCellX, 0, cacheSlots);
+		System.arraycopy(atlas.cacheCellY, 0, cacheCellY, 0, cacheSlots);
+
 		// generate a new texture
+		if (textureId > 0) { // Release the Texture of a Previous Load
+			GLES20.glDeleteTextures(1, new int[] { textureId }, 0);
+			GLState.textureDeleted(textureId);
+		}
 		int[] textureIds = new int[1]; // Array to Get Texture Id
 		GLES20.glGenTextures(1, textureIds, 0); // Generate New Texture
 		textureId = textureIds[0]; // Save Texture Id
+		// Sanity check
+		if (textureId == 0) {
+			throw new RuntimeException(
+					"Error found during generating texture for dynamic font display. TextureId == 0");
+		}
 
 		// setup filters for texture
-		GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId); // Bind Texture
+		// NOTE: distance fields must be interpolated to threshold smoothly
+		int filter = (distanceField ? GLES20.GL_LINEAR : GLES20.GL_NEAREST);
+		GLState.bindTexture(textureId); // Bind Texture
 		// Set Minification Filter
 		GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
-				GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+				GLES20.GL_TEXTURE_MIN_FILTER, filter);
 		// Set Magnification Filter
 		GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
-				GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+				GLES20.GL_TEXTURE_MAG_FILTER, filter);
 		// Set U Wrapping
 		GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S,
 				GLES20.GL_CLAMP_TO_EDGE);
 		// Set V Wrapping
 		GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T,
 				GLES20.GL_CLAMP_TO_EDGE); 
-		// load the generated bitmap onto the texture
-		GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, mBitmap, 0);
-		
+		// load the atlas pixels onto the texture (one byte per texel)
+		atlas.pixels.rewind();
+		uploadAlpha(atlas.pixels, atlas.rowBytes, textureSize, textureSize,
+				0, 0, true);
 
-		// release the bitmap
-		mBitmap.recycle();
-		
-		// Sanity check
-		if (textureId == 0) {
-			throw new RuntimeException(
-					"Error found during generating texture for dynamic font display. TextureId == 0");
-		}
-
-		// setup the array of character texture regions
-		x = 0; // Initialize X
-		y = 0; // Initialize Y
-		for (int c = 0; c < CHAR_CNT; c++) { // FOR Each Character (On Texture)
-			 // Create Region for Character
-			charRgn[c] = new TextureRegion(textureSize, textureSize, x, y,
-					cellWidth - 1, cellHeight - 1);
-			x += cellWidth; // Move to Next Char (Cell)
-			if (x + cellWidth > textureSize) {
-				x = 0; // Reset X Position to Start
-				y += cellHeight; // Move to Next Row (Cell)
-			}
-		}
+		// setup the glyph cache (all slots free; regions set on rasterize)
+		for (int i = 0; i < cacheSlots; i++)
+			charRgn[CHAR_CNT + i] = new TextureRegion(1, 1, 0, 0, 0, 0);
+		if (cacheSlots > 0) {
+			glyphCache = new GlyphCache(cacheSlots);
+			mGlyphBitmap = Bitmap.createBitmap(cellWidth, cellHeight,
+					Bitmap.Config.ALPHA_8);
+			mGlyphCanvas = new Canvas(mGlyphBitmap);
+			mGlyphPixels = ByteBuffer.allocateDirect(mGlyphBitmap
+					.getRowBytes() * cellHeight);
+			mGlyphData = (distanceField ? new byte[mGlyphPixels.capacity()]
+					: null);
+			mGlyphScratch = (distanceField ? new DistanceField.Scratch(
+					cellWidth * cellHeight) : null);
+		} else
+			glyphCache = null;
 
 		// create full texture region
 		textureRgn = new TextureRegion(textureSize, textureSize, 0, 0,
 				textureSize, textureSize); // Create Full Texture Region
+		// share of the atlas used by glyphs and glyph cache cells
+		long used = (long) cacheSlots * cellWidth * cellHeight;
+		for (int c = 0; c < CHAR_CNT; c++)
+			used += atlas.rectW[c] * atlas.rectH[c];
+		long texels = (long) textureSize * textureSize;
+		atlasOccupancy = (float) used / texels;
+		if (RenderMetrics.ENABLED) // Replaces the Previous Atlas (If Any)
+			RenderMetrics.addAtlas(used - atlasUsed, texels - atlasTexels);
+		atlasUsed = used;
+		atlasTexels = texels;
+		fontVersion++; // Invalidate Retained Meshes
+		mUploads++; // Publish to Recording Threads (see TextCommandBuffer)
+	}
 
-		// return success
-		return true; // Return Success
+	// --Set Clip--//
+	// D: set the clip rectangle of draw(): lines entirely outside are rejected
+	// before their glyphs are looked up, and glyphs entirely outside are not
+	// batched. glyphs crossing the edges are drawn whole (use glScissor()
+	// for exact clipping)
+	// NOTE: after text culled at the right/top/bottom, draw(String) continues
+	// from where the culling started (which is outside as well)
+	// A: left, bottom, right, top - the clip rectangle (screen coordinates)
+	// R: [none]
+	public void setClip(float left, float bottom, float right, float top) {
+		clipLeft = left;
+		clipBottom = bottom;
+		clipRight = right;
+		clipTop = top;
+		mClipping = true;
+	}
+
+	public void clearClip() {
+		mClipping = false;
+	}
+
+	// extend the glyph extents (see draw() culling) by a glyph
+	private void extendGlyphExtents(TextureRegion rgn) {
+		if (rgn.width <= 0)
+			return;
+		glyphMinX = Math.min(glyphMinX, rgn.offsetX);
+		glyphMinY = Math.min(glyphMinY, rgn.offsetY);
+		glyphMaxY = Math.max(glyphMaxY, rgn.offsetY + rgn.height);
+	}
+
+	// return the bucket recording a line at y (drawn above any text recorded
+	// earlier that it may overlap, see TextRenderer.bucket())
+	private TextRenderer.Bucket lineBucket(float y) {
+		TextRenderer.Bucket b = mBucket;
+		float y1 = y + glyphMinY * scaleY, y2 = y + glyphMaxY * scaleY;
+		return mBucket = mRenderer.bucket(b.textureId, b.edgeStart,
+				b.edgeScale, Math.min(y1, y2), Math.max(y1, y2));
 	}
 
 	// --Begin/End Text Drawing--//
 	// D: call these methods before/after (respectively all draw() calls using a
 	// text instance
-	// NOTE: color is set on a per-batch basis, and fonts should be 8-bit alpha
-	// only!!!
+	// NOTE: color is stored per vertex (see setColor()), and fonts should be
+	// 8-bit alpha only!!! in deferred mode (see setDeferred()) end() does not
+	// draw anything
 	// A: red, green, blue - RGB values for font (default = 1.0)
 	// alpha - optional alpha value for font (default = 1.0)
 	// R: [none]
@@ -343,7 +664,75 @@ public class GLText {
 		mCurrentColor[1] = green;
 		mCurrentColor[2] = blue;
 		mCurrentColor[3] = alpha;
+		mSkipping = !isLoaded(); // Draw Nothing Until a Font is Loaded
+		if (mSkipping)
+			return;
+		// NOTE: the scale must be set before begin() in distance field mode
+		if (mRenderer != null) { // IF Drawing Through a Shared Renderer
+			computeEdge((scaleX + scaleY) / 2.0f);
+			mBucket = mRenderer.bucket(textureId, mEdge[0], mEdge[1]);
+			return;
+		}
+		float scale = (scaleX + scaleY) / 2.0f;
+		if (mBatchOpen) { // IF Deferred Sprites are Pending
+			computeEdge(scale);
+			if (mEdge[0] == mBatchEdge[0] && mEdge[1] == mBatchEdge[1])
+				return; // Keep Batching (Only the Color Changed)
+			flushFrame(); // Different Shader Parameters: Draw First
+		}
+		mGLTextProgram.use();
+		setEdge(mEdgeHandle, scale);
 		batch.beginBatch(textureId, mCurrentColor); // Begin Batch
+		if (mDeferred) {
+			mBatchOpen = true;
+			mBatchEdge[0] = mEdge[0];
+			mBatchEdge[1] = mEdge[1];
+		}
+	}
+
+	// --Set Deferred--//
+	// D: defer drawing the font's own batch: begin()/end() pairs then only
+	// change the color, and the batched text of any number of them is drawn
+	// with one draw call when the shader parameters (eg. the scale of a
+	// distance field font) change, the batch is full (see
+	// SpriteBatch.reserve()), or flushFrame() is called
+	// NOTE: deferred text is drawn after anything drawn (by other means) in
+	// between; call flushFrame() first when that order matters. the font's
+	// own meshes flush it themselves. not used while drawing through a
+	// renderer (see setRenderer()), which defers anyway
+	// A: deferred - defer drawing (false = draw in end(), default)
+	// R: [none]
+	public void setDeferred(boolean deferred) {
+		if (!deferred)
+			flushFrame();
+		mDeferred = deferred;
+	}
+
+	public boolean isDeferred() {
+		return mDeferred;
+	}
+
+	// --Flush Frame--//
+	// D: draw the text deferred since the last flush (see setDeferred()); call
+	// at the end of the frame (no effect if nothing is pending)
+	// A: [none]
+	// R: [none]
+	public void flushFrame() {
+		if (mBatchOpen) {
+			mBatchOpen = false;
+			batch.endBatch(); // Draw (and Empty) the Batch
+		}
+	}
+
+	// --Set Renderer--//
+	// D: draw through a shared frame renderer: text drawn between begin() and
+	// end() is only recorded, and drawn (batched with the text of all other
+	// fonts using the renderer) by TextRenderer.flush()/endFrame()
+	// A: renderer - the renderer (null = draw with the font's own batch again)
+	// R: [none]
+	public void setRenderer(TextRenderer renderer) {
+		flushFrame();
+		mRenderer = renderer;
 	}
 
 	public void setColor(float red, float green, float blue, float alpha) {
@@ -354,7 +743,10 @@ public class GLText {
 	}
 	
 	public void end() {
-		batch.endBatch(); // End Batch
+		if (mBucket != null)
+			mBucket = null; // Recorded Only (Drawn by the Renderer)
+		else if (!mSkipping && !mBatchOpen)
+			batch.endBatch(); // End Batch (Unless Deferred)
 		// restore color to default white
 		mCurrentColor[0] = 1.0f;
 		mCurrentColor[1] = 1.0f;
@@ -368,76 +760,657 @@ public class GLText {
 	// x, y - the x,y position to draw text at (bottom left of text; including
 	// descent)
 	// R: [none]
-	public void draw(String text, float x, float y) {
-		// Calculate Scaled Character Height
-		float chrHeight = cellHeight * scaleY; 
-		// Calculate Scaled Character Width
-		float chrWidth = cellWidth * scaleX; 
+	public void draw(CharSequence text, float x, float y) {
+		if (mSkipping) // IF No Font Loaded Yet
+			return;
+		long start = (RenderMetrics.ENABLED ? System.nanoTime() : 0);
+		TextRenderer.Bucket bucket = mBucket;
+		int color = 0;
+		if (bucket != null) { // IF Recording, Pick the Bucket of the Line
+			bucket = lineBucket(y);
+			color = Vertices.packColor(mCurrentColor[0], mCurrentColor[1],
+					mCurrentColor[2], mCurrentColor[3]);
+		}
 		int len = text.length(); // Get String Length
-		x += (chrWidth / 2.0f) - (fontPadX * scaleX); // Adjust Start X
-		y += (chrHeight / 2.0f) - (fontPadY * scaleY); // Adjust Start Y
+		float left = Float.NEGATIVE_INFINITY, right = Float.POSITIVE_INFINITY;
+		if (mClipping) {
+			if (y + glyphMaxY * scaleY <= clipBottom
+					|| y + glyphMinY * scaleY >= clipTop) {
+				if (RenderMetrics.ENABLED) // Whole Line Outside (Vertically)
+					RenderMetrics.add(RenderMetrics.CULLED_GLYPHS,
+							countGlyphs(text, 0));
+				lastX = x;
+				lastY = y;
+				return;
+			}
+			left = clipLeft;
+			right = clipRight;
+		}
+		int submitted = 0, culled = 0;
 		for (int i = 0; i < len; i++) { // FOR Each Character in String
+			if (x + glyphMinX * scaleX >= right) { // IF Rest Is Outside
+				if (RenderMetrics.ENABLED)
+					culled += countGlyphs(text, i);
+				break;
+			}
 			int c = (int) text.charAt(i) - CHAR_START; // Calculate Character
 			// Index (Offset by First Char in Font)
-			if (c < 0 || c >= CHAR_CNT) // IF Character Not In Font
-				c = CHAR_UNKNOWN; // Set to Unknown Character Index
-			// Draw the Character
-			batch.drawSprite(x, y, chrWidth, chrHeight, charRgn[c]); 
+			if (c < 0) // Control Character (eg. '\n'): No Glyph, No Advance
+				continue;
+			if (c > CHAR_LAST) { // IF Not a Fixed Character
+				int cp = Character.codePointAt(text, i); // Get Code Point
+				if (cp > Character.MAX_VALUE)
+					i++; // Skip Low Surrogate
+				c = getGlyph(cp); // Get Cached (or Unknown) Glyph Index
+			}
+			TextureRegion rgn = charRgn[c];
+			if (rgn.width > 0 && x + (rgn.offsetX + rgn.width) * scaleX <= left) {
+				culled++; // Glyph Left of the Clip Rectangle
+			} else if (rgn.width > 0 && bucket != null) { // IF Recording
+				submitted++;
+				float x1 = x + rgn.offsetX * scaleX;
+				float y1 = y + rgn.offsetY * scaleY;
+				bucket.addSprite(x1, y1, x1 + rgn.width * scaleX,
+						y1 + rgn.height * scaleY, rgn, color);
+			} else if (rgn.width > 0) { // IF Anything to Draw
+				submitted++;
+				// Draw the Character (Sprite is Centered on its Quad)
+				batch.drawSprite(x + (rgn.offsetX + rgn.width / 2.0f) * scaleX,
+						y + (rgn.offsetY + rgn.height / 2.0f) * scaleY,
+						rgn.width * scaleX, rgn.height * scaleY, rgn);
+			}
 			// Advance X Position by Scaled Character Width
 			x += (charWidths[c] + spaceX) * scaleX;
 		}
-		lastX = x + (fontPadX * scaleX) - (chrWidth / 2.0f);
-		lastY = y + (fontPadY * scaleY) - (chrHeight / 2.0f);
+		if (RenderMetrics.ENABLED) {
+			RenderMetrics.add(RenderMetrics.GLYPHS, submitted);
+			RenderMetrics.add(RenderMetrics.CULLED_GLYPHS, culled);
+			RenderMetrics.add(RenderMetrics.LAYOUT_NS, System.nanoTime() - start);
+		}
+		lastX = x;
+		lastY = y;
 	}
 	// --Draw Text--//
 	// D: continue draw text from last location 
 	// A: text - the string to draw
 	// R: [none]
-	public void draw(String text) {
-		// Calculate Scaled Character Height
-		float chrHeight = cellHeight * scaleY; 
-		// Calculate Scaled Character Width
-		float chrWidth = cellWidth * scaleX; 
-		int len = text.length(); // Get String Length
-		float x = lastX + (chrWidth / 2.0f) - (fontPadX * scaleX); // Adjust Start X
-		float y = lastY + (chrHeight / 2.0f) - (fontPadY * scaleY); // Adjust Start Y
+	public void draw(CharSequence text) {
+		draw(text, lastX, lastY);
+	}
+
+	// --Draw Characters--//
+	// D: draw a range of a character array (without creating a String)
+	// A: chars - the characters
+	// offset, count - the range of characters to draw
+	// x, y - the x,y position to draw text at (bottom left of text)
+	// R: [none]
+	public void draw(char[] chars, int offset, int count, float x, float y) {
+		draw(mCharArray.set(chars, offset, count), x, y);
+	}
+
+	// --Draw Number--//
+	// D: draw an integer/a fixed point number, formatting the digits straight
+	// into a reused character buffer (allocation free)
+	// A: value - the number to draw
+	// decimals - the number of decimals (0..9; halves rounded away from 0)
+	// x, y - the x,y position to draw text at (bottom left of text)
+	// R: [none]
+	public void drawInt(long value, float x, float y) {
+		int len = formatInt(value, mDigits);
+		draw(mDigits, mDigits.length - len, len, x, y);
+	}
+
+	public void drawFloat(float value, int decimals, float x, float y) {
+		int len = formatFloat(value, decimals, mDigits);
+		draw(mDigits, mDigits.length - len, len, x, y);
+	}
+
+	// --Format Number--//
+	// D: format a number right aligned into the end of a character buffer
+	// A: value - the number to format
+	// decimals - the number of decimals (0..9)
+	// buffer - the buffer (at least DIGITS_SIZE characters)
+	// R: the number of characters written
+	static int formatInt(long value, char[] buffer) {
+		int i = buffer.length;
+		boolean negative = value < 0;
+		do { // Digits from the Right (Negative, so MIN_VALUE Works)
+			long q = value / 10;
+			buffer[--i] = (char) ('0' + Math.abs((int) (value - q * 10)));
+			value = q;
+		} while (value != 0);
+		if (negative)
+			buffer[--i] = '-';
+		return buffer.length - i;
+	}
+
+	static int formatFloat(float value, int decimals, char[] buffer) {
+		decimals = Math.max(0, Math.min(decimals, 9));
+		long scale = 1;
+		for (int d = 0; d < decimals; d++)
+			scale *= 10;
+		double abs = Math.abs((double) value);
+		if (abs * scale >= 1e18) { // Too Large for the Decimals
+			decimals = 0;
+			scale = 1;
+		}
+		if (Float.isNaN(value) || abs >= 1e18) { // Not Representable
+			String text = (Float.isNaN(value) ? "NaN" : value < 0 ? "-Inf"
+					: "Inf"); // Constants (No Allocation)
+			text.getChars(0, text.length(), buffer, buffer.length
+					- text.length());
+			return text.length();
+		}
+		long fixed = Math.round(abs * scale);
+		int i = buffer.length;
+		for (int d = 0; d < decimals; d++) { // Decimals from the Right
+			buffer[--i] = (char) ('0' + (int) (fixed % 10));
+			fixed /= 10;
+		}
+		if (decimals > 0)
+			buffer[--i] = '.';
+		do {
+			buffer[--i] = (char) ('0' + (int) (fixed % 10));
+			fixed /= 10;
+		} while (fixed != 0);
+		if (value < 0 && hasNonZero(buffer, i))
+			buffer[--i] = '-'; // No "-0.00"
+		return buffer.length - i;
+	}
+
+	// check whether a formatted number has a non-zero digit
+	private static boolean hasNonZero(char[] buffer, int from) {
+		for (int i = from; i < buffer.length; i++)
+			if (buffer[i] >= '1' && buffer[i] <= '9')
+				return true;
+		return false;
+	}
+	
+	
+	// count the characters of a text (from an index) that would emit a quad,
+	// without rasterizing glyphs that are not cached yet (counted unless
+	// whitespace or control characters); for the culling metrics
+	private int countGlyphs(CharSequence text, int from) {
+		int count = 0, len = text.length();
+		for (int i = from; i < len; i++) {
+			int c = (int) text.charAt(i) - CHAR_START;
+			if (c < 0) // Control Character: No Glyph
+				continue;
+			if (c > CHAR_LAST) { // IF Not a Fixed Character
+				int cp = Character.codePointAt(text, i);
+				if (cp > Character.MAX_VALUE)
+					i++; // Skip Low Surrogate
+				c = cachedGlyph(cp);
+				if (c < 0) { // Not Rasterized Yet
+					if (!Character.isWhitespace(cp) && !Character.isISOControl(cp))
+						count++;
+					continue;
+				}
+			}
+			if (charRgn[c].width > 0)
+				count++;
+		}
+		return count;
+	}
+
+	// return the glyph index for a code point outside the fixed character
+	// range if it needs no rasterizing (see getGlyph()), else -1
+	private int cachedGlyph(int codePoint) {
+		if (glyphCache == null)
+			return CHAR_UNKNOWN;
+		int slot = glyphCache.get(codePoint);
+		return (slot != GlyphCache.NONE ? CHAR_CNT + slot : -1);
+	}
+
+	// return the advance of a code point without rasterizing it (see
+	// rasterizeGlyph())
+	private float measureGlyph(int codePoint) {
+		if (mPaint == null) // Font Not Needed Until Now (Cached Atlas)
+			mPaint = FontAtlas.createPaint(assets, fontFile, fontSize);
+		int n = Character.toChars(codePoint, mGlyphChars, 0);
+		mPaint.getTextWidths(mGlyphChars, 0, n, mGlyphWidths);
+		return mGlyphWidths[0];
+	}
+
+	// return the index of a character in a text (or -1)
+	private static int indexOf(CharSequence text, char ch) {
+		for (int i = 0, len = text.length(); i < len; i++)
+			if (text.charAt(i) == ch)
+				return i;
+		return -1;
+	}
+
+	// --Get Glyph--//
+	// D: return the glyph index (into charWidths/charRgn) for a code point
+	// outside the fixed character range. the glyph is rasterized into a free
+	// (or the least recently used) glyph cache cell on first use.
+	// NOTE: must be called on the GL thread; if the evicted glyph is still
+	// referenced by the pending batch, the batch is flushed first
+	// A: codePoint - the code point to get the glyph for
+	// R: the glyph index (CHAR_UNKNOWN if the glyph cache is disabled)
+	int getGlyph(int codePoint) {
+		if (glyphCache == null)
+			return CHAR_UNKNOWN;
+		int slot = glyphCache.get(codePoint);
+		if (slot == GlyphCache.NONE) { // IF Not Cached Yet
+			slot = glyphCache.nextSlot();
+			// the slot's current glyph may still be waiting to be drawn
+			if (mBucket != null) {
+				if (glyphCache.stamps[slot] == mRenderer.flushCount
+						&& mRenderer.numPending > 0)
+					mRenderer.flush(); // Draw Everything Recorded So Far
+			} else if (glyphCache.stamps[slot] == batch.flushCount
+					&& batch.numSprites > 0)
+				batch.endBatch(); // Render (and Empty) the Batch
+			int evictions = glyphCache.evictions;
+			glyphCache.assign(codePoint);
+			rasterizeGlyph(codePoint, slot);
+			if (glyphCache.evictions != evictions)
+				fontVersion++; // Retained Meshes May Use the Evicted Glyph
+		}
+		glyphCache.touch(slot, mBucket != null ? mRenderer.flushCount
+				: batch.flushCount);
+		return CHAR_CNT + slot;
+	}
+
+	// --Rasterize Glyph--//
+	// D: measure and draw a code point into its glyph cache cell, and upload
+	// the cell to the font texture
+	// A: codePoint - the code point to rasterize
+	// slot - the glyph cache slot to use
+	// R: [none]
+	private void rasterizeGlyph(int codePoint, int slot) {
+		if (mPaint == null) // Font Not Needed Until Now (Cached Atlas)
+			mPaint = FontAtlas.createPaint(assets, fontFile, fontSize);
+		int n = Character.toChars(codePoint, mGlyphChars, 0);
+		mPaint.getTextWidths(mGlyphChars, 0, n, mGlyphWidths); // Get Width
+		charWidths[CHAR_CNT + slot] = mGlyphWidths[0];
+
+		// fit the ink bounds (plus anti aliasing pixel and padding) into the
+		// cell; glyphs larger than the cell are clipped
+		Rect bounds = mGlyphBounds;
+		mPaint.getTextBounds(mGlyphChars, 0, n, bounds);
+		TextureRegion rgn = charRgn[CHAR_CNT + slot];
+		mGlyphBitmap.eraseColor(0x00000000); // Clear the Cell
+		if (bounds.isEmpty()) { // IF Nothing to Draw
+			rgn.set(1, 1, 0, 0, 0, 0, 0, 0);
+		} else {
+			bounds.inset(-1, -1);
+			int rw = Math.min(bounds.width() + (2 * fontPadX), cellWidth);
+			int rh = Math.min(bounds.height() + (2 * fontPadY), cellHeight);
+			float offsetX = bounds.left - fontPadX;
+			float offsetY = fontDescent - bounds.bottom - fontPadY;
+			// Draw Character (Pen Position Inside the Cell)
+			mGlyphCanvas.drawText(mGlyphChars, 0, n, -offsetX, rh + offsetY
+					- fontDescent, mPaint);
+			rgn.set(textureSize, textureSize, cacheCellX[slot],
+					cacheCellY[slot], rw, rh, offsetX, offsetY);
+			extendGlyphExtents(rgn);
+		}
+		copyPixels(mGlyphBitmap, mGlyphPixels);
+		if (distanceField && rgn.width > 0) { // Convert to Distance Field
+			mGlyphPixels.get(mGlyphData);
+			DistanceField.transform(mGlyphData, mGlyphBitmap.getRowBytes(), 0,
+					0, (int) rgn.width, (int) rgn.height, SDF_SPREAD,
+					mGlyphScratch);
+			mGlyphPixels.rewind();
+			mGlyphPixels.put(mGlyphData);
+			mGlyphPixels.rewind();
+		}
+		// upload the whole cell, clearing the evicted glyph
+		GLState.bindTexture(textureId);
+		uploadAlpha(mGlyphPixels, mGlyphBitmap.getRowBytes(), cellWidth,
+				cellHeight, cacheCellX[slot], cacheCellY[slot], false);
+	}
+
+	// --Copy Pixels--//
+	// D: copy the pixels of a bitmap into a (rewound) direct buffer
+	private static void copyPixels(Bitmap bitmap, ByteBuffer pixels) {
+		pixels.rewind();
+		bitmap.copyPixelsToBuffer(pixels);
+		pixels.rewind();
+	}
+
+	// --Upload Alpha--//
+	// D: upload ALPHA_8 bitmap pixels (see copyPixels()) to the bound texture
+	// as GL_ALPHA, either as the whole (level 0) image or into a part of it
+	// A: pixels - the pixels (rowBytes * height bytes)
+	// rowBytes - bytes per row (Bitmap.getRowBytes())
+	// width, height - size of the image (pixels)
+	// x, y - position on the texture (sub image only)
+	// define - true to (re)define the texture image, false to update it
+	// R: [none]
+	private static void uploadAlpha(ByteBuffer pixels, int rowBytes,
+			int width, int height, int x, int y, boolean define) {
+		// rows are tightly packed, or padded to 4 bytes by older versions
+		GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT,
+				rowBytes == width ? 1 : 4);
+		if (define)
+			GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_ALPHA,
+					width, height, 0, GLES20.GL_ALPHA,
+					GLES20.GL_UNSIGNED_BYTE, pixels);
+		else
+			GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, x, y, width,
+					height, GLES20.GL_ALPHA, GLES20.GL_UNSIGNED_BYTE, pixels);
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.add(RenderMetrics.BYTES_UPLOADED, rowBytes * height);
+	}
+
+	// --Set Edge--//
+	// D: set the u_edge uniform of the current program: distance fields are
+	// thresholded at 0.5 with an anti aliased band of SDF_SMOOTHING screen
+	// pixels at the specified scale; coverage is passed through unchanged
+	// A: handle - location of u_edge in the current program
+	// scale - the scale the glyphs are drawn at
+	// R: [none]
+	private void setEdge(int handle, float scale) {
+		computeEdge(scale);
+		GLES20.glUniform2f(handle, mEdge[0], mEdge[1]);
+	}
+
+	// --Compute Edge--//
+	// D: compute the u_edge values (see setEdge()) into mEdge
+	// A: scale - the scale the glyphs are drawn at
+	// R: [none]
+	void computeEdge(float scale) {
+		if (!distanceField) {
+			mEdge[0] = 0.0f;
+			mEdge[1] = 1.0f;
+			return;
+		}
+		// one screen pixel covers (0.5 / SDF_SPREAD) / scale field units
+		float width = SDF_SMOOTHING * 0.5f / (SDF_SPREAD * scale);
+		mEdge[0] = 0.5f - width / 2.0f;
+		mEdge[1] = 1.0f / width;
+	}
+
+	// --Create Mesh--//
+	// D: create a retained mesh for the specified string. the glyphs are laid
+	// out once and can then be redrawn every frame at any position, scale
+	// or color without re-layout (see TextMesh)
+	// NOTE: meshes are drawn on their own, they must NOT be drawn between
+	// begin() and end()
+	// A: text - the string to create the mesh for
+	// R: the new mesh
+	public TextMesh createMesh(String text) {
+		return new TextMesh(this, text);
+	}
+
+	// --Layout Mesh--//
+	// D: write the unscaled glyph quads for the specified string to the
+	// buffer, in TextMesh vertex layout (X,Y, U,V). the quads are relative to
+	// the bottom-left of the string (including descent)
+	// A: text - the string to lay out
+	// len - the number of characters to lay out
+	// vertices - the buffer receiving the vertices
+	// y - the y position of the string (unscaled; 0 for meshes)
+	// R: the unscaled width of the laid out string (pixels)
+	float layoutMesh(String text, int len, FloatBuffer vertices, float y) {
+		float x = 0.0f; // Pen Position
 		for (int i = 0; i < len; i++) { // FOR Each Character in String
 			int c = (int) text.charAt(i) - CHAR_START; // Calculate Character
 			// Index (Offset by First Char in Font)
-			if (c < 0 || c >= CHAR_CNT) // IF Character Not In Font
-				c = CHAR_UNKNOWN; // Set to Unknown Character Index
-			// Draw the Character
-			batch.drawSprite(x, y, chrWidth, chrHeight, charRgn[c]); 
-			// Advance X Position by Scaled Character Width
-			x += (charWidths[c] + spaceX) * scaleX;
-//			x += (chrWidth + spaceX) * scaleX;
-		    Log.d(TAG, "charWidths, chrWidth, spaceX = "+ 
-		    	      + charWidths[c] + ", " + chrWidth + ", " + spaceX);
+			if (c < 0) // Control Character (eg. '\n'): No Glyph, No Advance
+				continue;
+			if (c > CHAR_LAST) { // IF Not a Fixed Character
+				int cp = Character.codePointAt(text, i); // Get Code Point
+				if (cp > Character.MAX_VALUE)
+					i++; // Skip Low Surrogate
+				c = getGlyph(cp); // Get Cached (or Unknown) Glyph Index
+			}
+			TextureRegion region = charRgn[c];
+			if (region.width > 0) { // IF Anything to Draw
+				float x1 = x + region.offsetX, x2 = x1 + region.width;
+				float y1 = y + region.offsetY, y2 = y1 + region.height;
+				// p0(x1,y1), p1(x2,y1), p2(x2,y2), p3(x1,y2); as SpriteBatch
+				vertices.put(x1).put(y1).put(region.u1).put(region.v2);
+				vertices.put(x2).put(y1).put(region.u2).put(region.v2);
+				vertices.put(x2).put(y2).put(region.u2).put(region.v1);
+				vertices.put(x1).put(y2).put(region.u1).put(region.v1);
+			}
+			// Advance X Position by Character Width
+			x += charWidths[c] + spaceX;
 		}
-		lastX = x + (fontPadX * scaleX) - (chrWidth / 2.0f);
-		lastY = y + (fontPadY * scaleY) - (chrHeight / 2.0f);
+		// Width Excludes Trailing Space
+		return (len > 0 ? x - spaceX : 0.0f);
 	}
-	
-	
+
+	// --Draw Mesh--//
+	// D: render a (laid out) retained mesh with a single draw call
+	// NOTE: like batches, draws without depth testing (see GLState)
+	// A: mesh - the mesh to draw
+	// x, y - translation of the mesh (bottom left of text)
+	// sx, sy - total scale of the mesh
+	// R: [none]
+	void drawMesh(TextMesh mesh, float x, float y, float sx, float sy) {
+		drawQuads(mesh.bufferIds[0], mesh.bufferIds[1], 0, mesh.numGlyphs, x,
+				y, sx, sy, mesh.color);
+	}
+
+	// --Draw Quads--//
+	// D: render a range of glyph quads stored in GPU buffers in TextMesh
+	// layout (see layoutMesh()) with a single draw call. the vertex pointers
+	// are set to the first quad, so the index buffer only has to cover the
+	// range (quads 0..quads-1)
+	// NOTE: like batches, draws without depth testing (see GLState)
+	// A: vertexBuffer, indexBuffer - the GPU buffers
+	// firstQuad, quads - the range of quads to draw
+	// x, y - translation of the quads
+	// sx, sy - total scale of the quads
+	// color - the color of the quads {R G B A}
+	// R: [none]
+	void drawQuads(int vertexBuffer, int indexBuffer, int firstQuad,
+			int quads, float x, float y, float sx, float sy, float[] color) {
+		flushFrame(); // Keep Deferred Text Below the Mesh
+		long start = (RenderMetrics.ENABLED ? System.nanoTime() : 0);
+		boolean depthTest = GLState.overrideDepthTest(false);
+		mMeshProgram.use();
+		GLES20.glUniformMatrix4fv(mMeshMvpMatrixHandle, 1, false, mMVPMatrix, 0);
+		GLES20.glUniform4f(mMeshTransformHandle, x, y, sx, sy);
+		GLES20.glUniform4fv(mMeshColorHandle, 1, color, 0);
+		setEdge(mMeshEdgeHandle, (sx + sy) / 2.0f);
+		GLState.bindTexture(textureId);
+
+		// attribute locations are bound at link time (0 = position, 1 = uv)
+		int offset = firstQuad * TextMesh.VERTICES_PER_GLYPH
+				* TextMesh.VERTEX_BYTES;
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vertexBuffer);
+		GLES20.glVertexAttribPointer(0, 2, GLES20.GL_FLOAT, false,
+				TextMesh.VERTEX_BYTES, offset);
+		GLES20.glEnableVertexAttribArray(0);
+		GLES20.glVertexAttribPointer(1, 2, GLES20.GL_FLOAT, false,
+				TextMesh.VERTEX_BYTES, offset + 2 * 4);
+		GLES20.glEnableVertexAttribArray(1);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+		GLES20.glDrawElements(GLES20.GL_TRIANGLES, quads
+				* TextMesh.INDICES_PER_GLYPH, GLES20.GL_UNSIGNED_SHORT, 0);
+		GLES20.glDisableVertexAttribArray(0);
+		GLES20.glDisableVertexAttribArray(1);
+		// Unbind so the client-side array paths keep working
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+		GLState.restoreDepthTest(depthTest);
+		if (RenderMetrics.ENABLED) {
+			RenderMetrics.add(RenderMetrics.DRAW_CALLS, 1);
+			RenderMetrics.add(RenderMetrics.SUBMIT_NS, System.nanoTime() - start);
+		}
+	}
+
 	// --Draw Text Centered--//
 	// D: draw text CENTERED at the specified x,y position
 	// A: text - the string to draw
 	// x, y - the x,y position to draw text at (bottom left of text)
 	// R: the total width of the text that was drawn
-	public float drawC(String text, float x, float y) {
-		float len = getLength(text); // Get Text Length
-		// Draw Text Centered
-		draw(text, x - (len / 2.0f), y - (getCharHeight() / 2.0f)); 
-		return len; // Return Length
+	public float drawC(CharSequence text, float x, float y) {
+		// Draw Text Centered (Single Pass, see drawAligned())
+		return drawAligned(text, x, y - (getCharHeight() / 2.0f), ALIGN_CENTER,
+				0.0f);
+	}
+
+	public float drawCX(CharSequence text, float x, float y) {
+		// Draw Text Centered (X-Axis Only)
+		return drawAligned(text, x, y, ALIGN_CENTER, 0.0f);
+	}
+
+	// --Draw Text Aligned--//
+	// D: draw text aligned at the specified x position in a single pass: the
+	// glyphs are emitted at x while their advance is accumulated, then the
+	// emitted quads are moved in place by the offset of the alignment (no
+	// separate getLength() walk). ALIGN_JUSTIFY stretches the spaces so the
+	// text fills the specified width
+	// NOTE: aligned text is only culled (see setClip()) when the whole line is
+	// above or below the clip rectangle
+	// A: text - the string to draw
+	// x - the x position of the left edge (ALIGN_LEFT, ALIGN_JUSTIFY), the
+	// center (ALIGN_CENTER) or the right edge (ALIGN_RIGHT) of the text
+	// y - the y position to draw text at (bottom of text; including descent)
+	// align - the alignment (ALIGN_LEFT .. ALIGN_JUSTIFY)
+	// width - the width to fill (ALIGN_JUSTIFY only; wider text is not
+	// compressed)
+	// R: the total width of the text that was drawn
+	public float drawAligned(CharSequence text, float x, float y, int align,
+			float width) {
+		if (mSkipping) // IF No Font Loaded Yet
+			return getLength(text);
+		float length = emitAligned(text, x, y, align, width);
+		if (length < 0.0f) { // IF Emitting Would Have to Flush the Quads
+			if (mBucket != null) // Flush What Was Batched Before, Then Retry
+				mRenderer.flush();
+			else
+				batch.endBatch();
+			length = emitAligned(text, x, y, align, width);
+			if (length < 0.0f) { // Text Alone Exceeds the Batch/Glyph Cache
+				length = getLength(text);
+				draw(text, x - (align == ALIGN_CENTER ? length / 2.0f
+						: align == ALIGN_RIGHT ? length : 0.0f), y);
+			}
+		}
+		return length;
+	}
+
+	// emit the quads of aligned text (see drawAligned()); returns the width,
+	// or -1 (nothing emitted) if a flush would be required in between, which
+	// would draw quads before they are moved
+	private float emitAligned(CharSequence text, float x, float y, int align,
+			float width) {
+		long start = (RenderMetrics.ENABLED ? System.nanoTime() : 0);
+		int len = text.length(); // Get String Length
+		if (mClipping && (y + glyphMaxY * scaleY <= clipBottom
+				|| y + glyphMinY * scaleY >= clipTop)) {
+			if (RenderMetrics.ENABLED) // Whole Line Outside (Vertically)
+				RenderMetrics.add(RenderMetrics.CULLED_GLYPHS,
+						countGlyphs(text, 0));
+			float length = getLength(text, false); // Measure Only
+			float advance = (len > 0 ? length + spaceX * scaleX : 0.0f);
+			float dx = (align == ALIGN_CENTER ? -length / 2.0f
+					: align == ALIGN_RIGHT ? -length : 0.0f);
+			if (align == ALIGN_JUSTIFY && width > length
+					&& indexOf(text, ' ') >= 0) {
+				dx = width - length;
+				length = width;
+			}
+			lastX = x + advance + dx;
+			lastY = y;
+			return length;
+		}
+		TextRenderer.Bucket bucket = mBucket;
+		int color = 0, first;
+		if (bucket != null) { // IF Recording, Pick the Bucket of the Line
+			bucket = lineBucket(y);
+			color = Vertices.packColor(mCurrentColor[0], mCurrentColor[1],
+					mCurrentColor[2], mCurrentColor[3]);
+			first = bucket.numSprites;
+		} else {
+			if (!batch.reserve(batch.numSprites + len))
+				return -1.0f; // Batch Would Fill Up
+			first = batch.numSprites;
+		}
+		boolean justify = (align == ALIGN_JUSTIFY);
+		if (justify && mSpaceSprites.length < len)
+			mSpaceSprites = new int[len];
+		float x0 = x;
+		int spaces = 0, chars = 0;
+		for (int i = 0; i < len; i++) { // FOR Each Character in String
+			int c = (int) text.charAt(i) - CHAR_START; // Calculate Character
+			if (c < 0) // Control Character (eg. '\n'): No Glyph, No Advance
+				continue;
+			if (c > CHAR_LAST) { // IF Not a Fixed Character
+				int cp = Character.codePointAt(text, i); // Get Code Point
+				if (glyphFlushes(cp)) { // Drop the Quads Emitted So Far
+					if (bucket != null)
+						bucket.truncate(first);
+					else
+						batch.truncate(first);
+					return -1.0f;
+				}
+				if (cp > Character.MAX_VALUE)
+					i++; // Skip Low Surrogate
+				c = getGlyph(cp); // Get Cached (or Unknown) Glyph Index
+			} else if (justify && c == ' ' - CHAR_START) {
+				mSpaceSprites[spaces++] = (bucket != null ? bucket.numSprites
+						: batch.numSprites) - first;
+			}
+			TextureRegion rgn = charRgn[c];
+			if (rgn.width > 0 && bucket != null) { // IF Recording
+				float x1 = x + rgn.offsetX * scaleX;
+				float y1 = y + rgn.offsetY * scaleY;
+				bucket.addSprite(x1, y1, x1 + rgn.width * scaleX,
+						y1 + rgn.height * scaleY, rgn, color);
+			} else if (rgn.width > 0) { // IF Anything to Draw
+				batch.drawSprite(x + (rgn.offsetX + rgn.width / 2.0f) * scaleX,
+						y + (rgn.offsetY + rgn.height / 2.0f) * scaleY,
+						rgn.width * scaleX, rgn.height * scaleY, rgn);
+			}
+			// Advance X Position by Scaled Character Width
+			x += (charWidths[c] + spaceX) * scaleX;
+			chars++;
+		}
+		int emitted = (bucket != null ? bucket.numSprites : batch.numSprites)
+				- first;
+		// the advance includes the spacing after the last character
+		float length = (chars > 0 ? x - x0 - spaceX * scaleX : 0.0f);
+		float dx = (align == ALIGN_CENTER ? -length / 2.0f
+				: align == ALIGN_RIGHT ? -length : 0.0f);
+		if (dx != 0.0f) {
+			if (bucket != null)
+				bucket.translate(first, emitted, dx);
+			else
+				batch.translate(first, emitted, dx);
+		}
+		if (justify && spaces > 0 && width > length) {
+			float extra = (width - length) / spaces;
+			for (int k = 0; k < spaces; k++) { // Words After Each Space
+				int from = mSpaceSprites[k];
+				int to = (k + 1 < spaces ? mSpaceSprites[k + 1] : emitted);
+				if (bucket != null)
+					bucket.translate(first + from, to - from, (k + 1) * extra);
+				else
+					batch.translate(first + from, to - from, (k + 1) * extra);
+			}
+			dx = width - length;
+			length = width;
+		}
+		if (RenderMetrics.ENABLED) {
+			RenderMetrics.add(RenderMetrics.GLYPHS, emitted);
+			RenderMetrics.add(RenderMetrics.LAYOUT_NS, System.nanoTime() - start);
+		}
+		lastX = x + dx;
+		lastY = y;
+		return length;
 	}
 
-	public float drawCX(String text, float x, float y) {
-		float len = getLength(text); // Get Text Length
-		draw(text, x - (len / 2.0f), y); // Draw Text Centered (X-Axis Only)
-		return len; // Return Length
+	// return whether getGlyph() would have to flush the quads batched (or
+	// recorded) so far to make room for a code point
+	private boolean glyphFlushes(int codePoint) {
+		if (glyphCache == null || glyphCache.get(codePoint) != GlyphCache.NONE)
+			return false;
+		int stamp = glyphCache.stamps[glyphCache.nextSlot()];
+		if (mBucket != null)
+			return stamp == mRenderer.flushCount && mRenderer.numPending > 0;
+		return stamp == batch.flushCount && batch.numSprites > 0;
 	}
 
-	public void drawCY(String text, float x, float y) {
+	public void drawCY(CharSequence text, float x, float y) {
 		draw(text, x, y - (getCharHeight() / 2.0f)); // Draw Text Centered
 														// (Y-Axis Only)
 	}
@@ -456,6 +1429,20 @@ public class GLText {
 		scaleY = sy; // Set Y Scale
 	}
 
+	// --Set Text Size--//
+	// D: scale the font to draw at the specified pixel size (relative to the
+	// size it was loaded at); intended for distance field fonts, which stay
+	// sharp at any size
+	// A: size - the pixel size (height) to draw at
+	// R: [none]
+	public void setTextSize(float size) {
+		setScale(size / fontSize);
+	}
+
+	public float getTextSize() {
+		return fontSize * scaleY;
+	}
+
 	// --Get Scale--//
 	// D: get the current scaling used for the font
 	// A: [none]
@@ -488,20 +1475,80 @@ public class GLText {
 	// D: return the length of the specified string if rendered using current settings
 	// A: text - the string to get length for
 	// R: the length of the specified string (pixels)
-	public float getLength(String text) {
-		float len = 0.0f; // Working Length
+	public float getLength(CharSequence text) {
+		return getLength(text, true);
+	}
+
+	// measure text; glyphs not cached yet are rasterized (like draw() would)
+	// or only measured, which never flushes the batched quads
+	private float getLength(CharSequence text, boolean rasterize) {
+		WidthCache cache = widthCache;
+		int hash = 0;
+		if (cache != null) { // IF Caching Widths, Look Up the Text First
+			hash = WidthCache.hash(text);
+			int entry = cache.find(text, hash);
+			if (entry != WidthCache.NONE) {
+				int cnt = cache.counts[entry];
+				return cache.widths[entry] * scaleX
+						+ (cnt > 1 ? ((cnt - 1) * spaceX) * scaleX : 0);
+			}
+		}
+		float len = 0.0f; // Working Length (Unscaled)
 		int strLen = text.length(); // Get String Length (Characters)
+		int chrCnt = strLen; // Number of Characters (Code Points)
 		// For Each Character in String (Except Last)
 		for (int i = 0; i < strLen; i++) { 
 			// Calculate Character Index (Offset by
 			// First Char in Font)
 			int c = (int) text.charAt(i) - CHAR_START; 
-			// Add Scaled Character Width to Total Length
-			len += (charWidths[c] * scaleX); 
+			if (c < 0) { // Control Character: No Glyph, No Advance
+				chrCnt--;
+				continue;
+			}
+			if (c > CHAR_LAST) { // IF Not a Fixed Character
+				int cp = Character.codePointAt(text, i); // Get Code Point
+				if (cp > Character.MAX_VALUE) {
+					i++; // Skip Low Surrogate
+					chrCnt--; // (Pair is One Character)
+				}
+				if (rasterize)
+					c = getGlyph(cp); // Get Cached (or Unknown) Glyph Index
+				else if ((c = cachedGlyph(cp)) < 0) { // IF Not Cached
+					len += measureGlyph(cp);
+					continue;
+				}
+			}
+			// Add Character Width to Total Length
+			len += charWidths[c]; 
 		}
-		// Add Space Length
-		len += (strLen > 1 ? ((strLen - 1) * spaceX) * scaleX : 0); 
-		return len; // Return Total Length
+		if (cache != null)
+			cache.put(text, hash, len, chrCnt);
+		// Scale, and Add Space Length
+		return len * scaleX
+				+ (chrCnt > 1 ? ((chrCnt - 1) * spaceX) * scaleX : 0);
+	}
+
+	// --Set Width Cache--//
+	// D: cache the widths measured by getLength() for repeated strings (eg.
+	// menus and tables measured every frame); the widths are kept unscaled,
+	// so changing the scale or spacing does not invalidate them
+	// NOTE: measuring an uncached string allocates its key
+	// A: capacity - the number of strings to cache (least recently used
+	// replaced first; 0 = no cache, the default)
+	// R: [none]
+	public void setWidthCache(int capacity) {
+		widthCache = (capacity > 0 ? new WidthCache(capacity) : null);
+	}
+
+	// --Width Cache Statistics--//
+	// D: return the number of getLength() calls answered from/missing the
+	// width cache so far (0 without a cache)
+	public int getWidthCacheHits() {
+		return (widthCache != null ? widthCache.hits : 0);
+	}
+
+	public int getWidthCacheMisses() {
+		return (widthCache != null ? widthCache.misses : 0);
 	}
 
 	// --Get Width/Height of Character--//
@@ -514,6 +1561,10 @@ public class GLText {
 	public float getCharWidth(char chr) {
 		int c = chr - CHAR_START; // Calculate Character Index (Offset by First
 									// Char in Font)
+		if (c < 0) // Control Character (No Glyph)
+			return 0.0f;
+		if (c > CHAR_LAST) // IF Not a Fixed Character
+			c = getGlyph(chr); // Get Cached (or Unknown) Glyph Index
 		return (charWidths[c] * scaleX); // Return Scaled Character Width
 	}
 
@@ -541,33 +1592,36 @@ public class GLText {
 		return (fontHeight * scaleY); // Return Font Height (Actual)
 	}
 
+	// --Get Atlas Occupancy--//
+	// D: return the share of the font texture used by glyphs (0..1)
+	public float getAtlasOccupancy() {
+		return atlasOccupancy;
+	}
+
+	// --Get Uploaded Bytes--//
+	// D: return the total number of vertex/index bytes sent to GL by this
+	// font so far (for measuring the effect of the vertex layout)
+	// A: [none]
+	// R: the total bytes uploaded
+	public long getUploadedBytes() {
+		return batch.vertices.bytesUploaded;
+	}
+
 	// --Draw Font Texture--//
 	// D: draw the entire font texture (NOTE: for testing purposes only)
 	// A: width, height - the width and height of the area to draw to. this is
 	// used to draw the texture to the top-left corner.
 	public void drawTexture(int width, int height) {
+		if (!isLoaded())
+			return;
+		flushFrame();
+		mGLTextProgram.use();
+		GLES20.glUniform2f(mEdgeHandle, 0.0f, 1.0f); // Show Texture as Is
 		// Begin Batch (Bind Texture)
-		float [] colorV = {0.0f, 0.0f, 1.0f, 0.5f};
-		batch.beginBatch(textureId, colorV); 
+		batch.beginBatch(textureId, mTextureColor); 
 		batch.drawSprite(textureSize/2.0f, 0,
 				textureSize, textureSize, textureRgn); // Draw
 		batch.endBatch(); // End Batch
 	}
-
-	// Save bitmap into file
-	// For debug purpose
-	private void saveBitmap(String fileName) {
-		String mFilePath = Environment.getExternalStorageDirectory().toString() + File.separator.toString() + fileName;
-		//write the bytes in file
-		try {
-			FileOutputStream fo = new FileOutputStream(mFilePath);
-			mBitmap.compress(Bitmap.CompressFormat.PNG, 60, fo);
-			fo.flush();
-			fo.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-	}
 	
 }
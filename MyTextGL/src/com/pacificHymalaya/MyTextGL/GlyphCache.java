@@ -0,0 +1,84 @@
+package com.pacificHymalaya.MyTextGL;
+
+// Bookkeeping for the dynamic part of a font atlas: a fixed number of glyph
+// slots, filled on demand with the code points that are actually drawn. The
+// slot of a code point is found through a primitive int map, and the slots
+// are kept in least-recently-used order (see LruList), so a full cache hands
+// out the slot of the glyph that was used longest ago. Rasterization/upload of the glyph is done by GLText.
+class GlyphCache {
+
+	// --Constants--//
+	final static int NONE = -1; // No Slot / No Code Point / End of List
+
+	// --Members--//
+	final int capacity; // Number of Slots
+	final IntIntMap slots; // Code Point -> Slot
+	final int[] codePoints; // Slot -> Code Point (NONE = Free)
+	final LruList lru; // Slots in Least Recently Used Order
+	final int[] stamps; // Batch Stamp of the Last Use of Each Slot
+	int evictions; // Number of Glyphs Evicted So Far
+
+	// --Constructor--//
+	// A: capacity - the number of glyph slots
+	GlyphCache(int capacity) {
+		this.capacity = capacity;
+		this.slots = new IntIntMap(capacity);
+		this.codePoints = new int[capacity];
+		this.lru = new LruList(capacity);
+		this.stamps = new int[capacity];
+		clear();
+	}
+
+	// --Clear--//
+	// D: free all slots
+	void clear() {
+		slots.clear();
+		for (int i = 0; i < capacity; i++) {
+			codePoints[i] = NONE;
+			stamps[i] = NONE;
+		}
+		lru.clear();
+	}
+
+	// --Get--//
+	// D: return the slot holding the specified code point
+	// A: codePoint - the code point to look up
+	// R: the slot, or NONE if the code point is not cached
+	int get(int codePoint) {
+		return slots.get(codePoint, NONE);
+	}
+
+	// --Next Slot--//
+	// D: return the slot the next assign() will use: a free slot if there
+	// is one, else the least recently used slot
+	// R: the slot
+	int nextSlot() {
+		return lru.nextEntry();
+	}
+
+	// --Assign--//
+	// D: assign the next slot (see nextSlot()) to the specified code point,
+	// evicting the glyph previously held by it
+	// A: codePoint - the (uncached) code point
+	// R: the assigned slot (now most recently used)
+	int assign(int codePoint) {
+		boolean evict = lru.isFull();
+		int slot = lru.take();
+		if (evict) { // Evict Least Recently Used
+			slots.remove(codePoints[slot]);
+			evictions++;
+		}
+		codePoints[slot] = codePoint;
+		slots.put(codePoint, slot);
+		return slot;
+	}
+
+	// --Touch--//
+	// D: mark the slot as most recently used
+	// A: slot - the slot used
+	// stamp - the stamp of the batch using it
+	void touch(int slot, int stamp) {
+		stamps[slot] = stamp;
+		lru.touch(slot);
+	}
+}
@@ -0,0 +1,168 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+// GLES 3.0 backend of TextRenderer: instead of 4 vertices and 6 indices per
+// glyph, each glyph is uploaded as one compact instance record (INSTANCE_INTS
+// 32-bit elements: the quad corners x1,y1,x2,y2 as floats, the texture
+// rectangle as 4 normalized shorts and the color as 4 normalized bytes). The
+// vertex shader expands the quad from gl_VertexID (a 4 vertex triangle strip
+// per instance), so there is no index buffer, and a whole bucket is drawn
+// with one glDrawArraysInstanced() call whatever its size.
+//
+// NOTE: requires an OpenGL ES 3.0 context (API 18+); this is the only class
+// referencing GLES30, so it is never loaded on older devices. The attribute
+// setup lives in a vertex array object, so the instancing divisors do not
+// leak into the GLES2 paths.
+class InstancedGlyphBatch {
+
+	// --Constants--//
+	final static int INSTANCE_INTS = 7; // Elements per Glyph Instance
+	final static int INSTANCE_BYTES = INSTANCE_INTS * 4; // Bytes per Instance
+	final static String[] ATTRIBUTES = { "a_rect", "a_texRect", "a_color" };
+
+	final static String VERTEX_SHADER = "#version 300 es\n"
+			+ "uniform mat4 u_mvpMatrix; \n"
+			+ "in vec4 a_rect; \n" + "in vec4 a_texRect; \n"
+			+ "in vec4 a_color; \n" + "out vec2 v_texCoord; \n"
+			+ "out vec4 v_color; \n" + "void main() { \n"
+			// strip order (0,0) (1,0) (0,1) (1,1) = p0 p1 p3 p2 of a sprite
+			+ "  vec2 corner = vec2(float(gl_VertexID & 1),"
+			+ " float(gl_VertexID >> 1)); \n"
+			+ "  v_texCoord = mix(a_texRect.xy, a_texRect.zw, corner); \n"
+			+ "  v_color = a_color; \n"
+			+ "  gl_Position = u_mvpMatrix * vec4(mix(a_rect.xy, a_rect.zw,"
+			+ " corner), 0.0, 1.0); }\n";
+
+	// same output as GLText.mFragmentShader
+	final static String FRAGMENT_SHADER = "#version 300 es\n"
+			+ "precision mediump float; \n"
+			+ "uniform sampler2D s_texture; \n" + "uniform vec2 u_edge; \n"
+			+ "in vec2 v_texCoord; \n" + "in vec4 v_color; \n"
+			+ "out vec4 fragColor; \n" + "void main() { \n"
+			+ "  fragColor.rgb = v_color.rgb; \n"
+			+ "  fragColor.a = clamp((texture(s_texture, v_texCoord).a"
+			+ " - u_edge.x) * u_edge.y, 0.0, 1.0);" + " }\n";
+
+	// --Members--//
+	final ShaderProgram mProgram; // Instanced Program
+	final float[] mMvpMatrix; // Reference to the MVP Matrix
+	final int mMvpMatrixHandle; // u_mvpMatrix Location
+	final int mEdgeHandle; // u_edge Location
+	final int[] vertexArray = new int[1]; // Vertex Array Object
+	final int[] buffer = new int[1]; // Instance Buffer
+	int capacity; // Instances the Buffer (and the Staging Buffer) Can Hold
+	IntBuffer staging; // Client Copy of the Instances (Direct)
+	long bytesUploaded; // Total Instance Bytes Sent to GL
+
+	// --Constructor--//
+	// D: create the backend (requires a current GLES 3.0 context)
+	// A: mvpMatrix - reference to the MVP matrix used for rendering
+	InstancedGlyphBatch(float[] mvpMatrix) {
+		mMvpMatrix = mvpMatrix;
+		int vertexShader = TextGLRenderer.compileShader(
+				GLES20.GL_VERTEX_SHADER, VERTEX_SHADER);
+		int fragmentShader = TextGLRenderer.compileShader(
+				GLES20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
+		mProgram = TextGLRenderer.createAndLinkProgram(vertexShader,
+				fragmentShader, ATTRIBUTES, GLText.TEXT_UNIFORMS);
+		mMvpMatrixHandle = mProgram.getUniformLocation("u_mvpMatrix");
+		mEdgeHandle = mProgram.getUniformLocation("u_edge");
+		mProgram.use();
+		GLES20.glUniform1i(mProgram.getUniformLocation("s_texture"), 0);
+
+		// the vertex array object keeps the instanced attribute setup
+		GLES30.glGenVertexArrays(1, vertexArray, 0);
+		GLES20.glGenBuffers(1, buffer, 0);
+		GLES30.glBindVertexArray(vertexArray[0]);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer[0]);
+		// attribute locations are bound at link time (order of ATTRIBUTES)
+		GLES20.glVertexAttribPointer(0, 4, GLES20.GL_FLOAT, false,
+				INSTANCE_BYTES, 0);
+		GLES20.glVertexAttribPointer(1, 4, GLES20.GL_UNSIGNED_SHORT, true,
+				INSTANCE_BYTES, 4 * 4);
+		GLES20.glVertexAttribPointer(2, 4, GLES20.GL_UNSIGNED_BYTE, true,
+				INSTANCE_BYTES, 6 * 4);
+		for (int i = 0; i < ATTRIBUTES.length; i++) {
+			GLES20.glEnableVertexAttribArray(i);
+			GLES30.glVertexAttribDivisor(i, 1); // One Value per Instance
+		}
+		GLES30.glBindVertexArray(0);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+	}
+
+	// --Convert--//
+	// D: convert sprites in compact vertex layout (see
+	// SpriteBatch.drawSpriteCompact()) to instance records
+	// A: src - the compact sprites
+	// srcOffset - offset of the first sprite in src
+	// dst - the instance records
+	// dstOffset - offset of the first record in dst
+	// count - the number of sprites
+	// R: [none]
+	static void convert(int[] src, int srcOffset, int[] dst, int dstOffset,
+			int count) {
+		for (int n = 0; n < count; n++) {
+			int s = srcOffset + n * TextRenderer.SPRITE_INTS;
+			int d = dstOffset + n * INSTANCE_INTS;
+			dst[d] = src[s]; // x1 (p0)
+			dst[d + 1] = src[s + 1]; // y1 (p0)
+			dst[d + 2] = src[s + 8]; // x2 (p2)
+			dst[d + 3] = src[s + 9]; // y2 (p2)
+			dst[d + 4] = src[s + 3]; // u1,v2 (p0)
+			dst[d + 5] = src[s + 11]; // u2,v1 (p2)
+			dst[d + 6] = src[s + 2]; // color
+		}
+	}
+
+	// --Draw--//
+	// D: upload and draw instance records with one draw call (the caller sets
+	// the program's u_edge and binds nothing else)
+	// NOTE: like batches, draws without depth testing (see GLState)
+	// A: data - the instance records
+	// count - the number of records
+	// textureId - the font texture
+	// edgeStart, edgeScale - the u_edge values
+	// R: [none]
+	void draw(int[] data, int count, int textureId, float edgeStart,
+			float edgeScale) {
+		if (count == 0)
+			return;
+		boolean depthTest = GLState.overrideDepthTest(false);
+		mProgram.use();
+		GLES20.glUniformMatrix4fv(mMvpMatrixHandle, 1, false, mMvpMatrix, 0);
+		GLES20.glUniform2f(mEdgeHandle, edgeStart, edgeScale);
+		GLState.bindTexture(textureId);
+
+		int length = count * INSTANCE_INTS;
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer[0]);
+		if (count > capacity) { // Grow (Kept for Next Frames)
+			capacity = Math.max(count, capacity * 2);
+			staging = ByteBuffer.allocateDirect(capacity * INSTANCE_BYTES)
+					.order(ByteOrder.nativeOrder()).asIntBuffer();
+		}
+		// orphan the previous storage (see Vertices.bind()), then upload
+		GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, capacity * INSTANCE_BYTES,
+				null, GLES20.GL_STREAM_DRAW);
+		staging.clear();
+		staging.put(data, 0, length);
+		staging.position(0);
+		GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, length * 4, staging);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+		bytesUploaded += length * 4;
+
+		GLES30.glBindVertexArray(vertexArray[0]);
+		GLES30.glDrawArraysInstanced(GLES30.GL_TRIANGLE_STRIP, 0, 4, count);
+		GLES30.glBindVertexArray(0);
+		GLState.restoreDepthTest(depthTest);
+		if (RenderMetrics.ENABLED) {
+			RenderMetrics.add(RenderMetrics.DRAW_CALLS, 1);
+			RenderMetrics.add(RenderMetrics.BYTES_UPLOADED, length * 4);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.pacificHymalaya.MyTextGL;
+
+// Minimal open addressing hash map from int keys to int values. Keys and
+// values are kept in plain int arrays (linear probing), so lookups neither
+// box nor allocate. Removal uses backward shifting, so no tombstones build
+// up under constant insert/remove traffic (eg. an LRU cache).
+class IntIntMap {
+
+	// --Constants--//
+	final static int EMPTY = Integer.MIN_VALUE; // Marks an Unused Key Slot
+
+	// --Members--//
+	int[] keys; // Key Table (EMPTY = Unused)
+	int[] values; // Value Table
+	int mask; // Table Size - 1 (Table Size is a Power of Two)
+	int size; // Number of Entries
+
+	// --Constructor--//
+	// D: create a map able to hold the specified number of entries without
+	// growing (the table is kept at most half full)
+	// A: capacity - expected maximum number of entries
+	public IntIntMap(int capacity) {
+		int tableSize = 4;
+		while (tableSize < capacity * 2)
+			tableSize <<= 1;
+		allocate(tableSize);
+	}
+
+	private void allocate(int tableSize) {
+		keys = new int[tableSize];
+		values = new int[tableSize];
+		mask = tableSize - 1;
+		size = 0;
+		for (int i = 0; i < tableSize; i++)
+			keys[i] = EMPTY;
+	}
+
+	// spread the key bits, code points are mostly small and sequential
+	private int slot(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	// --Get--//
+	// D: return the value of the specified key
+	// A: key - the key (must not be EMPTY)
+	// missing - value to return if the key is not in the map
+	// R: the value, or 'missing'
+	public int get(int key, int missing) {
+		int i = slot(key);
+		int k;
+		while ((k = keys[i]) != EMPTY) {
+			if (k == key)
+				return values[i];
+			i = (i + 1) & mask;
+		}
+		return missing;
+	}
+
+	// --Put--//
+	// D: set the value of the specified key (adding the key if required)
+	// A: key - the key (must not be EMPTY)
+	// value - the value
+	// R: [none]
+	public void put(int key, int value) {
+		int i = slot(key);
+		int k;
+		while ((k = keys[i]) != EMPTY) {
+			if (k == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 > keys.length)
+			grow();
+	}
+
+	// --Remove--//
+	// D: remove the specified key (if present)
+	// A: key - the key to remove
+	// R: [none]
+	public void remove(int key) {
+		int i = slot(key);
+		int k;
+		while ((k = keys[i]) != key) {
+			if (k == EMPTY)
+				return; // Not Present
+			i = (i + 1) & mask;
+		}
+		// shift following entries of the probe chain back into the hole
+		int hole = i;
+		i = (i + 1) & mask;
+		while ((k = keys[i]) != EMPTY) {
+			int home = slot(k);
+			// move the entry if its home is not within (hole, i]
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				keys[hole] = k;
+				values[hole] = values[i];
+				hole = i;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[hole] = EMPTY;
+		size--;
+	}
+
+	// --Clear--//
+	public void clear() {
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = EMPTY;
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldKeys[i] != EMPTY)
+				put(oldKeys[i], oldValues[i]);
+	}
+}
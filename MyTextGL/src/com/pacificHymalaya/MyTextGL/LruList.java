@@ -0,0 +1,94 @@
+package com.pacificHymalaya.MyTextGL;
+
+// Least-recently-used order of a fixed number of entries (0 .. capacity - 1),
+// as an intrusive doubly linked list over int arrays: entries are handed out
+// in order while free ones are left, then the entry used longest ago is
+// reused. The entries' contents live in the owner's own arrays (see
+// GlyphCache and WidthCache), which drop the old contents of a reused entry.
+class LruList {
+
+	// --Constants--//
+	final static int NONE = -1; // End of List
+
+	// --Members--//
+	final int capacity; // Number of Entries
+	final int[] prev, next; // List Links (Towards Head/Tail)
+	int head, tail; // Most/Least Recently Used Entry
+	int used; // Number of Entries in Use
+
+	// --Constructor--//
+	// A: capacity - the number of entries
+	LruList(int capacity) {
+		this.capacity = capacity;
+		this.prev = new int[capacity];
+		this.next = new int[capacity];
+		clear();
+	}
+
+	// --Clear--//
+	// D: free all entries
+	void clear() {
+		head = tail = NONE;
+		used = 0;
+	}
+
+	boolean isFull() {
+		return used == capacity;
+	}
+
+	// --Next Entry--//
+	// D: return the entry the next take() will return: a free entry if
+	// there is one, else the least recently used entry
+	// R: the entry
+	int nextEntry() {
+		return (used < capacity ? used : tail);
+	}
+
+	// --Take--//
+	// D: take the next entry (see nextEntry()) and make it most recently
+	// used; if the list was full, the caller drops the entry's old contents
+	// R: the entry
+	int take() {
+		int e;
+		if (used < capacity) // Free Entry Left
+			e = used++;
+		else { // Reuse Least Recently Used
+			e = tail;
+			unlink(e);
+		}
+		linkHead(e);
+		return e;
+	}
+
+	// --Touch--//
+	// D: mark an entry as most recently used
+	// A: e - the entry used
+	void touch(int e) {
+		if (head != e) {
+			unlink(e);
+			linkHead(e);
+		}
+	}
+
+	private void unlink(int e) {
+		int p = prev[e], n = next[e];
+		if (p != NONE)
+			next[p] = n;
+		else
+			head = n;
+		if (n != NONE)
+			prev[n] = p;
+		else
+			tail = p;
+	}
+
+	private void linkHead(int e) {
+		prev[e] = NONE;
+		next[e] = head;
+		if (head != NONE)
+			prev[head] = e;
+		head = e;
+		if (tail == NONE)
+			tail = e;
+	}
+}
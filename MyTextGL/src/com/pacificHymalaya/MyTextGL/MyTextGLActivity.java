@@ -6,6 +6,7 @@ import android.app.ActivityManager;
 import android.content.Context;
 import android.content.pm.ConfigurationInfo;
 import android.opengl.GLSurfaceView;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Vibrator;
 import android.util.Log;
@@ -58,7 +59,13 @@ public class MyTextGLActivity extends Activity {
 		public MyTextGLSurfaceView(Context context) {
 			super(context);
 
-			setEGLContextClientVersion(2);
+			// prefer an OpenGL ES 3.0 context (instanced text rendering, see
+			// TextGLRenderer.onSurfaceCreated()), fall back to 2.0
+			final ActivityManager activityManager = (ActivityManager) context
+					.getSystemService(Context.ACTIVITY_SERVICE);
+			final boolean supportsEs3 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+					&& activityManager.getDeviceConfigurationInfo().reqGlEsVersion >= 0x30000;
+			setEGLContextClientVersion(supportsEs3 ? 3 : 2);
 			// Set the Renderer for drawing on the GLSurfaceView
 			mTextGLRenderer = new TextGLRenderer(context);
 			setRenderer(mTextGLRenderer);
@@ -66,5 +73,11 @@ public class MyTextGLActivity extends Activity {
 
 		}
 
+		@Override
+		public void onPause() {
+			mTextGLRenderer.stopWorker(); // Restarted with the Surface
+			super.onPause();
+		}
+
 		
 	}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.Arrays;
+
+// Per frame rendering metrics of the text renderer: draw calls, batch
+// flushes, glyphs batched and culled, bytes uploaded, time spent laying out
+// and submitting text, and the atlas occupancy. The hot paths accumulate
+// into plain primitive counters; endFrame() snapshots them into a rolling
+// window of the last HISTORY_FRAMES frames, from which averages, percentiles
+// and histograms are exported.
+//
+// NOTE: every call site is guarded by the compile time constant ENABLED, so
+// when it is false (the default; set it to true in profiling builds) the
+// instrumentation (including the clock reads) is compiled out entirely. GL
+// thread only (like GLState).
+public class RenderMetrics {
+
+	// --Constants--//
+	public final static boolean ENABLED = false; // Collect Metrics At All
+	public final static int HISTORY_FRAMES = 120; // Rolling Window (Frames)
+
+	// Metrics (Indices into the Counters)
+	public final static int DRAW_CALLS = 0; // glDrawElements/glDrawArrays
+	public final static int FLUSHES = 1; // Non-Empty Batch Flushes
+	public final static int GLYPHS = 2; // Glyphs Batched by GLText.draw()
+	public final static int CULLED_GLYPHS = 3; // Glyphs Culled (see setClip())
+	public final static int BYTES_UPLOADED = 4; // Vertex/Index/Texture Bytes
+	public final static int LAYOUT_NS = 5; // Laying Out Glyph Quads (ns)
+	public final static int SUBMIT_NS = 6; // Submitting Batches to GL (ns)
+	public final static int ATLAS_OCCUPANCY = 7; // All Loaded Atlases (Permille)
+	public final static int COUNT = 8; // Number of Metrics
+	private final static String[] NAMES = { "draw calls", "flushes", "glyphs",
+			"culled glyphs", "bytes uploaded", "layout ns", "submit ns",
+			"atlas occupancy" };
+
+	// --Members--//
+	private final static long[] counters = new long[COUNT]; // Current Frame
+	// Rolling window: history[metric][frame % HISTORY_FRAMES]
+	private final static long[][] history = new long[COUNT][HISTORY_FRAMES];
+	private static int frames; // Frames Snapshotted So Far
+	private final static long[] sorted = new long[HISTORY_FRAMES]; // Scratch
+	private static long atlasUsed, atlasTexels; // Texels of Loaded Atlases
+
+	// --Accumulate--//
+	// D: add to a counter of the current frame / set a gauge (kept across
+	// frames, eg. ATLAS_OCCUPANCY)
+	// A: metric - the metric (eg. DRAW_CALLS)
+	// value - the value to add/set
+	// R: [none]
+	public static void add(int metric, long value) {
+		counters[metric] += value;
+	}
+
+	public static void set(int metric, long value) {
+		counters[metric] = value;
+	}
+
+	// --Add Atlas--//
+	// D: account the texels of a loaded font atlas in ATLAS_OCCUPANCY (the
+	// share used over all loaded atlases); a font replacing its atlas
+	// subtracts the previous one
+	// A: used - the texels used by glyphs (negative: removed)
+	// texels - the texels of the atlas (negative: removed)
+	// R: [none]
+	public static void addAtlas(long used, long texels) {
+		atlasUsed += used;
+		atlasTexels += texels;
+		counters[ATLAS_OCCUPANCY] = (atlasTexels > 0 ? Math.round(atlasUsed
+				* 1000.0 / atlasTexels) : 0);
+	}
+
+	// --End Frame--//
+	// D: snapshot the counters of the current frame into the rolling window
+	// and reset them (call once per frame)
+	// A: [none]
+	// R: [none]
+	public static void endFrame() {
+		int slot = frames % HISTORY_FRAMES;
+		for (int m = 0; m < COUNT; m++) {
+			history[m][slot] = counters[m];
+			if (m != ATLAS_OCCUPANCY) // Gauges Keep Their Value
+				counters[m] = 0;
+		}
+		frames++;
+	}
+
+	// --Get Last/Average/Percentile--//
+	// D: return a metric of the last frame, or over the rolling window
+	// A: metric - the metric (eg. DRAW_CALLS)
+	// percentile - the percentile (0..100)
+	// R: the value (0 before the first snapshot)
+	public static long getLast(int metric) {
+		return (frames > 0 ? history[metric][(frames - 1) % HISTORY_FRAMES]
+				: 0);
+	}
+
+	public static long getAverage(int metric) {
+		int n = Math.min(frames, HISTORY_FRAMES);
+		long sum = 0;
+		for (int i = 0; i < n; i++)
+			sum += history[metric][i];
+		return (n > 0 ? sum / n : 0);
+	}
+
+	public static long getPercentile(int metric, int percentile) {
+		int n = Math.min(frames, HISTORY_FRAMES);
+		if (n == 0)
+			return 0;
+		System.arraycopy(history[metric], 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n); // In Place (No Allocation)
+		return sorted[Math.min(n - 1, n * percentile / 100)];
+	}
+
+	// --Histogram--//
+	// D: count the frames of the rolling window per value range
+	// A: metric - the metric (eg. LAYOUT_NS)
+	// bounds - the upper bounds of the first bounds.length ranges (ascending)
+	// counts - receives the frame counts (bounds.length + 1 entries; the
+	// last counts the frames above all bounds)
+	// R: [none]
+	public static void histogram(int metric, long[] bounds, int[] counts) {
+		Arrays.fill(counts, 0, bounds.length + 1, 0);
+		int n = Math.min(frames, HISTORY_FRAMES);
+		for (int i = 0; i < n; i++) {
+			long value = history[metric][i];
+			int b = 0;
+			while (b < bounds.length && value > bounds[b])
+				b++;
+			counts[b]++;
+		}
+	}
+
+	// --Export--//
+	// D: append a summary (last, average, p50, p95 and maximum over the
+	// rolling window) of all metrics, one line per metric
+	// A: out - the builder to append to
+	// R: the builder
+	public static StringBuilder export(StringBuilder out) {
+		for (int m = 0; m < COUNT; m++)
+			out.append(NAMES[m]).append(": last ").append(getLast(m))
+					.append(", avg ").append(getAverage(m)).append(", p50 ")
+					.append(getPercentile(m, 50)).append(", p95 ")
+					.append(getPercentile(m, 95)).append(", max ")
+					.append(getPercentile(m, 100)).append('\n');
+		return out;
+	}
+}
@@ -0,0 +1,65 @@
+package com.pacificHymalaya.MyTextGL;
+
+import android.opengl.GLES20;
+
+// A linked GL program together with its attribute and uniform locations.
+// The locations are resolved once, right after linking (see
+// TextGLRenderer.createAndLinkProgram), so nothing has to be looked up by
+// name while rendering.
+public class ShaderProgram {
+
+	// --Members--//
+	public final int handle; // Handle to the Linked Program
+	final String[] attributes; // Attribute Names (Bound to Index 0..n-1)
+	final String[] uniforms; // Uniform Names
+	final int[] attributeLocations; // Location of Each Attribute (-1 = Unused)
+	final int[] uniformLocations; // Location of Each Uniform (-1 = Unused)
+
+	// --Constructor--//
+	// D: wrap an already linked program and resolve the specified locations
+	// NOTE: must be called on the GL thread
+	// A: handle - the handle of the linked program
+	// attributes - the attribute names used by the program
+	// uniforms - the uniform names used by the program
+	public ShaderProgram(int handle, String[] attributes, String[] uniforms) {
+		this.handle = handle;
+		this.attributes = attributes;
+		this.uniforms = uniforms;
+		this.attributeLocations = new int[attributes.length];
+		this.uniformLocations = new int[uniforms.length];
+		for (int i = 0; i < attributes.length; i++)
+			attributeLocations[i] = GLES20.glGetAttribLocation(handle,
+					attributes[i]);
+		for (int i = 0; i < uniforms.length; i++)
+			uniformLocations[i] = GLES20.glGetUniformLocation(handle,
+					uniforms[i]);
+	}
+
+	// --Get Locations--//
+	// D: return the (cached) location of the specified attribute/uniform
+	// NOTE: meant for setup code; keep the result instead of calling this
+	// per draw
+	// A: name - the attribute/uniform name
+	// R: the location, or -1 if the name is unknown or unused by the program
+	public int getAttribLocation(String name) {
+		for (int i = 0; i < attributes.length; i++)
+			if (attributes[i].equals(name))
+				return attributeLocations[i];
+		return -1;
+	}
+
+	public int getUniformLocation(String name) {
+		for (int i = 0; i < uniforms.length; i++)
+			if (uniforms[i].equals(name))
+				return uniformLocations[i];
+		return -1;
+	}
+
+	// --Use--//
+	// D: make this the current program (skipped if it already is)
+	// A: [none]
+	// R: [none]
+	public void use() {
+		GLState.useProgram(handle);
+	}
+}
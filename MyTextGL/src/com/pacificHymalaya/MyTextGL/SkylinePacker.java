@@ -0,0 +1,135 @@
+package com.pacificHymalaya.MyTextGL;
+
+// Skyline (bottom-left) rectangle packer used to build font atlases. The top
+// edge of the packed area is kept as a list of horizontal segments; each
+// rectangle is placed where it ends up lowest (ties: narrowest segment span),
+// which wastes far less space than fixed cells when the rectangles differ in
+// width. Feed the rectangles in order of decreasing height for best results.
+class SkylinePacker {
+
+	// --Members--//
+	final int width, height; // Size of the Packing Area (Pixels)
+	int[] segX, segY, segW; // Skyline Segments (Left, Top, Width)
+	int segCnt; // Number of Segments
+	int usedArea; // Total Area of the Packed Rectangles
+	int packedX, packedY; // Position of the Last Packed Rectangle
+
+	// --Constructor--//
+	// A: width, height - the size of the area to pack into (pixels)
+	SkylinePacker(int width, int height) {
+		this.width = width;
+		this.height = height;
+		segX = new int[16];
+		segY = new int[16];
+		segW = new int[16];
+		segX[0] = 0; // One Segment Covering the Empty Area
+		segY[0] = 0;
+		segW[0] = width;
+		segCnt = 1;
+	}
+
+	// --Pack--//
+	// D: find a place for a rectangle and reserve it
+	// A: w, h - the size of the rectangle (pixels)
+	// R: true if the rectangle was placed (see packedX/packedY), false if it
+	// does not fit
+	boolean pack(int w, int h) {
+		int bestSeg = -1, bestY = Integer.MAX_VALUE, bestSpan = Integer.MAX_VALUE;
+		for (int i = 0; i < segCnt; i++) { // FOR Each Candidate Left Edge
+			if (segX[i] + w > width)
+				break; // Remaining Segments Start Further Right
+			// the rectangle rests on the highest segment it spans
+			int y = 0, span = 0, j = i;
+			while (span < w) {
+				if (segY[j] > y)
+					y = segY[j];
+				span += segW[j];
+				j++;
+			}
+			if (y + h > height)
+				continue;
+			if (y < bestY || (y == bestY && span < bestSpan)) {
+				bestSeg = i;
+				bestY = y;
+				bestSpan = span;
+			}
+		}
+		if (bestSeg < 0)
+			return false;
+
+		packedX = segX[bestSeg];
+		packedY = bestY;
+		usedArea += w * h;
+		addSegment(bestSeg, packedX, bestY + h, w);
+		return true;
+	}
+
+	// replace the skyline under [x, x + w) with a single segment at height y
+	private void addSegment(int index, int x, int y, int w) {
+		// count the segments fully covered, and trim a partially covered one
+		int end = x + w;
+		int j = index;
+		while (j < segCnt && segX[j] + segW[j] <= end)
+			j++;
+		if (j < segCnt && segX[j] < end) {
+			segW[j] -= end - segX[j];
+			segX[j] = end;
+		}
+		int removed = j - index; // Segments Replaced by the New One
+		if (removed == 0) { // Insert (Grow Arrays if Required)
+			if (segCnt == segX.length) {
+				segX = grow(segX);
+				segY = grow(segY);
+				segW = grow(segW);
+			}
+			System.arraycopy(segX, index, segX, index + 1, segCnt - index);
+			System.arraycopy(segY, index, segY, index + 1, segCnt - index);
+			System.arraycopy(segW, index, segW, index + 1, segCnt - index);
+			segCnt++;
+		} else if (removed > 1) { // Collapse into One Segment
+			System.arraycopy(segX, j, segX, index + 1, segCnt - j);
+			System.arraycopy(segY, j, segY, index + 1, segCnt - j);
+			System.arraycopy(segW, j, segW, index + 1, segCnt - j);
+			segCnt -= removed - 1;
+		}
+		segX[index] = x;
+		segY[index] = y;
+		segW[index] = w;
+
+		// merge neighbours at the same height
+		int i = Math.max(index - 1, 0);
+		int last = Math.min(index + 1, segCnt - 1);
+		while (i < last) {
+			if (segY[i] == segY[i + 1]) {
+				segW[i] += segW[i + 1];
+				System.arraycopy(segX, i + 2, segX, i + 1, segCnt - i - 2);
+				System.arraycopy(segY, i + 2, segY, i + 1, segCnt - i - 2);
+				System.arraycopy(segW, i + 2, segW, i + 1, segCnt - i - 2);
+				segCnt--;
+				last--;
+			} else
+				i++;
+		}
+	}
+
+	private static int[] grow(int[] array) {
+		int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	// --Occupancy--//
+	// D: return the fraction of the area covered by packed rectangles
+	float getOccupancy() {
+		return (float) usedArea / ((float) width * height);
+	}
+
+	// D: return the height actually used (top of the highest segment)
+	int getUsedHeight() {
+		int h = 0;
+		for (int i = 0; i < segCnt; i++)
+			if (segY[i] > h)
+				h = segY[i];
+		return h;
+	}
+}
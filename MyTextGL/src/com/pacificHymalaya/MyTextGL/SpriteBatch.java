@@ -1,60 +1,105 @@
 package com.pacificHymalaya.MyTextGL;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
-import android.util.FloatMath;
 import android.opengl.GLES20;
-import javax.microedition.khronos.opengles.GL10;
-import android.util.Log;
 
 public class SpriteBatch {
 
 	final private static String TAG ="SpriteBatch";  
    //--Constants--//
    final static int VERTEX_SIZE = 9;                  // Vertex Size (in Components) ie. (X,Y,Z, U,V,R,B,G,A)
+   // Compact Vertex Size (in 32-bit Elements) ie. (X,Y, RGBA as Bytes, UV as Shorts)
+   final static int COMPACT_VERTEX_SIZE = 4;
    final static int VERTICES_PER_SPRITE = 4;      // Vertices Per Sprite
    final static int INDICES_PER_SPRITE = 6;        // Indices Per Sprite
+   // Largest Capacity (Sprites) Addressable by Unsigned Short Indices
+   final static int MAX_SPRITES = 65536 / VERTICES_PER_SPRITE - 1;
+   final static int SHRINK_FLUSHES = 1000;          // Flushes Observed Before Shrinking
 
    //--Members--//
    Vertices vertices;                                      // Vertices Instance Used for Rendering
-   float[] vertexBuffer;                                  // Vertex Buffer
-   float[] posBuffer;								      // Vertex position buffer
-   float[] colorBuffer; 							          // Vertex color buffer
-   float[] textureCoordBuffer;						  // Vertex texture coordinate buffer
-   int posIndex;
-   int colorIndex;
-   int textureIndex;
+   final boolean compact;                                 // Use Compact Vertex Layout
+   // NOTE: sprites are written straight into the direct buffer of 'vertices',
+   //       there is no intermediate array and nothing is allocated per flush
+   FloatBuffer vertexBuffer;                              // Vertex Buffer (Float Layout)
+   IntBuffer packedBuffer;                                // Vertex Buffer (Compact Layout)
    int bufferIndex;                                        // Vertex Buffer Start Index
-   int maxSprites;                                        // Maximum Sprites Allowed in Buffer
+   int maxSprites;                                        // Maximum Sprites Allowed in Buffer (Current Capacity)
    int numSprites;                                        // Number of Sprites Currently in Buffer
+   int flushCount;                                        // Number of Batches Rendered So Far
+   // NOTE: the capacity grows on demand (instead of flushing mid batch) up to
+   //       capacityLimit, and shrinks back towards minSprites when the
+   //       batches of the last SHRINK_FLUSHES flushes stayed small
+   final int minSprites;                                  // Initial (and Smallest) Capacity
+   int capacityLimit = MAX_SPRITES;                       // Largest Capacity
+   int peakSprites;                                       // Largest Batch (Current Shrink Window)
+   int windowFlushes;                                     // Flushes in the Current Shrink Window
+   int resizeCount;                                       // Number of Capacity Changes So Far
+   long peakBytes;                                        // Largest Vertex+Index Storage (Bytes)
    
    
 
    float[] colorV; // color vector, RGBA
    float[] mMvpMatrix; //mvp matrix
-   int mVertexProgramHandle; //program handler
+   ShaderProgram mProgram; //program (with resolved locations)
    int mTextureId;
    
    //--Constructor--//
    // D: prepare the sprite batcher for specified maximum number of sprites
-   // A: maxSprites - the maximum allowed sprites per batch
+   // A: maxSprites - the initial number of sprites per batch (grown on demand,
+   //                 see setCapacityLimit())
    //     programHandle - handle of the compiled and linked gl program
+   //                     (or the program with its locations already resolved)
    //     mvpMatrix - reference to the MVP matrix
+   //     compact - (false, default) 9 floats per vertex (36 bytes)
+   //               (true) 2D position, byte color, short uv (16 bytes)
    public SpriteBatch( int maxSprites, int programHandle, float [] mvpMatrix)  {
-	  this.mVertexProgramHandle = programHandle;
+      this( maxSprites, programHandle, mvpMatrix, false );
+   }
+
+   public SpriteBatch( int maxSprites, int programHandle, float [] mvpMatrix, boolean compact)  {
+      this( maxSprites, new ShaderProgram( programHandle, Vertices.ATTRIBUTES, Vertices.UNIFORMS ), mvpMatrix, compact );
+   }
+
+   public SpriteBatch( int maxSprites, ShaderProgram program, float [] mvpMatrix, boolean compact)  {
+	  this.mProgram = program;
 	  this.mMvpMatrix = mvpMatrix;
-      this.vertexBuffer = new float[maxSprites * VERTICES_PER_SPRITE * VERTEX_SIZE];  // Create Vertex Buffer
-      this.posBuffer = new float[maxSprites * INDICES_PER_SPRITE * 3];
-      this.colorBuffer = new float[maxSprites * INDICES_PER_SPRITE *4];
-      this.textureCoordBuffer= new float [maxSprites * INDICES_PER_SPRITE * 2];
-      this.vertices = new Vertices( programHandle, mvpMatrix, maxSprites * VERTICES_PER_SPRITE, maxSprites * INDICES_PER_SPRITE, true, true, false );  // Create Rendering Vertices
+	  this.compact = compact;
+      if ( maxSprites < 1 || maxSprites > MAX_SPRITES )
+         throw new RuntimeException( "Invalid batch size: " + maxSprites );
+      this.minSprites = maxSprites;                    // Save Initial Capacity
       this.bufferIndex = 0;                            // Reset Buffer Index
-      this.maxSprites = maxSprites;             // Save Maximum Sprites
       this.numSprites = 0;                            // Clear Sprite Counter
+      setCapacity( maxSprites );                       // Create Rendering Vertices
+   }
 
-      short[] indices = new short[maxSprites * INDICES_PER_SPRITE];  // Create Temp Index Buffer
+   //--Set Capacity--//
+   // D: (re)create the vertex/index storage for the specified number of sprites,
+   //    keeping the sprites batched so far (and the upload statistics)
+   // A: sprites - the new capacity (at least numSprites)
+   // R: [none]
+   private void setCapacity(int sprites)  {
+      Vertices old = this.vertices;
+      this.vertices = new Vertices( mProgram, mMvpMatrix, sprites * VERTICES_PER_SPRITE, sprites * INDICES_PER_SPRITE, true, true, false, !compact, compact );  // Create Rendering Vertices
+      if ( old != null )  {                            // IF Resizing
+         old.intVertices.clear();                      // Copy the Batched Sprites
+         old.intVertices.limit( bufferIndex );
+         vertices.intVertices.put( old.intVertices );
+         vertices.bytesUploaded = old.bytesUploaded;   // Keep Statistics
+         vertices.setTextureId( mTextureId );
+         vertices.setUseBufferObjects( old.useBufferObjects );  // Keep the Render Path
+         old.release();                                // Free the Old GPU Buffers
+         resizeCount++;
+      }
+      this.vertexBuffer = vertices.vertices;           // Write Directly to the Vertices
+      this.packedBuffer = vertices.intVertices;        // (Same Storage, Raw Elements)
+      this.maxSprites = sprites;                       // Save Maximum Sprites
+      peakBytes = Math.max( peakBytes, (long)sprites * ( VERTICES_PER_SPRITE * vertices.vertexSize
+            + INDICES_PER_SPRITE * Vertices.INDEX_SIZE ) );
+
+      short[] indices = new short[sprites * INDICES_PER_SPRITE];  // Create Temp Index Buffer
       int len = indices.length;                 // Get Index Buffer Length
       short j = 0;                                    // Counter
     // FOR Each Index Set (Per Sprite)
@@ -69,6 +114,52 @@ public class SpriteBatch {
       vertices.setIndices( indices, 0, len );         // Set Index Buffer for Rendering
    }
 
+   //--Reserve--//
+   // D: grow the capacity (up to the capacity limit) so that the specified number
+   //    of sprites fits into one batch
+   // A: sprites - the number of sprites (in total, including those already batched)
+   // R: true if they fit, false if the batch has to be flushed in between
+   boolean reserve(int sprites)  {
+      if ( sprites <= maxSprites )
+         return true;
+      if ( maxSprites >= capacityLimit )
+         return false;
+      int grown = maxSprites;
+      while ( grown < sprites )                        // Double (Amortized Growth)
+         grown *= 2;
+      setCapacity( Math.min( grown, capacityLimit ) );
+      return ( sprites <= maxSprites );
+   }
+
+   //--Set Capacity Limit--//
+   // D: set the largest capacity the batch may grow to (the initial capacity
+   //    disables growing; default: MAX_SPRITES)
+   // A: sprites - the limit (between the initial capacity and MAX_SPRITES)
+   // R: [none]
+   public void setCapacityLimit(int sprites)  {
+      capacityLimit = Math.max( minSprites, Math.min( sprites, MAX_SPRITES ) );
+   }
+
+   //--Statistics--//
+   // D: return the current capacity (sprites), the number of batches rendered,
+   //    the number of capacity changes and the largest vertex+index storage
+   //    allocated so far (bytes)
+   public int getCapacity()  {
+      return maxSprites;
+   }
+
+   public int getFlushCount()  {
+      return flushCount;
+   }
+
+   public int getResizeCount()  {
+      return resizeCount;
+   }
+
+   public long getPeakBytes()  {
+      return peakBytes;
+   }
+
    //--Begin Batch--//
    // D: signal the start of a batch. set the texture and clear buffer
    // NOTE: the overloaded (non-texture) version assumes that the texture is already bound!
@@ -84,113 +175,69 @@ public class SpriteBatch {
       this.colorV = colorV;							 //point to current color vector
       this.vertices.setTextureId(textureId);
       this.mTextureId = textureId;
-      
-      posIndex = 0;
-      textureIndex = 0;
-      colorIndex = 0;
    }
    
 
    //--End Batch--//
    // D: signal the end of a batch. render the batched sprites
+   // NOTE: depth testing is disabled for the draw, then restored (see
+   //       GLState.setRestoreDepthTest())
    // A: [none]
+   //    NOTE: the batch is emptied afterwards (and flushCount advanced), so more
+   //          sprites may be added and rendered with the same texture/color
    // R: [none]
    public void endBatch()  {
 	// IF Any Sprites to Render
       if ( numSprites > 0 )  {
-  		GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+         long start = ( RenderMetrics.ENABLED ? System.nanoTime() : 0 );
+  		boolean depthTest = GLState.overrideDepthTest( false );  // Skipped if Already Disabled
   		  //To debug, turned off either element or array method
   		 //element method (faster) with interlaced vertices, color, texture coordinates
-  		 // Set Vertices from Buffer
-         vertices.setVertices( vertexBuffer, 0, bufferIndex );  
+  		 // Use the Vertices Written to the Buffer
+         vertices.commitVertices( bufferIndex );
          vertices.bind();                             // Bind Vertices
          vertices.draw( GLES20.GL_TRIANGLES, 0, numSprites * INDICES_PER_SPRITE );  // Render Batched Sprites
          vertices.unbind();                           // Unbind Vertices
-         
-         //drawArray method
-         //draw();
- 		GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+         GLState.restoreDepthTest( depthTest );       // Caller's Depth Test State
+         peakSprites = Math.max( peakSprites, numSprites );
+         numSprites = 0;                              // Empty Sprite Counter
+         bufferIndex = 0;                             // Reset Buffer Index (Empty)
+         flushCount++;                                // Rendered Sprites May Now Change
+         if ( RenderMetrics.ENABLED )  {
+            RenderMetrics.add( RenderMetrics.FLUSHES, 1 );
+            RenderMetrics.add( RenderMetrics.SUBMIT_NS, System.nanoTime() - start );
+         }
+         if ( ++windowFlushes == SHRINK_FLUSHES )     // Shrink After Sustained Low Use
+            shrink();
       }
    }
 
-   public void draw() {
-		/** How many bytes per float. */
-		int mBytesPerFloat = 4;
-		FloatBuffer mPositions;
-		FloatBuffer mColors;
-		FloatBuffer mTextureCoordinates;
-		int mvpMatrixHandle;
-		int vertexPositionHandle;
-		int vertexColorHandle;
-		int textureCoordHandle;
-		int textureUniformHandle;
-		
-		mPositions = ByteBuffer
-				.allocateDirect(maxSprites * INDICES_PER_SPRITE * 3 * mBytesPerFloat)
-				.order(ByteOrder.nativeOrder()).asFloatBuffer();
-		mPositions.put(posBuffer).position(0);
-		
-		mColors = ByteBuffer
-				.allocateDirect(maxSprites * INDICES_PER_SPRITE * 4  * mBytesPerFloat)
-				.order(ByteOrder.nativeOrder()).asFloatBuffer();
-		mColors.put(colorBuffer).position(0);
-		
-		mTextureCoordinates = ByteBuffer
-				.allocateDirect(
-						maxSprites * INDICES_PER_SPRITE * 2  * mBytesPerFloat)
-				.order(ByteOrder.nativeOrder()).asFloatBuffer();
-		mTextureCoordinates.put(textureCoordBuffer).position(0);
-	   
-		GLES20.glUseProgram(mVertexProgramHandle);
-		mvpMatrixHandle = GLES20.glGetUniformLocation(mVertexProgramHandle,
-					"u_mvpMatrix");
-		vertexPositionHandle =  GLES20.glGetAttribLocation(mVertexProgramHandle,
-					"a_position");
-		vertexColorHandle =  GLES20.glGetAttribLocation(mVertexProgramHandle,
-					"a_color");   
-		textureCoordHandle =  GLES20.glGetAttribLocation(mVertexProgramHandle,
-					"a_texCoord");   
-		textureUniformHandle = GLES20.glGetUniformLocation(mVertexProgramHandle, "s_texture");
-		// Pass in the mvp matrix
-		GLES20.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mMvpMatrix, 0);
-		TextGLRenderer.checkGlError("TextGL Array checking error");
-		GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
-		GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTextureId);
-		GLES20.glUniform1i(textureUniformHandle, 0);
-		// Pass in the position information
-		mPositions.position(0);
-		GLES20.glVertexAttribPointer(vertexPositionHandle, 3,
-				GLES20.GL_FLOAT, false, 0, mPositions);
-		GLES20.glEnableVertexAttribArray(vertexPositionHandle);
-		// Pass in the color information
-		mColors.position(0);
-		GLES20.glVertexAttribPointer(vertexColorHandle, 4,
-				GLES20.GL_FLOAT, false, 0, mColors);
-		GLES20.glEnableVertexAttribArray(vertexColorHandle);
-		// Pass in the texture coordinate information
-		mTextureCoordinates.position(0);
-		GLES20.glVertexAttribPointer(textureCoordHandle,
-				2, GLES20.GL_FLOAT, false, 0,
-				mTextureCoordinates);
-		GLES20.glEnableVertexAttribArray(textureCoordHandle);
-		GLES20.glDrawArrays(GL10.GL_TRIANGLES, 0, numSprites*INDICES_PER_SPRITE); // Draw Direct (Array)
+   // halve the capacity (not below the initial one) while the largest batch of
+   // the shrink window would use less than a quarter of it, then start a new window
+   private void shrink()  {
+      int sprites = maxSprites;
+      while ( sprites / 2 >= minSprites && peakSprites * 4 < sprites )
+         sprites /= 2;
+      if ( sprites != maxSprites )
+         setCapacity( sprites );
+      peakSprites = 0;
+      windowFlushes = 0;
    }
+
    //--Draw Sprite to Batch--//
    // D: batch specified sprite to batch. adds vertices for sprite to vertex buffer
    //    NOTE: MUST be called after beginBatch(), and before endBatch()!
-   //    NOTE: if the batch overflows, this will render the current batch, restart it,
-   //          and then batch this sprite.
+   //    NOTE: if the batch overflows, the capacity grows; only at the capacity limit
+   //          will this render the current batch, restart it, and then batch this sprite.
    // A: x, y - the x,y position of the sprite (center)
    //    width, height - the width and height of the sprite
    //    region - the texture region to use for sprite
    // R: [none]
    public void drawSprite(float x, float y, float width, float height, 
 		   TextureRegion region)  {
-      if ( numSprites == maxSprites )  {    // IF Sprite Buffer is Full
-         endBatch();                                  // End Batch
+      if ( numSprites == maxSprites && !reserve( numSprites + 1 ) )  {    // IF Sprite Buffer is Full (and Can't Grow)
+         endBatch();                                  // End Batch (and Empty It)
          // NOTE: leave current texture bound!!
-         numSprites = 0;                           // Empty Sprite Counter
-         bufferIndex = 0;                           // Reset Buffer Index (Empty)
       }
       
       float halfWidth = width / 2.0f;                 // Calculate Half Width
@@ -199,7 +246,14 @@ public class SpriteBatch {
       float y1 = y - halfHeight;                      // Calculate Bottom Y
       float x2 = x + halfWidth;                       // Calculate Right X
       float y2 = y + halfHeight;                      // Calculate Top Y
+      if ( compact )  {                               // IF Compact Layout
+         drawSpriteCompact( x1, y1, x2, y2, region );
+         return;
+      }
       float z = -2.0f;
+      float r = colorV[0], g = colorV[1], b = colorV[2], a = colorV[3];
+      FloatBuffer buffer = vertexBuffer;
+      int i = bufferIndex;
 //      Log.d(TAG, "drawSprite x1,x2,y1,y2,z = " 
 //      + x1 + ", " + x2 + ", " + y1  + ", " + y2 + "," + z);
       
@@ -207,135 +261,179 @@ public class SpriteBatch {
       //     |			  	       |
       //     |				       |
       // p0(x1,y1)------------p1(x2,y1)
-      
-      //p0
-      posBuffer[posIndex++] = x1;
-      posBuffer[posIndex++] = y1;
-      posBuffer[posIndex++] = z;
-      //p1
-      posBuffer[posIndex++] = x2;
-      posBuffer[posIndex++] = y1;
-      posBuffer[posIndex++] = z;
-      //p2
-      posBuffer[posIndex++] = x2;
-      posBuffer[posIndex++] = y2;
-      posBuffer[posIndex++] = z;
-      //p2
-      posBuffer[posIndex++] = x2;
-      posBuffer[posIndex++] = y2;
-      posBuffer[posIndex++] = z;
-      //p3
-      posBuffer[posIndex++] = x1;
-      posBuffer[posIndex++] = y2;
-      posBuffer[posIndex++] = z;
-      //p0
-      posBuffer[posIndex++] = x1;
-      posBuffer[posIndex++] = y1;
-      posBuffer[posIndex++] = z;
-      
-      //p0
-      colorBuffer[colorIndex++]=colorV[0];
-      colorBuffer[colorIndex++]=colorV[1];
-      colorBuffer[colorIndex++]=colorV[2];
-      colorBuffer[colorIndex++]=colorV[3];
-      //p1
-      colorBuffer[colorIndex++]=colorV[0];
-      colorBuffer[colorIndex++]=colorV[1];
-      colorBuffer[colorIndex++]=colorV[2];
-      colorBuffer[colorIndex++]=colorV[3];
-      //p2
-      colorBuffer[colorIndex++]=colorV[0];
-      colorBuffer[colorIndex++]=colorV[1];
-      colorBuffer[colorIndex++]=colorV[2];
-      colorBuffer[colorIndex++]=colorV[3];
-      //p2
-      colorBuffer[colorIndex++]=colorV[0];
-      colorBuffer[colorIndex++]=colorV[1];
-      colorBuffer[colorIndex++]=colorV[2];
-      colorBuffer[colorIndex++]=colorV[3];
-      //p3
-      colorBuffer[colorIndex++]=colorV[0];
-      colorBuffer[colorIndex++]=colorV[1];
-      colorBuffer[colorIndex++]=colorV[2];
-      colorBuffer[colorIndex++]=colorV[3];
-      //p0
-      colorBuffer[colorIndex++]=colorV[0];
-      colorBuffer[colorIndex++]=colorV[1];
-      colorBuffer[colorIndex++]=colorV[2];
-      colorBuffer[colorIndex++]=colorV[3];
-      
-      //p0
-      textureCoordBuffer[textureIndex++] = region.u1;
-      textureCoordBuffer[textureIndex++] = region.v2;
-      //p1
-      textureCoordBuffer[textureIndex++] = region.u2;
-      textureCoordBuffer[textureIndex++] = region.v2;
-      //p2
-      textureCoordBuffer[textureIndex++] = region.u2;
-      textureCoordBuffer[textureIndex++] = region.v1;
-      //p2
-      textureCoordBuffer[textureIndex++] = region.u2;
-      textureCoordBuffer[textureIndex++] = region.v1;
-      //p3
-      textureCoordBuffer[textureIndex++] = region.u1;
-      textureCoordBuffer[textureIndex++] = region.v1;
-      //p0
-      textureCoordBuffer[textureIndex++] = region.u1;
-      textureCoordBuffer[textureIndex++] = region.v2;
-      
-      
+
       //p0
-      vertexBuffer[bufferIndex++] = x1;               // Add X for Vertex 0
-      vertexBuffer[bufferIndex++] = y1;               // Add Y for Vertex 0
-      vertexBuffer[bufferIndex++] = z;               // Add Z for Vertex 0
-
-      vertexBuffer[bufferIndex++] = colorV[0];        // Add R for Vertex 0
-      vertexBuffer[bufferIndex++] = colorV[1];        // Add G for Vertex 0
-      vertexBuffer[bufferIndex++] = colorV[2];        // Add B for Vertex 0
-      vertexBuffer[bufferIndex++] = colorV[3];        // Add A for Vertex 0
+      buffer.put( i++, x1 );                         // Add X for Vertex 0
+      buffer.put( i++, y1 );                         // Add Y for Vertex 0
+      buffer.put( i++, z );                          // Add Z for Vertex 0
+
+      buffer.put( i++, r );                          // Add R for Vertex 0
+      buffer.put( i++, g );                          // Add G for Vertex 0
+      buffer.put( i++, b );                          // Add B for Vertex 0
+      buffer.put( i++, a );                          // Add A for Vertex 0
       
-      vertexBuffer[bufferIndex++] = region.u1;        // Add U for Vertex 0
-      vertexBuffer[bufferIndex++] = region.v2;        // Add V for Vertex 0
+      buffer.put( i++, region.u1 );                  // Add U for Vertex 0
+      buffer.put( i++, region.v2 );                  // Add V for Vertex 0
       
       //p1
-      vertexBuffer[bufferIndex++] = x2;               // Add X for Vertex 1
-      vertexBuffer[bufferIndex++] = y1;               // Add Y for Vertex 1
-      vertexBuffer[bufferIndex++] = z;               // Add Z for Vertex 1
-
-      vertexBuffer[bufferIndex++] = colorV[0];        // Add R for Vertex 1
-      vertexBuffer[bufferIndex++] = colorV[1];        // Add G for Vertex 1
-      vertexBuffer[bufferIndex++] = colorV[2];        // Add B for Vertex 1
-      vertexBuffer[bufferIndex++] = colorV[3];        // Add A for Vertex 1
+      buffer.put( i++, x2 );                         // Add X for Vertex 1
+      buffer.put( i++, y1 );                         // Add Y for Vertex 1
+      buffer.put( i++, z );                          // Add Z for Vertex 1
+
+      buffer.put( i++, r );                          // Add R for Vertex 1
+      buffer.put( i++, g );                          // Add G for Vertex 1
+      buffer.put( i++, b );                          // Add B for Vertex 1
+      buffer.put( i++, a );                          // Add A for Vertex 1
       
-      vertexBuffer[bufferIndex++] = region.u2;        // Add U for Vertex 1
-      vertexBuffer[bufferIndex++] = region.v2;        // Add V for Vertex 1
+      buffer.put( i++, region.u2 );                  // Add U for Vertex 1
+      buffer.put( i++, region.v2 );                  // Add V for Vertex 1
 
       //p2
-      vertexBuffer[bufferIndex++] = x2;               // Add X for Vertex 2
-      vertexBuffer[bufferIndex++] = y2;               // Add Y for Vertex 2
-      vertexBuffer[bufferIndex++] = z;               // Add Z for Vertex 2
-
-      vertexBuffer[bufferIndex++] = colorV[0];        // Add R for Vertex 2
-      vertexBuffer[bufferIndex++] = colorV[1];        // Add G for Vertex 2
-      vertexBuffer[bufferIndex++] = colorV[2];        // Add B for Vertex 2
-      vertexBuffer[bufferIndex++] = colorV[3];        // Add A for Vertex 2
+      buffer.put( i++, x2 );                         // Add X for Vertex 2
+      buffer.put( i++, y2 );                         // Add Y for Vertex 2
+      buffer.put( i++, z );                          // Add Z for Vertex 2
+
+      buffer.put( i++, r );                          // Add R for Vertex 2
+      buffer.put( i++, g );                          // Add G for Vertex 2
+      buffer.put( i++, b );                          // Add B for Vertex 2
+      buffer.put( i++, a );                          // Add A for Vertex 2
       
-      vertexBuffer[bufferIndex++] = region.u2;        // Add U for Vertex 2
-      vertexBuffer[bufferIndex++] = region.v1;        // Add V for Vertex 2
+      buffer.put( i++, region.u2 );                  // Add U for Vertex 2
+      buffer.put( i++, region.v1 );                  // Add V for Vertex 2
 
       //p3
-      vertexBuffer[bufferIndex++] = x1;               // Add X for Vertex 3
-      vertexBuffer[bufferIndex++] = y2;               // Add Y for Vertex 3
-      vertexBuffer[bufferIndex++] = z;               // Add Z for Vertex 3
-
-      vertexBuffer[bufferIndex++] = colorV[0];        // Add R for Vertex 3
-      vertexBuffer[bufferIndex++] = colorV[1];        // Add G for Vertex 3
-      vertexBuffer[bufferIndex++] = colorV[2];        // Add B for Vertex 3
-      vertexBuffer[bufferIndex++] = colorV[3];        // Add A for Vertex 3
+      buffer.put( i++, x1 );                         // Add X for Vertex 3
+      buffer.put( i++, y2 );                         // Add Y for Vertex 3
+      buffer.put( i++, z );                          // Add Z for Vertex 3
+
+      buffer.put( i++, r );                          // Add R for Vertex 3
+      buffer.put( i++, g );                          // Add G for Vertex 3
+      buffer.put( i++, b );                          // Add B for Vertex 3
+      buffer.put( i++, a );                          // Add A for Vertex 3
       
-      vertexBuffer[bufferIndex++] = region.u1;        // Add U for Vertex 3
-      vertexBuffer[bufferIndex++] = region.v1;        // Add V for Vertex 3
+      buffer.put( i++, region.u1 );                  // Add U for Vertex 3
+      buffer.put( i++, region.v1 );                  // Add V for Vertex 3
+      bufferIndex = i;                                // Save Buffer Index
   
       numSprites++;                                   // Increment Sprite Count
    }
+
+   // D: add a sprite to the compact vertex buffer (X,Y, RGBA, UV per vertex)
+   // A: x1, y1, x2, y2 - the left, bottom, right and top of the sprite
+   //    region - the texture region to use for sprite
+   // R: [none]
+   void drawSpriteCompact(float x1, float y1, float x2, float y2,
+		   TextureRegion region)  {
+      // the color is the same for all four vertices
+      int color = Vertices.packColor( colorV[0], colorV[1], colorV[2], colorV[3] );
+      int ix1 = Float.floatToRawIntBits( x1 );
+      int iy1 = Float.floatToRawIntBits( y1 );
+      int ix2 = Float.floatToRawIntBits( x2 );
+      int iy2 = Float.floatToRawIntBits( y2 );
+
+      IntBuffer buffer = packedBuffer;
+      int i = bufferIndex;
+
+      //p0
+      buffer.put( i++, ix1 );                        // Add X for Vertex 0
+      buffer.put( i++, iy1 );                        // Add Y for Vertex 0
+      buffer.put( i++, color );                      // Add RGBA for Vertex 0
+      buffer.put( i++, Vertices.packTexCoords( region.su1, region.sv2 ) );  // Add UV for Vertex 0
+      //p1
+      buffer.put( i++, ix2 );                        // Add X for Vertex 1
+      buffer.put( i++, iy1 );                        // Add Y for Vertex 1
+      buffer.put( i++, color );                      // Add RGBA for Vertex 1
+      buffer.put( i++, Vertices.packTexCoords( region.su2, region.sv2 ) );  // Add UV for Vertex 1
+      //p2
+      buffer.put( i++, ix2 );                        // Add X for Vertex 2
+      buffer.put( i++, iy2 );                        // Add Y for Vertex 2
+      buffer.put( i++, color );                      // Add RGBA for Vertex 2
+      buffer.put( i++, Vertices.packTexCoords( region.su2, region.sv1 ) );  // Add UV for Vertex 2
+      //p3
+      buffer.put( i++, ix1 );                        // Add X for Vertex 3
+      buffer.put( i++, iy2 );                        // Add Y for Vertex 3
+      buffer.put( i++, color );                      // Add RGBA for Vertex 3
+      buffer.put( i++, Vertices.packTexCoords( region.su1, region.sv1 ) );  // Add UV for Vertex 3
+      bufferIndex = i;                                // Save Buffer Index
+
+      numSprites++;                                   // Increment Sprite Count
+   }
+
+   //--Pack Sprite--//
+   // D: write a sprite in the compact vertex layout (same as drawSpriteCompact())
+   //    into an array, for quads recorded outside a batch (see TextRenderer,
+   //    TextCommandBuffer and TextLabels)
+   // A: d - the array to write to
+   //    i - the offset to write the sprite at (TextRenderer.SPRITE_INTS elements)
+   //    x1, y1, x2, y2 - the left, bottom, right and top of the sprite
+   //    region - the texture region to use for sprite
+   //    color - the packed color (see Vertices.packColor())
+   // R: the offset after the sprite
+   static int packSprite(int[] d, int i, float x1, float y1, float x2, float y2,
+         TextureRegion region, int color)  {
+      int ix1 = Float.floatToRawIntBits( x1 );
+      int iy1 = Float.floatToRawIntBits( y1 );
+      int ix2 = Float.floatToRawIntBits( x2 );
+      int iy2 = Float.floatToRawIntBits( y2 );
+      d[i++] = ix1;                                   // p0
+      d[i++] = iy1;
+      d[i++] = color;
+      d[i++] = Vertices.packTexCoords( region.su1, region.sv2 );
+      d[i++] = ix2;                                   // p1
+      d[i++] = iy1;
+      d[i++] = color;
+      d[i++] = Vertices.packTexCoords( region.su2, region.sv2 );
+      d[i++] = ix2;                                   // p2
+      d[i++] = iy2;
+      d[i++] = color;
+      d[i++] = Vertices.packTexCoords( region.su2, region.sv1 );
+      d[i++] = ix1;                                   // p3
+      d[i++] = iy2;
+      d[i++] = color;
+      d[i++] = Vertices.packTexCoords( region.su1, region.sv1 );
+      return i;
+   }
+
+   //--Translate Sprites--//
+   // D: move sprites already in the batch horizontally (see GLText.drawAligned())
+   // A: first - the first sprite to move
+   //    count - the number of sprites
+   //    dx - the distance to move them by
+   // R: [none]
+   void translate(int first, int count, float dx)  {
+      int stride = ( compact ? COMPACT_VERTEX_SIZE : VERTEX_SIZE );
+      int end = ( first + count ) * VERTICES_PER_SPRITE * stride;
+      for ( int i = first * VERTICES_PER_SPRITE * stride; i < end; i += stride )  {  // FOR Each Vertex (X First)
+         if ( compact )
+            packedBuffer.put( i, Float.floatToRawIntBits( Float.intBitsToFloat( packedBuffer.get( i ) ) + dx ) );
+         else
+            vertexBuffer.put( i, vertexBuffer.get( i ) + dx );
+      }
+   }
+
+   //--Truncate Batch--//
+   // D: drop the sprites batched after the specified number (not yet rendered)
+   // A: sprites - the number of sprites to keep
+   // R: [none]
+   void truncate(int sprites)  {
+      numSprites = sprites;
+      bufferIndex = sprites * VERTICES_PER_SPRITE * ( compact ? COMPACT_VERTEX_SIZE : VERTEX_SIZE );
+   }
+
+   //--Draw Packed Sprites to Batch--//
+   // D: batch sprites already packed in the compact layout (see drawSpriteCompact())
+   //    NOTE: compact batches only; the sprites MUST fit into the batch (see reserve())
+   // A: data - the packed sprites
+   //    offset - offset of the first sprite in data
+   //    sprites - the number of sprites
+   // R: [none]
+   void drawPacked(int[] data, int offset, int sprites)  {
+      int length = sprites * VERTICES_PER_SPRITE * COMPACT_VERTEX_SIZE;
+      packedBuffer.clear();
+      packedBuffer.position( bufferIndex );
+      packedBuffer.put( data, offset, length );       // Bulk Copy
+      packedBuffer.position( 0 );
+      bufferIndex += length;                          // Save Buffer Index
+      numSprites += sprites;                          // Increment Sprite Count
+   }
 }
@@ -0,0 +1,224 @@
+package com.pacificHymalaya.MyTextGL;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+
+// On-device microbenchmarks of the text hot paths: SpriteBatch.drawSprite(),
+// GLText.draw(), GLText.drawC(), GLText.getLength() (with and without the
+// width cache), Vertices.setVertices(), the index generation of the
+// SpriteBatch constructor, atlas layout (FontAtlas.build()), bulk label
+// layout with 1, 2, 4 and 8 threads, and the GLES2 and (with an OpenGL ES 3.0
+// context) instanced TextRenderer backends drawing GLYPHS glyphs, whose
+// upload bytes are logged too. Each case is warmed up, then run for RUN_MS;
+// the results (operations and glyphs per second, and bytes/objects allocated
+// per operation on the calling thread) are logged, so optimizations can be
+// compared against a baseline build. The cases that do not need a GPU also
+// run on a plain JVM as JMH benchmarks (see MyTextGL-jvm/pom.xml).
+//
+// NOTE: must run on the GL thread with the font loaded (cases that flush
+// batches issue real draw calls). allocation counting is switched on while
+// running, so do not combine with other users of Debug.startAllocCounting().
+public class TextBenchmark {
+
+	private final static String TAG = "TextBenchmark";
+
+	// --Constants--//
+	final static int WARMUP_MS = 200; // Warm Up per Case
+	final static int RUN_MS = 1000; // Measured Time per Case
+	final static String LINE = "The quick brown fox jumps over the lazy dog 0123456789";
+	final static int LABELS = 10000; // Labels of the Label Layout Case
+	final static int GLYPHS = 10000; // Glyphs of the Backend Cases
+
+	// One benchmark case: run() does one operation and returns its glyphs
+	abstract static class Case {
+		final String name;
+
+		Case(String name) {
+			this.name = name;
+		}
+
+		abstract int run();
+	}
+
+	// --Run--//
+	// D: run all cases and log the results
+	// A: context - context used to access the font assets
+	// font - a loaded font (its renderer is detached while running)
+	// R: [none]
+	public static void run(final Context context, final GLText font) {
+		if (!font.isLoaded())
+			throw new RuntimeException("Font not loaded");
+		TextRenderer renderer = font.mRenderer;
+		boolean deferred = font.isDeferred();
+		font.setRenderer(null); // Measure the Font's Own Batch
+		font.setDeferred(false); // (Drawn by Every end())
+		final SpriteBatch batch = font.batch;
+		final TextureRegion region = font.charRgn['A' - GLText.CHAR_START];
+		final float[] vertices = new float[batch.maxSprites
+				* SpriteBatch.VERTICES_PER_SPRITE * batch.vertices.vertexStride];
+
+		measure(new Case("SpriteBatch.drawSprite") {
+			@Override
+			int run() {
+				// fill the batch without flushing, then empty it
+				batch.beginBatch(font.textureId, font.mCurrentColor);
+				int n = batch.maxSprites - 1;
+				for (int i = 0; i < n; i++)
+					batch.drawSprite(i, 100, 10, 12, region);
+				batch.numSprites = 0;
+				batch.bufferIndex = 0;
+				return n;
+			}
+		});
+		measure(new Case("GLText.draw (batch)") {
+			@Override
+			int run() {
+				font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+				for (int i = 0; i < 16; i++)
+					font.draw(LINE, 0, i * 20);
+				font.end();
+				return 16 * LINE.length();
+			}
+		});
+		measure(new Case("GLText.drawC (single pass)") {
+			@Override
+			int run() {
+				font.begin(1.0f, 1.0f, 1.0f, 1.0f);
+				for (int i = 0; i < 16; i++)
+					font.drawC(LINE, 400, i * 20);
+				font.end();
+				return 16 * LINE.length();
+			}
+		});
+		measure(new Case("GLText.getLength") {
+			@Override
+			int run() {
+				font.getLength(LINE);
+				return LINE.length();
+			}
+		});
+		WidthCache widthCache = font.widthCache;
+		font.setWidthCache(64);
+		measure(new Case("GLText.getLength (width cache)") {
+			@Override
+			int run() {
+				font.getLength(LINE);
+				return LINE.length();
+			}
+		});
+		font.widthCache = widthCache;
+		measure(new Case("Vertices.setVertices") {
+			@Override
+			int run() {
+				batch.vertices.setVertices(vertices, 0, vertices.length);
+				return batch.maxSprites; // (Sprites Worth of Vertices)
+			}
+		});
+		measure(new Case("SpriteBatch(" + batch.maxSprites + ")") {
+			@Override
+			int run() {
+				new SpriteBatch(batch.maxSprites, batch.mProgram,
+						batch.mMvpMatrix, batch.compact);
+				return 0;
+			}
+		});
+		measure(new Case("FontAtlas.build " + font.fontFile + " "
+				+ font.fontSize + "px") {
+			@Override
+			int run() {
+				FontAtlas.build(context.getAssets(), font.fontFile,
+						font.fontSize, font.fontPadX, font.fontPadY,
+						font.distanceField);
+				return GLText.CHAR_CNT;
+			}
+		});
+
+		final TextLabels labels = new TextLabels(LABELS);
+		for (int i = 0; i < LABELS; i++)
+			labels.add("Label " + i, (i % 100) * 10, (i / 100) * 10, 1.0f,
+					1.0f, 1.0f, 1.0f);
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			final int n = threads;
+			measure(new Case("TextLabels.layout " + LABELS + " labels, "
+					+ threads + " threads (" + DistanceField.getThreadCount()
+					+ " cores)") {
+				@Override
+				int run() {
+					labels.layout(font, n);
+					return labels.numSprites;
+				}
+			});
+		}
+
+		measureBackend(font, false);
+		if (renderer != null && renderer.isInstanced()) // OpenGL ES 3.0 Context
+			measureBackend(font, true);
+		font.setDeferred(deferred);
+		font.setRenderer(renderer);
+	}
+
+	// --Measure Backend--//
+	// D: measure recording and drawing GLYPHS glyphs with a new text renderer,
+	// and log its upload bytes per GLYPHS glyphs
+	// A: font - a loaded font
+	// instanced - measure the instanced GLES 3.0 backend
+	// R: [none]
+	static void measureBackend(final GLText font, boolean instanced) {
+		final TextRenderer renderer = new TextRenderer(font.batch.mMvpMatrix,
+				instanced);
+		final TextureRegion region = font.charRgn['A' - GLText.CHAR_START];
+		final int color = Vertices.packColor(1.0f, 1.0f, 1.0f, 1.0f);
+		font.computeEdge(1.0f);
+		final float edgeStart = font.mEdge[0], edgeScale = font.mEdge[1];
+		Case c = new Case("TextRenderer " + GLYPHS + " glyphs ("
+				+ (instanced ? "instanced" : "batched") + ")") {
+			@Override
+			int run() {
+				TextRenderer.Bucket b = renderer.bucket(font.textureId,
+						edgeStart, edgeScale);
+				for (int i = 0; i < GLYPHS; i++) {
+					float x = (i % 100) * 10, y = (i / 100) * 10;
+					b.addSprite(x, y, x + 8, y + 10, region, color);
+				}
+				renderer.endFrame();
+				return GLYPHS;
+			}
+		};
+		long bytes = renderer.getUploadedBytes();
+		c.run();
+		Log.i(TAG, c.name + ": " + (renderer.getUploadedBytes() - bytes)
+				+ " bytes uploaded, " + renderer.getDrawCalls() + " draw calls");
+		measure(c);
+	}
+
+	// --Measure--//
+	// D: warm up and measure one case, and log the result
+	// A: c - the case
+	// R: [none]
+	static void measure(Case c) {
+		long end = System.nanoTime() + WARMUP_MS * 1000000L;
+		while (System.nanoTime() < end)
+			c.run();
+
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocCount();
+		long ops = 0, glyphs = 0;
+		long start = System.nanoTime();
+		end = start + RUN_MS * 1000000L;
+		long now;
+		do {
+			glyphs += c.run();
+			ops++;
+		} while ((now = System.nanoTime()) < end);
+		int objects = Debug.getThreadAllocCount();
+		int bytes = Debug.getThreadAllocSize();
+		Debug.stopAllocCounting();
+
+		double seconds = (now - start) / 1e9;
+		Log.i(TAG, c.name + ": " + Math.round(ops / seconds) + " ops/s, "
+				+ Math.round(glyphs / seconds) + " glyphs/s, "
+				+ bytes / ops + " bytes/op (" + objects + " objects in "
+				+ ops + " ops)");
+	}
+}
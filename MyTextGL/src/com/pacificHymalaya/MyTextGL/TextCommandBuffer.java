@@ -0,0 +1,190 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Text command buffer: lets any (non-GL) thread lay out text of loaded fonts
+// into its own slice of glyph quads, which the GL thread then draws through
+// a TextRenderer (see TextRenderer.submit()). Each buffer must only be
+// recorded by one thread at a time; any number of buffers (eg. one per
+// worker) can be recorded in parallel, without locks and without GL calls.
+//
+// Recording works like drawing with a GLText (begin(), draw(), end()), and
+// publish() hands the recorded text over. The buffer is triple buffered:
+// the recording thread never waits for the GL thread, and the GL thread
+// keeps drawing the last published text until a newer one is published.
+//
+// NOTE: only the fixed character range (CHAR_START..CHAR_END) is available,
+// other characters are recorded as CHAR_UNKNOWN (dynamic glyphs need the GL
+// thread). text of fonts not loaded yet is skipped, and text recorded before
+// a font was reloaded is dropped when submitted.
+public class TextCommandBuffer {
+
+	// One Recording: Packed Quads (Compact Layout) and their Fonts
+	static class Recording {
+		int[] data = new int[64 * TextRenderer.SPRITE_INTS]; // Packed Quads
+		int numSprites; // Number of Quads in data
+		// Segments: Runs of Quads Recorded Between begin() and end()
+		GLText[] fonts = new GLText[8]; // Font of Each Segment
+		int[] uploads = new int[8]; // Font Upload the Quads Belong To
+		float[] scales = new float[8]; // Scale (Distance Field Edge)
+		int[] starts = new int[8]; // First Quad of Each Segment
+		int[] counts = new int[8]; // Number of Quads of Each Segment
+		int numSegments; // Number of Segments
+		boolean fresh; // Published and Not Yet Taken by the GL Thread
+
+		// reset to empty (keeps the arrays)
+		void reset() {
+			numSprites = 0;
+			for (int i = 0; i < numSegments; i++)
+				fonts[i] = null; // Do Not Keep Fonts Alive
+			numSegments = 0;
+			fresh = false;
+		}
+	}
+
+	// --Members--//
+	// Handoff: the Most Recently Published Recording (or an Empty One)
+	private final AtomicReference<Recording> ready = new AtomicReference<Recording>(
+			new Recording());
+	private Recording writing = new Recording(); // Recording Thread Only
+	Recording reading = new Recording(); // GL Thread Only
+
+	// recording state (recording thread only)
+	private GLText font; // Font of the Current begin() (null = Skipping)
+	private int segment; // Current Segment
+	private float scaleX = 1.0f, scaleY = 1.0f; // Scale (X,Y Axis)
+	private float spaceX; // Additional (X Axis) Spacing (Unscaled)
+	private float lastX, lastY; // End of the Last draw()
+	private int color; // Packed Current Color
+
+	// --Begin/End Recording--//
+	// D: start/end recording text of a font (see GLText.begin()/end())
+	// NOTE: set the scale before begin() (distance field fonts)
+	// A: font - the font to record text of (skipped if not loaded yet)
+	// red, green, blue, alpha - the color of the text
+	// R: [none]
+	public void begin(GLText font, float red, float green, float blue,
+			float alpha) {
+		int uploads = font.mUploads; // Read First (See GLText.upload())
+		this.font = (uploads > 0 ? font : null);
+		setColor(red, green, blue, alpha);
+		if (this.font == null)
+			return;
+		Recording r = writing;
+		segment = r.numSegments;
+		if (segment == r.fonts.length) { // Grow Segment Arrays
+			int n = segment * 2;
+			r.fonts = Arrays.copyOf(r.fonts, n);
+			r.uploads = Arrays.copyOf(r.uploads, n);
+			r.scales = Arrays.copyOf(r.scales, n);
+			r.starts = Arrays.copyOf(r.starts, n);
+			r.counts = Arrays.copyOf(r.counts, n);
+		}
+		r.fonts[segment] = font;
+		r.uploads[segment] = uploads;
+		r.scales[segment] = (scaleX + scaleY) / 2.0f;
+		r.starts[segment] = r.numSprites;
+		r.counts[segment] = 0;
+		r.numSegments++;
+	}
+
+	public void setColor(float red, float green, float blue, float alpha) {
+		color = Vertices.packColor(red, green, blue, alpha);
+	}
+
+	public void end() {
+		font = null;
+	}
+
+	// --Record Text--//
+	// D: record a string (see GLText.draw())
+	// A: text - the string to record
+	// x, y - the x,y position to draw text at (bottom left of text)
+	// R: [none]
+	public void draw(CharSequence text, float x, float y) {
+		GLText font = this.font;
+		if (font == null) { // IF Font Not Loaded Yet
+			lastX = x;
+			lastY = y;
+			return;
+		}
+		Recording r = writing;
+		int len = text.length(); // Get String Length
+		for (int i = 0; i < len; i++) { // FOR Each Character in String
+			int c = (int) text.charAt(i) - GLText.CHAR_START;
+			if (c < 0) // Control Character (eg. '\n'): No Glyph, No Advance
+				continue;
+			if (c > GLText.CHAR_LAST) { // IF Not a Fixed Character
+				if (Character.isHighSurrogate(text.charAt(i)))
+					i++; // Skip Low Surrogate
+				c = GLText.CHAR_UNKNOWN;
+			}
+			TextureRegion rgn = font.charRgn[c];
+			if (rgn.width > 0) { // IF Anything to Draw
+				float x1 = x + rgn.offsetX * scaleX;
+				float y1 = y + rgn.offsetY * scaleY;
+				addSprite(r, x1, y1, x1 + rgn.width * scaleX, y1
+						+ rgn.height * scaleY, rgn);
+			}
+			// Advance X Position by Scaled Character Width
+			x += (font.charWidths[c] + spaceX) * scaleX;
+		}
+		r.counts[segment] = r.numSprites - r.starts[segment];
+		lastX = x;
+		lastY = y;
+	}
+
+	public void draw(CharSequence text) {
+		draw(text, lastX, lastY);
+	}
+
+	// --Set Scale/Space--//
+	// D: set the scale/additional spacing of recorded text (see GLText)
+	public void setScale(float scale) {
+		scaleX = scaleY = scale;
+	}
+
+	public void setScale(float sx, float sy) {
+		scaleX = sx;
+		scaleY = sy;
+	}
+
+	public void setSpace(float space) {
+		spaceX = space;
+	}
+
+	// --Publish--//
+	// D: hand the recorded text over to the GL thread (replacing the text
+	// published before), and start recording anew
+	// A: [none]
+	// R: [none]
+	public void publish() {
+		font = null;
+		writing.fresh = true;
+		writing = ready.getAndSet(writing); // Take Back the Older One
+		writing.reset();
+	}
+
+	// --Acquire--//
+	// D: take the most recently published recording, if any new one (GL thread)
+	// A: [none]
+	// R: the recording to draw (the previous one if nothing new was published)
+	Recording acquire() {
+		if (ready.get().fresh) { // Only the Recording Thread Makes One Fresh
+			reading = ready.getAndSet(reading);
+			reading.fresh = false;
+		}
+		return reading;
+	}
+
+	// record a quad (see SpriteBatch.packSprite())
+	private void addSprite(Recording r, float x1, float y1, float x2,
+			float y2, TextureRegion region) {
+		int i = r.numSprites * TextRenderer.SPRITE_INTS;
+		if (i + TextRenderer.SPRITE_INTS > r.data.length)
+			r.data = Arrays.copyOf(r.data, r.data.length * 2);
+		SpriteBatch.packSprite(r.data, i, x1, y1, x2, y2, region, color);
+		r.numSprites++;
+	}
+}
@@ -0,0 +1,240 @@
+// A virtualized scrolling text console (eg. a live log). The lines are kept
+// in a ring buffer of at most maxLines strings; the oldest lines are dropped
+// once the ring is full, so memory stays bounded however many lines are
+// appended.
+//
+// The glyph quads of the lines are baked (in TextMesh layout) into fixed size
+// slots of a persistent GPU vertex buffer holding a window of windowLines
+// lines. Line n always uses slot n % windowLines and is only baked when it
+// becomes visible and its slot holds another line, so following the tail of
+// the log uploads just the newly appended lines, and scrolling within the
+// window only changes the translation uniform. The visible lines are drawn
+// with one draw call (two when the visible lines wrap around the window).
+//
+// NOTE: lines longer than maxLineChars characters are truncated. all lines
+// are re-baked when the font is reloaded, its spacing changes or a dynamic
+// glyph is evicted (see GLText.getGlyph()).
+
+package com.pacificHymalaya.MyTextGL;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import android.opengl.GLES20;
+
+public class TextConsole {
+
+	// --Constants--//
+	final static int UPLOAD_LINES = 32; // Lines Baked per Upload (Maximum)
+
+	// --Members--//
+	final GLText glText; // Font Used to Lay Out the Lines
+	final int maxLines; // Lines Kept (Ring Capacity)
+	final int maxLineChars; // Characters (Quads) per Line Slot
+	final int windowLines; // Line Slots in the GPU Vertex Buffer
+	final String[] lines; // Ring of Lines (Line n at n % maxLines)
+	long count; // Number of Lines Appended So Far
+	long first; // Top Visible Line (when Not Following)
+	boolean following = true; // Scroll Along with Appended Lines
+	final long[] slotLine; // Line Baked into Each Slot (-1 = None)
+	int fontVersion; // Font Version the Slots were Baked With
+	float spaceX; // Font Spacing the Slots were Baked With
+	final float[] color = { 1.0f, 1.0f, 1.0f, 1.0f }; // Text Color {R G B A}
+	// GPU buffer handles: [0] = Vertex Buffer, [1] = Index Buffer
+	final int[] bufferIds = new int[2];
+	int indexCapacity; // Number of Quads the Index Buffer Covers
+	FloatBuffer scratch; // Vertices of the Lines Being Baked (Lazy)
+
+	// --Constructor--//
+	// D: create an (empty) console
+	// A: glText - the font used to draw the console
+	// maxLines - the maximum number of lines kept
+	// maxLineChars - the maximum number of characters per line
+	// windowLines - the number of lines baked on the GPU (at least the
+	// number of lines drawn; costs maxLineChars * 64 bytes per line)
+	public TextConsole(GLText glText, int maxLines, int maxLineChars,
+			int windowLines) {
+		if (maxLineChars < 1 || maxLineChars > TextMesh.MAX_GLYPHS)
+			throw new RuntimeException("Invalid line length: " + maxLineChars);
+		this.glText = glText;
+		this.maxLines = Math.max(1, maxLines);
+		this.maxLineChars = maxLineChars;
+		this.windowLines = Math.max(1, windowLines);
+		this.lines = new String[this.maxLines];
+		this.slotLine = new long[this.windowLines];
+		Arrays.fill(slotLine, -1);
+	}
+
+	// --Append--//
+	// D: append a line (dropping the oldest line if the console is full)
+	// A: line - the line to append
+	// R: [none]
+	public void append(String line) {
+		lines[(int) (count % maxLines)] = line;
+		count++;
+	}
+
+	// --Line Count--//
+	// D: return the number of lines kept/appended so far
+	public int getLineCount() {
+		return (int) Math.min(count, maxLines);
+	}
+
+	public long getAppendedLines() {
+		return count;
+	}
+
+	// --Scroll--//
+	// D: scroll to show the specified (kept) line at the top, or follow the
+	// last appended lines
+	// A: line - the top line (0 = oldest kept line)
+	// R: [none]
+	public void scrollTo(int line) {
+		first = count - getLineCount() + Math.max(0, line);
+		following = false;
+	}
+
+	public void scrollToEnd() {
+		following = true;
+	}
+
+	// --Set Color--//
+	// D: set the color used when drawing the console (applied as a uniform)
+	public void setColor(float red, float green, float blue, float alpha) {
+		color[0] = red;
+		color[1] = green;
+		color[2] = blue;
+		color[3] = alpha;
+	}
+
+	// --Draw--//
+	// D: draw the visible lines, baking the ones not baked yet
+	// A: x, top - the top left of the console
+	// visibleLines - the number of lines to draw (at most windowLines)
+	// NOTE: draws nothing while the font is still loading (see loadAsync())
+	// R: [none]
+	public void draw(float x, float top, int visibleLines) {
+		if (!glText.isLoaded()) // IF Font Still Loading
+			return;
+		visibleLines = Math.min(visibleLines, Math.min(windowLines,
+				TextMesh.MAX_GLYPHS / maxLineChars));
+		long oldest = count - getLineCount();
+		long line = (following ? count - visibleLines : first);
+		line = Math.max(oldest, Math.min(line, count - 1));
+		int num = (int) Math.min(visibleLines, count - line);
+		if (num <= 0)
+			return; // Nothing to Draw
+
+		if (bufferIds[0] == 0) // IF Buffers Not Yet Created
+			createBuffers();
+		if (fontVersion != glText.fontVersion || spaceX != glText.spaceX) {
+			Arrays.fill(slotLine, -1); // Re-bake All Lines
+			fontVersion = glText.fontVersion;
+			spaceX = glText.spaceX;
+		}
+		if (num * maxLineChars > indexCapacity)
+			createIndices(num * maxLineChars);
+		bake(line, num);
+
+		// draw the window slots of the visible lines (two ranges if wrapped)
+		float sx = glText.scaleX, sy = glText.scaleY;
+		float lineHeight = glText.charHeight * sy;
+		int slot = (int) (line % windowLines);
+		int run = Math.min(num, windowLines - slot);
+		// slot s is baked with its top at -s * charHeight (unscaled)
+		glText.drawQuads(bufferIds[0], bufferIds[1], slot * maxLineChars, run
+				* maxLineChars, x, top + slot * lineHeight, sx, sy, color);
+		if (run < num)
+			glText.drawQuads(bufferIds[0], bufferIds[1], 0, (num - run)
+					* maxLineChars, x, top - run * lineHeight, sx, sy, color);
+	}
+
+	// --Release--//
+	// D: free the GPU buffers of the console (the lines are kept; drawing
+	// again re-creates the buffers and re-bakes the visible lines)
+	public void release() {
+		if (bufferIds[0] != 0) {
+			GLES20.glDeleteBuffers(2, bufferIds, 0);
+			bufferIds[0] = 0;
+			bufferIds[1] = 0;
+		}
+		indexCapacity = 0;
+		Arrays.fill(slotLine, -1);
+	}
+
+	// --Bake--//
+	// D: lay out and upload the lines of a range whose slots hold other lines;
+	// consecutive slots are uploaded together (up to UPLOAD_LINES)
+	// A: line - the first line of the range
+	// num - the number of lines
+	// R: [none]
+	void bake(long line, int num) {
+		int slotFloats = maxLineChars * TextMesh.VERTICES_PER_GLYPH
+				* TextMesh.VERTEX_SIZE;
+		if (scratch == null)
+			scratch = ByteBuffer.allocateDirect(UPLOAD_LINES * slotFloats * 4)
+					.order(ByteOrder.nativeOrder()).asFloatBuffer();
+		float lineHeight = glText.charHeight;
+		int firstSlot = -1, slots = 0; // Pending Run of Slots
+		scratch.clear();
+		for (long n = line; n < line + num; n++) {
+			int slot = (int) (n % windowLines);
+			if (slotLine[slot] == n)
+				continue; // Already Baked
+			if (slots > 0 && (slot != firstSlot + slots || slots == UPLOAD_LINES)) {
+				upload(firstSlot, slots); // Not Consecutive (or Full)
+				slots = 0;
+			}
+			if (slots == 0)
+				firstSlot = slot;
+			String text = lines[(int) (n % maxLines)];
+			int end = scratch.position() + slotFloats;
+			glText.layoutMesh(text, Math.min(text.length(), maxLineChars),
+					scratch, -(slot + 1) * lineHeight);
+			while (scratch.position() < end)
+				scratch.put(0.0f); // Unused Quads are Degenerate
+			slotLine[slot] = n;
+			slots++;
+		}
+		if (slots > 0)
+			upload(firstSlot, slots);
+	}
+
+	// upload the baked lines in scratch to consecutive slots
+	// NOTE: bound here, as laying out may flush (and bind) a batch
+	private void upload(int firstSlot, int slots) {
+		int slotBytes = maxLineChars * TextMesh.VERTICES_PER_GLYPH
+				* TextMesh.VERTEX_BYTES;
+		scratch.flip();
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferIds[0]);
+		GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, firstSlot * slotBytes,
+				slots * slotBytes, scratch);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+		scratch.clear();
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.add(RenderMetrics.BYTES_UPLOADED, slots * slotBytes);
+	}
+
+	// create the vertex buffer (uninitialized; slots are baked before use)
+	private void createBuffers() {
+		GLES20.glGenBuffers(2, bufferIds, 0);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferIds[0]);
+		GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, windowLines * maxLineChars
+				* TextMesh.VERTICES_PER_GLYPH * TextMesh.VERTEX_BYTES, null,
+				GLES20.GL_DYNAMIC_DRAW);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+	}
+
+	// (re)create the index buffer for a number of quads
+	private void createIndices(int quads) {
+		ShortBuffer indices = TextMesh.createIndices(quads);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferIds[1]);
+		GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER,
+				indices.limit() * 2, indices, GLES20.GL_STATIC_DRAW);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+		indexCapacity = quads;
+	}
+}
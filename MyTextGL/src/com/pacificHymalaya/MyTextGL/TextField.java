@@ -0,0 +1,262 @@
+// A mutable text field of fixed capacity (eg. "FPS: 59", a score or a timer).
+// Each character position owns one glyph quad (in TextMesh layout) in the
+// field's GPU vertex buffer; empty glyphs and unused positions hold
+// degenerate quads. setText() diffs the new text against the current one,
+// re-lays out only from the first changed character (and only as far as the
+// pen positions differ), and uploads the range of quads that actually
+// changed with one glBufferSubData. Updating a numeric HUD therefore costs
+// in proportion to the number of changed characters, and drawing is a
+// single draw call.
+//
+// NOTE: like TextMesh, scaling is applied by the shader. everything is laid
+// out again when the font is reloaded, its spacing changes or a dynamic
+// glyph is evicted (see GLText.getGlyph()).
+
+package com.pacificHymalaya.MyTextGL;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import android.opengl.GLES20;
+
+public class TextField {
+
+	// --Constants--//
+	final static int QUAD_FLOATS = TextMesh.VERTICES_PER_GLYPH
+			* TextMesh.VERTEX_SIZE; // Floats per Quad
+
+	// --Members--//
+	final GLText glText; // Font Used to Lay Out the Field
+	final int capacity; // Maximum Number of Characters
+	final char[] chars; // Current Characters
+	int length; // Number of Current Characters
+	final char[] pending; // Characters Set but Not Yet Laid Out
+	int pendingLength; // Number of Pending Characters
+	final float[] penX; // Pen Position Before Each Character (capacity + 1)
+	final FloatBuffer shadow; // CPU Copy of the Quads in the GPU Buffer
+	int fontVersion; // Font Version the Quads were Laid Out With
+	float spaceX; // Font Spacing the Quads were Laid Out With
+	boolean valid; // Quads Laid Out (and Uploaded) at All
+	final float[] color = { 1.0f, 1.0f, 1.0f, 1.0f }; // Text Color {R G B A}
+	// GPU buffer handles: [0] = Vertex Buffer, [1] = Index Buffer
+	final int[] bufferIds = new int[2];
+	long bytesUploaded; // Total Vertex Bytes Sent to GL
+
+	// --Constructor--//
+	// D: create an (empty) field
+	// A: glText - the font used to draw the field
+	// capacity - the maximum number of characters (longer text is truncated)
+	public TextField(GLText glText, int capacity) {
+		if (capacity < 1 || capacity > TextMesh.MAX_GLYPHS)
+			throw new RuntimeException("Invalid capacity: " + capacity);
+		this.glText = glText;
+		this.capacity = capacity;
+		this.chars = new char[capacity];
+		this.pending = new char[capacity];
+		this.penX = new float[capacity + 1];
+		this.shadow = ByteBuffer.allocateDirect(capacity * QUAD_FLOATS * 4)
+				.order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+
+	// --Set Text--//
+	// D: change the text of the field (applied on the next draw). allocation
+	// free, so it can be called every frame (eg. with a reused StringBuilder)
+	// A: text - the new text
+	// R: [none]
+	public void setText(CharSequence text) {
+		int len = Math.min(text.length(), capacity);
+		for (int i = 0; i < len; i++)
+			pending[i] = text.charAt(i);
+		pendingLength = len;
+	}
+
+	// --Set Color--//
+	// D: set the color used when drawing the field (applied as a uniform)
+	public void setColor(float red, float green, float blue, float alpha) {
+		color[0] = red;
+		color[1] = green;
+		color[2] = blue;
+		color[3] = alpha;
+	}
+
+	// --Get Width--//
+	// D: return the width of the field as last drawn (current font scale)
+	public float getWidth() {
+		return (length > 0 ? (penX[length] - glText.spaceX) * glText.scaleX
+				: 0.0f);
+	}
+
+	public long getUploadedBytes() {
+		return bytesUploaded;
+	}
+
+	// --Draw--//
+	// D: apply the pending text and draw the field
+	// A: x, y - the x,y position to draw the text at (bottom left of text)
+	// NOTE: draws nothing while the font is still loading (see loadAsync())
+	// R: [none]
+	public void draw(float x, float y) {
+		if (!glText.isLoaded()) // IF Font Still Loading
+			return;
+		if (bufferIds[0] == 0) // IF Buffers Not Yet Created
+			createBuffers();
+		if (!valid || fontVersion != glText.fontVersion
+				|| spaceX != glText.spaceX) { // IF Everything Changed
+			length = 0;
+			update(true);
+		} else
+			update(false);
+		if (fontVersion != glText.fontVersion) { // IF Evicted While Updating
+			length = 0;
+			update(true); // Once (Any Further Eviction: Next Draw)
+		}
+		if (length > 0)
+			glText.drawQuads(bufferIds[0], bufferIds[1], 0, length, x, y,
+					glText.scaleX, glText.scaleY, color);
+	}
+
+	// --Release--//
+	// D: free the GPU buffers of the field (re-created on the next draw)
+	public void release() {
+		if (bufferIds[0] != 0) {
+			GLES20.glDeleteBuffers(2, bufferIds, 0);
+			bufferIds[0] = 0;
+			bufferIds[1] = 0;
+		}
+		valid = false;
+	}
+
+	// --Update--//
+	// D: lay out the characters that differ between the current and the
+	// pending text (and those after them, as long as their pen position
+	// moved), and upload the range of changed quads
+	// A: all - lay out and upload all quads (the GPU buffer is undefined)
+	// R: [none]
+	void update(boolean all) {
+		// the glyphs laid out below may evict glyphs laid out before, so the
+		// version is the one read before the first glyph lookup
+		int version = glText.fontVersion;
+		int newLength = pendingLength, oldLength = length;
+		int end = Math.max(newLength, oldLength);
+		// the first and the last differing character
+		int first = 0;
+		while (first < end && first < newLength && first < oldLength
+				&& chars[first] == pending[first])
+			first++;
+		if (first > 0 && first < newLength
+				&& Character.isLowSurrogate(pending[first]))
+			first--; // The Pair's Glyph Belongs to the High Surrogate
+		int last = end - 1;
+		while (last > first && last < newLength && last < oldLength
+				&& chars[last] == pending[last])
+			last--;
+		if (all) {
+			first = 0;
+			last = capacity - 1;
+			end = capacity;
+		}
+		if (first >= end)
+			return; // Nothing Changed
+
+		int lo = Integer.MAX_VALUE, hi = -1; // Range of Changed Quads
+		float x = penX[first];
+		for (int i = first; i < end; i++) {
+			if (i > last && x == penX[i] && i < newLength && i < oldLength)
+				break; // Rest Unchanged (Same Characters, Same Positions)
+			penX[i] = x;
+			char ch = (i < newLength ? pending[i] : 0);
+			int c = -1; // Glyph Index (-1 = No Glyph)
+			if (i < newLength) {
+				c = (int) ch - GLText.CHAR_START;
+				if (c < 0) // Control Character (eg. '\n')
+					c = -1;
+				else if (c > GLText.CHAR_LAST) { // IF Not a Fixed Character
+					int cp = ch;
+					if (Character.isHighSurrogate(ch) && i + 1 < newLength
+							&& Character.isLowSurrogate(pending[i + 1]))
+						cp = Character.toCodePoint(ch, pending[i + 1]);
+					else if (Character.isLowSurrogate(ch))
+						c = -1; // Drawn with its High Surrogate
+					if (c != -1)
+						c = glText.getGlyph(cp);
+				}
+			}
+			if (writeQuad(i, c, x) || all) {
+				lo = Math.min(lo, i);
+				hi = i;
+			}
+			if (c >= 0) // Advance X Position by Character Width
+				x += glText.charWidths[c] + glText.spaceX;
+			chars[i] = ch;
+			penX[i + 1] = x;
+		}
+		length = newLength;
+		fontVersion = version;
+		spaceX = glText.spaceX;
+		valid = true;
+
+		if (hi >= lo) { // Upload the Changed Range
+			shadow.limit((hi + 1) * QUAD_FLOATS);
+			shadow.position(lo * QUAD_FLOATS);
+			int bytes = (hi - lo + 1) * QUAD_FLOATS * 4;
+			GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferIds[0]);
+			GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, lo * QUAD_FLOATS
+					* 4, bytes, shadow);
+			GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+			shadow.clear();
+			bytesUploaded += bytes;
+			if (RenderMetrics.ENABLED)
+				RenderMetrics.add(RenderMetrics.BYTES_UPLOADED, bytes);
+		}
+	}
+
+	// --Write Quad--//
+	// D: write the quad of a character position to the shadow copy
+	// A: i - the character position
+	// c - the glyph index (-1 = none; written as a degenerate quad)
+	// x - the pen position of the character (unscaled)
+	// R: true if the quad changed
+	boolean writeQuad(int i, int c, float x) {
+		float x1 = 0, y1 = 0, x2 = 0, y2 = 0, u1 = 0, v1 = 0, u2 = 0, v2 = 0;
+		TextureRegion region = (c >= 0 ? glText.charRgn[c] : null);
+		if (region != null && region.width > 0) {
+			x1 = x + region.offsetX;
+			x2 = x1 + region.width;
+			y1 = region.offsetY;
+			y2 = y1 + region.height;
+			u1 = region.u1;
+			v1 = region.v1;
+			u2 = region.u2;
+			v2 = region.v2;
+		}
+		int p = i * QUAD_FLOATS;
+		if (shadow.get(p) == x1 && shadow.get(p + 1) == y1
+				&& shadow.get(p + 2) == u1 && shadow.get(p + 3) == v2
+				&& shadow.get(p + 8) == x2 && shadow.get(p + 9) == y2
+				&& shadow.get(p + 10) == u2 && shadow.get(p + 11) == v1)
+			return false; // Same Quad
+		// p0(x1,y1), p1(x2,y1), p2(x2,y2), p3(x1,y2); as SpriteBatch
+		shadow.put(p, x1).put(p + 1, y1).put(p + 2, u1).put(p + 3, v2);
+		shadow.put(p + 4, x2).put(p + 5, y1).put(p + 6, u2).put(p + 7, v2);
+		shadow.put(p + 8, x2).put(p + 9, y2).put(p + 10, u2).put(p + 11, v1);
+		shadow.put(p + 12, x1).put(p + 13, y2).put(p + 14, u1).put(p + 15, v1);
+		return true;
+	}
+
+	// create the vertex buffer and the (constant) index buffer
+	private void createBuffers() {
+		GLES20.glGenBuffers(2, bufferIds, 0);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferIds[0]);
+		GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, capacity * QUAD_FLOATS * 4,
+				null, GLES20.GL_DYNAMIC_DRAW);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+		ShortBuffer indices = TextMesh.createIndices(capacity);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferIds[1]);
+		GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER,
+				indices.limit() * 2, indices, GLES20.GL_STATIC_DRAW);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+		valid = false;
+	}
+}
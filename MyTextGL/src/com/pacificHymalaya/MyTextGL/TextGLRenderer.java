@@ -9,6 +9,9 @@ import android.content.Context;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 import android.opengl.Matrix;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
 import android.util.Log;
 
 public class TextGLRenderer implements GLSurfaceView.Renderer {
@@ -16,6 +19,46 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
 	private static final String TAG = "TextGLRenderer";
 	private final Context mActivityContext;
 	private GLText glText; // A GLText Instance
+	private TextMesh mTitleMesh; // Retained (Static) Label
+	private TextRenderer mTextRenderer; // Shared Renderer of All Fonts
+	private TextConsole mConsole; // Scrolling Log (One Line per 30 Frames)
+	private int mConsoleFrames; // Frames Since the Last Console Line
+	private TextField mFpsField; // Frame Rate (Only Changed Digits Uploaded)
+	private TextLayout mParagraph; // Wrapped Text (Broken Once, Not per Frame)
+	private final StringBuilder mFpsText = new StringBuilder(16);
+	private long mFpsStart; // Start of the Current Second (ms)
+	private int mFpsFrames; // Frames During the Current Second
+	// Text laid out by a worker thread (drawn by the GL thread every frame)
+	private final TextCommandBuffer mWorkerText = new TextCommandBuffer();
+	private volatile GLText mWorkerFont; // Font Used by the Worker
+	private Thread mWorker; // Worker Thread (null = Stopped)
+	private GLText mZoomText; // Distance Field Font (Any Size, One Atlas)
+	private GLText mCourText, mImpactText; // More Fonts (Loaded in Parallel)
+	// Startup timing: time from surface creation to the first frame, and to
+	// the first frame with all fonts loaded
+	private long mCreatedTime;
+	private boolean mFirstFrameLogged, mFontsReadyLogged;
+	// Upload statistics: bytes sent to GL per frame, averaged and logged
+	// every STATS_FRAMES frames
+	private static final int STATS_FRAMES = 300;
+	private int mStatsFrames;
+	private long mStatsBytes;
+	// Allocation check: when enabled, every frame after the first
+	// ALLOC_WARMUP_FRAMES must render without a single heap allocation on
+	// the GL thread, otherwise rendering fails with an exception.
+	// NOTE: allocation counting slows everything down; enable for testing
+	private static final boolean CHECK_ALLOCATIONS = false;
+	private static final int ALLOC_WARMUP_FRAMES = 60;
+	private int mFrameCount;
+	// Benchmark: once all fonts are ready, run the hot path benchmarks (see
+	// TextBenchmark) and log the results
+	// NOTE: blocks the GL thread for several seconds, and counts allocations
+	// itself; enable for measuring only (and not with CHECK_ALLOCATIONS)
+	private static final boolean BENCHMARK = false;
+	// Shared renderer: all fonts draw through one TextRenderer (true), or
+	// each through its own batch in deferred mode (false), ie. one draw call
+	// per font whatever the number of begin()/end() pairs and colors
+	private static final boolean SHARED_RENDERER = true;
 	//Screen width and height
 	//Values updated in onSurfaceChanged()
 	private int width = 100; 
@@ -35,6 +78,12 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
 		// Save width and height
 		this.width = width; // Save Current Width
 		this.height = height; // Save Current Height
+		// Cull text outside the viewport
+		glText.setClip(0, 0, width, height);
+		mCourText.setClip(0, 0, width, height);
+		mImpactText.setClip(0, 0, width, height);
+		mZoomText.setClip(0, 0, width, height);
+		mParagraph.setWrapWidth(0.35f * width);
 		
 		// Create a new perspective projection matrix. The height will stay the
 		// same while the width will vary as per aspect ratio.
@@ -54,6 +103,8 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
 
 	@Override
 	public void onDrawFrame(GL10 unused) {
+		if (CHECK_ALLOCATIONS)
+			Debug.resetThreadAllocCount();
 		
 		//setup camera view
 		setupCameraView();
@@ -61,8 +112,9 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
         // Clear the color buffer and z buffer
         GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT  | GLES20.GL_DEPTH_BUFFER_BIT);
         
-		GLES20.glEnable(GLES20.GL_BLEND);
-		GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+		// NOTE: set through GLState, so only the first frame calls into GL
+		GLState.setBlend(true);
+		GLState.setBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
 		
 		Matrix.setIdentityM(mModelMatrix, 0);
 		Matrix.translateM(mModelMatrix, 0, 0, 0, -3.0f);
@@ -83,12 +135,138 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
 	    glText.draw( "Line 2", 100, 100 );              // Draw Test String
 	    glText.end();                                   // End Text Rendering
 
+	    float phase = (SystemClock.uptimeMillis() % 4000) / 4000.0f;
 	    glText.begin( 0.0f, 0.0f, 1.0f, 1.0f );         // Begin Text Rendering (Set Color BLUE)
 	    glText.draw( "More Lines...", 50, 150 );        // Draw Test String
 	    glText.draw( "The End.", 50, 150 + glText.getCharHeight() );  // Draw Test String
+	    // Numbers are formatted without allocating (see CHECK_ALLOCATIONS)
+	    glText.drawInt( SystemClock.uptimeMillis() / 1000, 50, 150 + 2 * glText.getCharHeight() );
+	    glText.drawFloat( phase * 4.0f, 2, 150, 150 + 2 * glText.getCharHeight() );
 	    glText.end();                                   // End Text Rendering
-// 		disable blend
-		GLES20.glDisable(GLES20.GL_BLEND);
+
+	    // Static label: laid out once, redrawn through uniforms only
+	    mTitleMesh.draw(0.5f * width, 0.9f * height, 1.5f);
+
+	    // Log console: only appended lines are laid out and uploaded
+	    // NOTE: building the lines allocates, so none while checking
+	    if (!CHECK_ALLOCATIONS && ++mConsoleFrames == 30) {
+	    	mConsole.append("Line " + mConsole.getAppendedLines()
+	    			+ (RenderMetrics.ENABLED ? ": " + RenderMetrics.getLast(
+	    					RenderMetrics.GLYPHS) + " glyphs last frame" : ""));
+	    	mConsoleFrames = 0;
+	    }
+	    mConsole.draw(0.6f * width, 0.5f * height, 8);
+
+	    // Paragraph: the line index is reused, only the visible lines drawn
+	    glText.begin(0.8f, 0.8f, 0.8f, 1.0f);
+	    mParagraph.draw(10, 0.45f * height, 0, 8);
+	    glText.end();
+
+	    updateFps();
+	    mFpsField.draw(10, height - 30);
+
+	    // Distance field font: zooms between 16 and 64 pixels every 4 seconds
+	    mZoomText.setTextSize(40.0f - 24.0f * (float) Math.cos(phase * 2.0 * Math.PI));
+	    mZoomText.begin(1.0f, 0.5f, 0.0f, 1.0f);
+	    mZoomText.drawC("Zoom", 0.5f * width, 0.6f * height);
+	    mZoomText.end();
+
+	    mCourText.begin(0.0f, 1.0f, 1.0f, 1.0f);
+	    mCourText.draw("cour.ttf", 0.6f * width, 50);
+	    mCourText.end();
+	    mImpactText.begin(1.0f, 0.0f, 1.0f, 1.0f);
+	    mImpactText.draw("impact.ttf", 0.6f * width, 100);
+	    mImpactText.end();
+	    // Draw the Text of All Fonts (One Draw Call per Font Texture)
+	    mTextRenderer.submit(mWorkerText);
+	    mTextRenderer.endFrame();
+	    glText.flushFrame();                            // (Deferred Mode Only)
+	    mCourText.flushFrame();
+	    mImpactText.flushFrame();
+	    mZoomText.flushFrame();
+		// NOTE: blending is left enabled (nothing else is drawn)
+		GLState.endFrame();
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.endFrame();
+		logStartup();
+
+		if (CHECK_ALLOCATIONS)
+			checkAllocations();
+		logUploadStats();
+	}
+
+	// update the frame rate field once per second (allocation free)
+	private void updateFps() {
+		long now = SystemClock.uptimeMillis();
+		mFpsFrames++;
+		if (now - mFpsStart < 1000)
+			return;
+		int fps = (int) Math.min(999, mFpsFrames * 1000L / (now - mFpsStart));
+		mFpsText.setLength(0);
+		mFpsText.append("FPS: ");
+		if (fps >= 100)
+			mFpsText.append((char) ('0' + fps / 100));
+		if (fps >= 10)
+			mFpsText.append((char) ('0' + fps / 10 % 10));
+		mFpsText.append((char) ('0' + fps % 10));
+		mFpsField.setText(mFpsText);
+		mFpsStart = now;
+		mFpsFrames = 0;
+	}
+
+	// log the time to the first frame, and to the first complete frame
+	private void logStartup() {
+		if (mFontsReadyLogged)
+			return;
+		long ms = (System.nanoTime() - mCreatedTime) / 1000000;
+		if (!mFirstFrameLogged) {
+			Log.i(TAG, "First frame after " + ms + " ms");
+			mFirstFrameLogged = true;
+		}
+		if (glText.isLoaded() && mCourText.isLoaded()
+				&& mImpactText.isLoaded() && mZoomText.isLoaded()) {
+			Log.i(TAG, "All fonts ready after " + ms + " ms");
+			mFontsReadyLogged = true;
+			if (BENCHMARK)
+				TextBenchmark.run(mActivityContext, glText);
+		}
+	}
+
+	// fail if a steady-state frame allocated on the heap
+	private void checkAllocations() {
+		int allocations = Debug.getThreadAllocCount();
+		if (++mFrameCount > ALLOC_WARMUP_FRAMES && allocations > 0) {
+			Log.e(TAG, "Frame " + mFrameCount + " allocated " + allocations
+					+ " objects (" + Debug.getThreadAllocSize() + " bytes)");
+			throw new RuntimeException("Heap allocation in steady-state frame");
+		}
+	}
+
+	// log the average number of vertex/index bytes uploaded per frame
+	private void logUploadStats() {
+		if (++mStatsFrames < STATS_FRAMES)
+			return;
+		long bytes = glText.getUploadedBytes()
+				+ mTextRenderer.getUploadedBytes()
+				+ mFpsField.getUploadedBytes();
+		Log.i(TAG, "Vertex upload (" + (glText.batch.compact ? "compact" : "float")
+				+ " layout): " + (bytes - mStatsBytes) / mStatsFrames
+				+ " bytes/frame");
+		Log.i(TAG, "Text draw calls (last frame, "
+				+ (mTextRenderer.isInstanced() ? "instanced" : "batched") + "): "
+				+ mTextRenderer.getDrawCalls() + " for "
+				+ mTextRenderer.getBuckets() + " texture/shader buckets");
+		SpriteBatch batch = mTextRenderer.batch;
+		Log.i(TAG, "Text batch: " + batch.getCapacity() + " sprites, "
+				+ batch.getFlushCount() + " flushes, " + batch.getResizeCount()
+				+ " resizes, " + batch.getPeakBytes() + " bytes peak");
+		if (RenderMetrics.ENABLED)
+			Log.i(TAG, "Render metrics (last " + RenderMetrics.HISTORY_FRAMES
+					+ " frames):\n" + RenderMetrics.export(new StringBuilder()));
+		Log.i(TAG, "GL state calls (last frame): " + GLState.getIssuedCalls()
+				+ " made, " + GLState.getSkippedCalls() + " skipped");
+		mStatsBytes = bytes;
+		mStatsFrames = 0;
 	}
 
 	private void setupCameraView() {
@@ -124,20 +302,112 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
 		// Set the background clear color to black.
 		GLES20.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
 
+		// New context: the tracked GL state is unknown
+		GLState.reset();
+
 		// Use culling to remove back faces.
 		GLES20.glEnable(GLES20.GL_CULL_FACE);
 
 		// Enable depth testing
-		GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+		GLState.setDepthTest(true);
 
 		glText = new GLText(mActivityContext, mMVPMatrix);
+		if (CHECK_ALLOCATIONS) {
+			Debug.startAllocCounting();
+			mFrameCount = 0;
+		}
 
 		// Load the font from file (set size + padding), creates the texture
-		// NOTE: after a successful call to this the font is ready for
-		// rendering!
+		// NOTE: the fonts load in parallel on worker threads; frames are
+		// rendered meanwhile, without the text of fonts still loading
 		// Create Font (Height: 14 Pixels; X+Y Padding 2 Pixels)
-		glText.load("bookos.ttf", 14, 2, 2);
+		mCreatedTime = System.nanoTime();
+		mFirstFrameLogged = mFontsReadyLogged = false;
+		glText.loadAsync("bookos.ttf", 14, 2, 2);
+		mCourText = new GLText(mActivityContext, mMVPMatrix);
+		mCourText.loadAsync("cour.ttf", 18, 2, 2);
+		mImpactText = new GLText(mActivityContext, mMVPMatrix);
+		mImpactText.loadAsync("impact.ttf", 24, 2, 2);
+
+		mTitleMesh = glText.createMesh("MyTextGL");
+		mTitleMesh.setColor(0.0f, 1.0f, 0.0f, 1.0f);
+		mConsole = new TextConsole(mCourText, 10000, 48, 32);
+		mConsole.setColor(0.7f, 0.7f, 0.7f, 1.0f);
+		mFpsField = new TextField(mImpactText, 16);
+		mFpsField.setColor(1.0f, 1.0f, 0.0f, 1.0f);
+		mParagraph = new TextLayout(glText);
+		mParagraph.setMode(TextLayout.OPTIMAL);
+		mParagraph.setText("Lines are broken at the wrap width and laid out"
+				+ " again only when the text, font or width changes.\n"
+				+ "Tab\tstops\tare\tsupported too.");
+
+		// Distance field atlas rasterized once at 32 pixels, drawn at any size
+		mZoomText = new GLText(mActivityContext, mMVPMatrix);
+		mZoomText.loadAsync("bookos.ttf", 32, 2, 2, true);
+
+		// All fonts draw through one renderer, flushed once per frame; with an
+		// OpenGL ES 3.0 context (see MyTextGLSurfaceView) it draws instanced
+		String version = GLES20.glGetString(GLES20.GL_VERSION);
+		boolean instanced = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+				&& version != null && version.startsWith("OpenGL ES 3");
+		mTextRenderer = new TextRenderer(mMVPMatrix, instanced);
+		Log.i(TAG, "Text backend: " + (instanced ? "GLES 3.0 instanced" : "GLES 2.0")
+				+ " (" + version + ")");
+		if (SHARED_RENDERER) {
+			glText.setRenderer(mTextRenderer);
+			mCourText.setRenderer(mTextRenderer);
+			mImpactText.setRenderer(mTextRenderer);
+			mZoomText.setRenderer(mTextRenderer);
+		} else {
+			glText.setDeferred(true);
+			mCourText.setDeferred(true);
+			mImpactText.setDeferred(true);
+			mZoomText.setDeferred(true);
+		}
+		mWorkerFont = mCourText;
+		startWorker();
+
+	}
+
+	// start a thread laying out a label off the GL thread (see
+	// TextCommandBuffer); it runs until stopWorker(), ie. while the surface
+	// exists (restarted by onSurfaceCreated())
+	private synchronized void startWorker() {
+		if (mWorker != null)
+			return;
+		mWorker = new Thread("GLText-overlay") {
+			@Override
+			public void run() {
+				StringBuilder label = new StringBuilder(32); // Reused Text
+				long start = SystemClock.uptimeMillis();
+				while (!isInterrupted()) {
+					long ms = SystemClock.uptimeMillis() - start;
+					label.setLength(0);
+					label.append("Worker: ").append(ms / 1000).append('.')
+							.append(ms / 100 % 10).append(" s");
+					mWorkerText.begin(mWorkerFont, 0.5f, 1.0f, 0.5f, 1.0f);
+					mWorkerText.draw(label, 50, 200);
+					mWorkerText.end();
+					mWorkerText.publish();
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException e) {
+						return; // Stopped
+					}
+				}
+			}
+		};
+		mWorker.setDaemon(true);
+		mWorker.start();
+	}
 
+	// stop the worker thread (see startWorker()); called when the activity
+	// pauses, as the surface (and the fonts) are recreated on resume
+	synchronized void stopWorker() {
+		if (mWorker == null)
+			return;
+		mWorker.interrupt();
+		mWorker = null;
 	}
 
 	// constructor
@@ -209,6 +479,28 @@ public class TextGLRenderer implements GLSurfaceView.Renderer {
 		return programHandle;
 	}
 
+	/**
+	 * Helper function to compile and link a program, and to resolve its
+	 * attribute and uniform locations once, right after linking.
+	 * 
+	 * @param vertexShaderHandle
+	 *            An OpenGL handle to an already-compiled vertex shader.
+	 * @param fragmentShaderHandle
+	 *            An OpenGL handle to an already-compiled fragment shader.
+	 * @param attributes
+	 *            Attributes that need to be bound to the program.
+	 * @param uniforms
+	 *            Uniforms whose locations should be resolved.
+	 * @return The program with its locations.
+	 */
+	public static ShaderProgram createAndLinkProgram(
+			final int vertexShaderHandle, final int fragmentShaderHandle,
+			final String[] attributes, final String[] uniforms) {
+		final int programHandle = createAndLinkProgram(vertexShaderHandle,
+				fragmentShaderHandle, attributes);
+		return new ShaderProgram(programHandle, attributes, uniforms);
+	}
+
 	/**
 	 * Helper function to compile a shader.
 	 * 
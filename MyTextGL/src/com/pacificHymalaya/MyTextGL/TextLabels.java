@@ -0,0 +1,229 @@
+package com.pacificHymalaya.MyTextGL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Bulk labels: thousands of short strings of one font, stored as a structure
+// of arrays (positions, packed colors, texts) and laid out in parallel into
+// one array of glyph quads (compact vertex layout), which a TextRenderer
+// then draws with as few draw calls as possible (see TextRenderer.submit()).
+//
+// Layout runs in two passes over contiguous ranges of labels, one range per
+// thread: the first counts the quads of each label, a prefix sum over the
+// counts gives every label its own range of the quad array, and the second
+// pass fills these (disjoint) ranges without any synchronization. The ranges
+// run on a pool of their own (one thread per range), so a layout never waits
+// behind load work (atlas and distance field generation).
+//
+// NOTE: like TextCommandBuffer, only the fixed character range is available
+// (other characters are laid out as CHAR_UNKNOWN); the labels are laid out
+// with the font's scale/spacing at the time of layout().
+public class TextLabels {
+
+	// --Members--//
+	float[] x, y; // Label Positions (Bottom Left)
+	int[] colors; // Packed Label Colors (see Vertices.packColor())
+	CharSequence[] texts; // Label Texts
+	int count; // Number of Labels
+	int[] offsets; // First Quad of Each Label (count + 1 Entries)
+	int[] data = new int[0]; // Laid Out Quads
+	int numSprites; // Number of Laid Out Quads
+
+	// font the quads were laid out with (see TextRenderer.submit())
+	GLText font;
+	int uploads; // Font Upload of the Layout
+	float scale; // Font Scale of the Layout
+
+	private final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+	private static ThreadPoolExecutor executor; // Layout Workers (Lazy)
+
+	// --Constructor--//
+	// A: capacity - initial number of labels (grows as needed)
+	public TextLabels(int capacity) {
+		capacity = Math.max(1, capacity);
+		x = new float[capacity];
+		y = new float[capacity];
+		colors = new int[capacity];
+		texts = new CharSequence[capacity];
+		offsets = new int[capacity + 1];
+	}
+
+	// --Clear--//
+	// D: remove all labels (keeps the storage)
+	public void clear() {
+		Arrays.fill(texts, 0, count, null); // Do Not Keep Texts Alive
+		count = 0;
+		numSprites = 0;
+		font = null;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	// --Add--//
+	// D: add a label
+	// A: text - the text of the label
+	// x, y - the position of the label (bottom left of text)
+	// red, green, blue, alpha - the color of the label
+	// R: [none]
+	public void add(CharSequence text, float x, float y, float red,
+			float green, float blue, float alpha) {
+		if (count == texts.length) { // Grow
+			int n = count * 2;
+			this.x = Arrays.copyOf(this.x, n);
+			this.y = Arrays.copyOf(this.y, n);
+			colors = Arrays.copyOf(colors, n);
+			texts = Arrays.copyOf(texts, n);
+			offsets = new int[n + 1];
+		}
+		this.x[count] = x;
+		this.y[count] = y;
+		colors[count] = Vertices.packColor(red, green, blue, alpha);
+		texts[count] = text;
+		count++;
+	}
+
+	// --Layout--//
+	// D: lay out all labels with a font (blocks until done; GL thread, as it
+	// reads the font's state). the font must be loaded
+	// A: font - the font to lay out with
+	// threads - number of parallel ranges (1 = on the calling thread only)
+	// R: [none]
+	public void layout(GLText font, int threads) {
+		if (font.mUploads == 0)
+			throw new RuntimeException("Font not loaded");
+		long start = (RenderMetrics.ENABLED ? System.nanoTime() : 0);
+		this.font = font;
+		uploads = font.mUploads;
+		scale = (font.scaleX + font.scaleY) / 2.0f;
+		threads = Math.max(1, Math.min(threads, count));
+
+		// pass 1: count the quads of each label (offsets[i + 1])
+		run(font, threads, false);
+		// prefix sum: the first quad of each label
+		offsets[0] = 0;
+		for (int i = 0; i < count; i++)
+			offsets[i + 1] += offsets[i];
+		numSprites = offsets[count];
+		int length = numSprites * TextRenderer.SPRITE_INTS;
+		if (length > data.length) // Grow (Kept for Next Layouts)
+			data = new int[Math.max(length, data.length * 2)];
+		// pass 2: fill each label's range of quads
+		run(font, threads, true);
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.add(RenderMetrics.LAYOUT_NS, System.nanoTime() - start);
+	}
+
+	// run one layout pass over the labels, split into contiguous ranges
+	private void run(final GLText font, int threads, final boolean fill) {
+		if (threads == 1) {
+			layoutRange(font, 0, count, fill);
+			return;
+		}
+		tasks.clear();
+		for (int t = 0; t < threads; t++) {
+			final int first = (int) ((long) count * t / threads);
+			final int last = (int) ((long) count * (t + 1) / threads);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					layoutRange(font, first, last, fill);
+					return null;
+				}
+			});
+		}
+		try {
+			List<Future<Void>> results = getExecutor(threads).invokeAll(tasks);
+			for (int i = 0; i < results.size(); i++)
+				results.get(i).get(); // Propagate Worker Failures
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Label layout interrupted");
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Label layout failed", e.getCause());
+		}
+	}
+
+	// --Executor--//
+	// D: return the pool running the layout ranges, grown to at least the
+	// specified number of threads (the largest number requested so far); the
+	// threads are daemons and never block exit
+	static synchronized ExecutorService getExecutor(int threads) {
+		if (executor == null)
+			executor = new ThreadPoolExecutor(threads, threads, 0L,
+					TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						private int count;
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "GLText-labels-"
+									+ (++count));
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		else if (executor.getMaximumPoolSize() < threads) {
+			executor.setMaximumPoolSize(threads); // (Maximum First)
+			executor.setCorePoolSize(threads);
+		}
+		return executor;
+	}
+
+	// --Layout Range--//
+	// D: count (fill = false) or lay out (fill = true) the quads of a range
+	// of labels
+	// A: font - the font to lay out with
+	// first, last - the range of labels (last exclusive)
+	// fill - false = store the counts in offsets[i + 1], true = write quads
+	// R: [none]
+	private void layoutRange(GLText font, int first, int last, boolean fill) {
+		TextureRegion[] charRgn = font.charRgn;
+		float[] charWidths = font.charWidths;
+		float sx = font.scaleX, sy = font.scaleY, space = font.spaceX;
+		int[] d = data;
+		for (int l = first; l < last; l++) {
+			CharSequence text = texts[l];
+			float x = this.x[l], y = this.y[l];
+			int color = colors[l];
+			int i = (fill ? offsets[l] * TextRenderer.SPRITE_INTS : 0);
+			int quads = 0;
+			int len = text.length();
+			for (int k = 0; k < len; k++) {
+				char ch = text.charAt(k);
+				int c = (int) ch - GLText.CHAR_START;
+				if (c < 0) // Control Character: No Glyph, No Advance
+					continue;
+				if (c > GLText.CHAR_LAST) { // IF Not a Fixed Character
+					if (Character.isHighSurrogate(ch))
+						k++; // Skip Low Surrogate
+					c = GLText.CHAR_UNKNOWN;
+				}
+				TextureRegion rgn = charRgn[c];
+				if (rgn.width > 0) { // IF Anything to Draw
+					quads++;
+					if (fill) {
+						float x1 = x + rgn.offsetX * sx;
+						float y1 = y + rgn.offsetY * sy;
+						i = SpriteBatch.packSprite(d, i, x1, y1, x1 + rgn.width
+								* sx, y1 + rgn.height * sy, rgn, color);
+					}
+				}
+				// Advance X Position by Scaled Character Width
+				x += (charWidths[c] + space) * sx;
+			}
+			if (!fill)
+				offsets[l + 1] = quads;
+		}
+	}
+}
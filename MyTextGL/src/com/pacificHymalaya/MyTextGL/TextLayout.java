@@ -0,0 +1,492 @@
+package com.pacificHymalaya.MyTextGL;
+
+// Paragraph layout of a (possibly long, editable) text with a GLText font:
+// '\n' starts a new paragraph, tabs advance to the next tab stop, and lines
+// wider than the wrap width are broken after spaces (within a word only if the
+// word alone is too wide). Lines are broken either greedily (first fit) or,
+// per paragraph, optimally (minimum raggedness: the sum of the squared slack
+// of all lines but the last), from per-glyph advance prefix sums, in one pass
+// over the characters. The result is a line index (start, end and width of
+// each line) used to draw, scroll and hit test.
+//
+// After an edit (see textChanged()) only the affected lines are broken again:
+// greedy breaking restarts at the line before the edit and stops as soon as a
+// line starts where an old line started after the edit (all following lines
+// are then unchanged and only shifted); optimal breaking re-breaks the edited
+// paragraphs. The line index itself is updated with array copies.
+//
+// NOTE: the widths are those of the font's current scale and spacing (the
+// layout is redone by draw() if they, or the font, changed). measuring
+// characters outside the fixed range may rasterize glyphs, so use on the GL
+// thread only (like GLText). tab stops are exact with greedy breaking;
+// paragraphs containing tabs are always broken greedily.
+public class TextLayout {
+
+	// --Constants--//
+	public final static int GREEDY = 0; // First Fit (Re-Broken per Line)
+	public final static int OPTIMAL = 1; // Minimum Raggedness (per Paragraph)
+
+	// A character range of the text as a CharSequence (re-pointed, not copied)
+	static class Range implements CharSequence {
+		CharSequence text;
+		int start, end;
+
+		Range set(CharSequence text, int start, int end) {
+			this.text = text;
+			this.start = start;
+			this.end = end;
+			return this;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return text.charAt(start + index);
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public CharSequence subSequence(int s, int e) {
+			return text.subSequence(start + s, start + e);
+		}
+
+		@Override
+		public String toString() {
+			return text.subSequence(start, end).toString();
+		}
+	}
+
+	// --Members--//
+	final GLText font; // Font Used to Measure (and Draw) the Text
+	CharSequence text = ""; // Laid Out Text (Not Copied)
+	float wrapWidth; // Wrap Width (Pixels; 0 = No Wrapping)
+	int tabSize = 4; // Tab Stop Distance (Spaces)
+	int mode = GREEDY; // Line Breaking (GREEDY or OPTIMAL)
+	int uploads, relaidLines; // Font Load Laid Out With / Lines Last Broken
+	float scaleX, spaceX; // Font Scale/Spacing Laid Out With
+
+	// Line index: start, end (without trailing whitespace) and width per line
+	int[] starts = new int[64], ends = new int[64];
+	float[] widths = new float[64];
+	int numLines;
+
+	// Lines broken by the current layout pass (spliced into the index)
+	int[] outStarts = new int[64], outEnds = new int[64];
+	float[] outWidths = new float[64];
+	int numOut;
+	int syncAfter; // Lines Starting From Here May Match the Old Lines
+	int syncDelta; // Offset Change of the Old Lines After the Edit
+	int syncLine; // Old Line Matched Against (Advances Monotonically)
+
+	float[] pre = new float[256]; // Advance Prefix Sums (Line/Paragraph)
+	int[] cand = new int[64]; // Break Candidates (OPTIMAL)
+	float[] cost = new float[64]; // Best Cost up to Each Candidate
+	int[] from = new int[64]; // Line Start Candidate of the Best Cost
+	int[] path = new int[64]; // Line End Candidates of the Best Breaks
+	final Range mRange = new Range();
+
+	// --Constructor--//
+	// A: font - the font to measure and draw the text with
+	public TextLayout(GLText font) {
+		this.font = font;
+		layout(); // (One Empty Line)
+	}
+
+	// --Set Text--//
+	// D: lay out a new text
+	// NOTE: the text is not copied; after changing it, call textChanged()
+	// A: text - the text (eg. a StringBuilder edited in place)
+	// R: [none]
+	public void setText(CharSequence text) {
+		this.text = text;
+		layout();
+	}
+
+	// --Set Wrap Width/Tab Size/Mode--//
+	// D: change a layout parameter and lay out the whole text again
+	// A: width - the width to wrap lines at (pixels; 0 = no wrapping)
+	// spaces - the distance between tab stops (in space widths)
+	// mode - GREEDY or OPTIMAL
+	// R: [none]
+	public void setWrapWidth(float width) {
+		wrapWidth = width;
+		layout();
+	}
+
+	public void setTabSize(int spaces) {
+		tabSize = Math.max(1, spaces);
+		layout();
+	}
+
+	public void setMode(int mode) {
+		this.mode = mode;
+		layout();
+	}
+
+	// --Layout--//
+	// D: break the whole text into lines again (eg. after the font scale
+	// changed)
+	// A: [none]
+	// R: [none]
+	public void layout() {
+		uploads = font.mUploads;
+		scaleX = font.scaleX;
+		spaceX = font.spaceX;
+		syncAfter = Integer.MAX_VALUE; // Never Matches
+		syncDelta = 0;
+		syncLine = 0;
+		rebreak(0);
+		splice(0, numLines, 0);
+	}
+
+	// --Text Changed--//
+	// D: update the lines after the text was edited in place (same arguments
+	// as TextWatcher.onTextChanged()): only lines from the one before the
+	// edit up to the first unchanged line are broken again
+	// A: start - the offset of the edit
+	// before - the number of characters replaced
+	// count - the number of characters that replaced them
+	// R: [none]
+	public void textChanged(int start, int before, int count) {
+		if (font.mUploads != uploads || font.scaleX != scaleX
+				|| font.spaceX != spaceX) {
+			layout(); // Metrics Changed: Everything is Stale
+			return;
+		}
+		int first = getLineForOffset(start);
+		if (mode == GREEDY) {
+			if (first > 0) // The Edit May Let a Word Move Up a Line
+				first--;
+		} else {
+			while (first > 0 && text.charAt(starts[first] - 1) != '\n')
+				first--; // Paragraph Start
+		}
+		// optimal lines only match old lines of an unchanged paragraph, so the
+		// '\n' before the matched line must follow the edit (an old line at
+		// the same offset may have been broken inside a longer paragraph)
+		syncAfter = start + count + (mode == GREEDY ? 0 : 1);
+		syncDelta = count - before;
+		syncLine = first + 1;
+		rebreak(starts[first]);
+		splice(first, syncLine, syncDelta);
+	}
+
+	// break lines from a line start (offset in the new text) into the out
+	// arrays, until the text ends or a line starts where an old line started
+	// after the edit (syncLine then is that old line)
+	private void rebreak(int pos) {
+		numOut = 0;
+		int len = text.length();
+		while (true) {
+			int pe = pos;
+			while (pe < len && text.charAt(pe) != '\n')
+				pe++; // Paragraph End
+			boolean synced;
+			if (mode == OPTIMAL && wrapWidth > 0.0f) // (pos Starts a Paragraph)
+				synced = breakOptimal(pos, pe, len);
+			else
+				synced = breakGreedy(pos, pe, len, mode == GREEDY);
+			if (synced)
+				break;
+			if (pe == len) { // End of Text: Replace All Old Lines
+				syncLine = numLines;
+				break;
+			}
+			pos = pe + 1;
+		}
+		relaidLines = numOut;
+	}
+
+	// replace the old lines [first, end) with the out lines, and shift the
+	// starts/ends of the old lines after them by delta
+	private void splice(int first, int end, int delta) {
+		int tail = numLines - end;
+		int total = first + numOut + tail;
+		if (total > starts.length) { // Grow (Kept)
+			int size = Math.max(total, starts.length * 2);
+			starts = copyOf(starts, size, numLines);
+			ends = copyOf(ends, size, numLines);
+			float[] grown = new float[size];
+			System.arraycopy(widths, 0, grown, 0, numLines);
+			widths = grown;
+		}
+		int to = first + numOut;
+		System.arraycopy(starts, end, starts, to, tail);
+		System.arraycopy(ends, end, ends, to, tail);
+		System.arraycopy(widths, end, widths, to, tail);
+		if (delta != 0) {
+			for (int i = to; i < total; i++) {
+				starts[i] += delta;
+				ends[i] += delta;
+			}
+		}
+		System.arraycopy(outStarts, 0, starts, first, numOut);
+		System.arraycopy(outEnds, 0, ends, first, numOut);
+		System.arraycopy(outWidths, 0, widths, first, numOut);
+		numLines = total;
+	}
+
+	private static int[] copyOf(int[] array, int size, int used) {
+		int[] grown = new int[size];
+		System.arraycopy(array, 0, grown, 0, used);
+		return grown;
+	}
+
+	// add a broken line; returns true if the next line starts where an old
+	// line (after the edit) started, ie. all following lines are unchanged
+	private boolean emit(int start, int end, float width, int next,
+			boolean check) {
+		if (numOut == outStarts.length) { // Grow (Kept)
+			outStarts = copyOf(outStarts, numOut * 2, numOut);
+			outEnds = copyOf(outEnds, numOut * 2, numOut);
+			float[] grown = new float[numOut * 2];
+			System.arraycopy(outWidths, 0, grown, 0, numOut);
+			outWidths = grown;
+		}
+		outStarts[numOut] = start;
+		outEnds[numOut] = end;
+		outWidths[numOut] = Math.max(0.0f, width);
+		numOut++;
+		if (!check || next < syncAfter)
+			return false;
+		int target = next - syncDelta; // Offset in the Old Text
+		while (syncLine < numLines && starts[syncLine] < target)
+			syncLine++;
+		return (syncLine < numLines && starts[syncLine] == target);
+	}
+
+	// advance of the character at an offset (0 for the low half of a
+	// surrogate pair; the pair is measured at its high half)
+	private float advanceAt(int i) {
+		char ch = text.charAt(i);
+		int c = (int) ch - GLText.CHAR_START;
+		if (c < 0) // Control Character (No Glyph)
+			return 0.0f;
+		if (c > GLText.CHAR_LAST) { // IF Not a Fixed Character
+			if (Character.isLowSurrogate(ch) && i > 0
+					&& Character.isHighSurrogate(text.charAt(i - 1)))
+				return 0.0f;
+			c = font.getGlyph(Character.codePointAt(text, i));
+		}
+		return (font.charWidths[c] + font.spaceX) * font.scaleX;
+	}
+
+	// x position of the tab stop after x
+	private float nextTabStop(float x) {
+		float tab = tabSize * (font.charWidths[' ' - GLText.CHAR_START]
+				+ font.spaceX) * font.scaleX;
+		return (tab > 0.0f ? ((int) (x / tab) + 1) * tab : x);
+	}
+
+	// grow the prefix sums to hold n entries
+	private void ensurePrefix(int n) {
+		if (n > pre.length) {
+			float[] grown = new float[Math.max(n, pre.length * 2)];
+			System.arraycopy(pre, 0, grown, 0, pre.length);
+			pre = grown;
+		}
+	}
+
+	// --Break Greedy--//
+	// D: break the rest of a paragraph from a line start, filling each line
+	// as far as it fits
+	// A: s - the line start
+	// pe - the paragraph end ('\n' or the text length)
+	// len - the text length
+	// checkLines - look for unchanged old lines after every line (not just
+	// the last)
+	// R: true if an unchanged old line was reached
+	private boolean breakGreedy(int s, int pe, int len, boolean checkLines) {
+		float wrap = (wrapWidth > 0.0f ? wrapWidth : Float.POSITIVE_INFINITY);
+		float spacing = font.spaceX * font.scaleX; // (Not After the Last)
+		ensurePrefix(Math.min(pe - s, 1024) + 1);
+		float x = 0.0f; // Advance From the Line Start (= pre[i - s])
+		int brk = -1, brkEnd = s; // Last Break (After Whitespace)/Its Line End
+		int contentEnd = s; // End of the Last Non-Whitespace Character
+		pre[0] = 0.0f;
+		for (int i = s; i < pe; i++) {
+			char ch = text.charAt(i);
+			boolean ws = (ch == ' ' || ch == '\t');
+			// (tab stops depend on the line start; tabs never break a line)
+			float adv = (ch == '\t' ? nextTabStop(x) - x : advanceAt(i));
+			while (!ws && i > s && x + adv - spacing > wrap) { // IF Overflowing
+				int b = (brk > s ? brk : i); // Else Break Within the Word
+				int e = (brk > s ? brkEnd : i);
+				if (emit(s, e, pre[e - s] - spacing, b, checkLines))
+					return true;
+				// continue the word on the new line (no tabs since b)
+				float base = pre[b - s];
+				for (int k = b; k <= i; k++)
+					pre[k - b] = pre[k - s] - base;
+				x -= base;
+				s = b;
+				brk = -1;
+				contentEnd = Math.max(contentEnd, s);
+			}
+			if (ws) { // Break After the Run (Line Ends Before It)
+				brkEnd = contentEnd;
+				brk = i + 1;
+			} else {
+				contentEnd = i + 1;
+			}
+			x += adv;
+			ensurePrefix(i + 2 - s);
+			pre[i + 1 - s] = x;
+		}
+		return emit(s, contentEnd, pre[contentEnd - s] - spacing,
+				(pe < len ? pe + 1 : len), pe < len);
+	}
+
+	// --Break Optimal--//
+	// D: break a whole paragraph so that the sum of the squared slack of its
+	// lines (except the last) is minimal; paragraphs with tabs, or with a
+	// word wider than the wrap width, are broken greedily
+	// A: ps, pe - the paragraph start and end ('\n' or the text length)
+	// len - the text length
+	// R: true if an unchanged old line was reached (after the paragraph)
+	private boolean breakOptimal(int ps, int pe, int len) {
+		float wrap = wrapWidth;
+		float spacing = font.spaceX * font.scaleX;
+		ensurePrefix(pe - ps + 1);
+		int nc = 0; // Break Candidates (Line Ends/Next Line Starts)
+		float x = 0.0f;
+		pre[0] = 0.0f;
+		for (int i = ps; i < pe; i++) { // Prefix Sums and Candidates
+			char ch = text.charAt(i);
+			if (ch == '\t')
+				return breakGreedy(ps, pe, len, false);
+			x += advanceAt(i);
+			pre[i + 1 - ps] = x;
+			if (ch == ' ' && i + 1 < pe && text.charAt(i + 1) != ' ') {
+				if (nc + 1 >= cand.length) { // Grow (Kept)
+					cand = copyOf(cand, cand.length * 2, nc);
+					from = copyOf(from, from.length * 2, nc);
+					cost = new float[cand.length];
+					path = new int[cand.length];
+				}
+				cand[nc++] = i + 1;
+			}
+		}
+		cand[nc++] = pe;
+
+		// best cost of breaking after each candidate, from the best start
+		for (int k = 0; k < nc; k++) {
+			int e = trimEnd(cand[k]);
+			float best = Float.POSITIVE_INFINITY;
+			int bestFrom = -1;
+			for (int j = k - 1; j >= -1; j--) { // Longer Lines Going Back
+				int s = (j < 0 ? ps : cand[j]);
+				float w = pre[e - ps] - pre[s - ps] - spacing;
+				if (w > wrap)
+					break;
+				float slack = wrap - w;
+				float c = (j < 0 ? 0.0f : cost[j])
+						+ (k == nc - 1 ? 0.0f : slack * slack);
+				if (c < best) {
+					best = c;
+					bestFrom = j;
+				}
+			}
+			if (best == Float.POSITIVE_INFINITY)
+				return breakGreedy(ps, pe, len, false); // Word Too Wide
+			cost[k] = best;
+			from[k] = bestFrom;
+		}
+
+		// walk the best breaks back, then emit the lines in order
+		int lines = 0;
+		for (int k = nc - 1; k >= 0; k = from[k])
+			path[lines++] = k;
+		for (int l = lines - 1; l >= 0; l--) {
+			int k = path[l];
+			int s = (from[k] < 0 ? ps : cand[from[k]]);
+			int e = trimEnd(cand[k]);
+			boolean last = (l == 0);
+			int next = (last ? (pe < len ? pe + 1 : len) : cand[k]);
+			if (emit(s, e, pre[e - ps] - pre[s - ps] - spacing, next, last
+					&& pe < len))
+				return true;
+		}
+		return false;
+	}
+
+	// end of a line ending at a break candidate, without trailing spaces
+	private int trimEnd(int end) {
+		while (end > 0 && text.charAt(end - 1) == ' ')
+			end--;
+		return end;
+	}
+
+	// --Draw--//
+	// D: draw a range of lines (between begin() and end() of the font); the
+	// text is laid out again first if the font was reloaded or its scale or
+	// spacing changed
+	// A: x - the left of the lines
+	// top - the top of the first line
+	// firstLine - the first line to draw
+	// count - the number of lines to draw
+	// R: [none]
+	public void draw(float x, float top, int firstLine, int count) {
+		if (font.mUploads != uploads || font.scaleX != scaleX
+				|| font.spaceX != spaceX)
+			layout();
+		float height = font.getCharHeight();
+		int last = Math.min(numLines, firstLine + count);
+		float y = top;
+		for (int l = Math.max(0, firstLine); l < last; l++) {
+			y -= height;
+			int seg = starts[l], e = ends[l];
+			float lx = 0.0f; // Advance From the Line Start
+			for (int i = seg; i <= e; i++) { // Segments Between Tabs
+				if (i < e && text.charAt(i) != '\t')
+					continue;
+				if (i > seg) {
+					font.draw(mRange.set(text, seg, i), x + lx, y);
+					lx = font.lastX - x;
+				}
+				if (i < e)
+					lx = nextTabStop(lx);
+				seg = i + 1;
+			}
+		}
+	}
+
+	// --Line Index--//
+	// D: return the number of lines, the start/end (without trailing
+	// whitespace) offset or width of a line, the line containing an offset,
+	// and the number of lines broken by the last layout or edit
+	public int getLineCount() {
+		return numLines;
+	}
+
+	public int getLineStart(int line) {
+		return starts[line];
+	}
+
+	public int getLineEnd(int line) {
+		return ends[line];
+	}
+
+	public float getLineWidth(int line) {
+		return widths[line];
+	}
+
+	public int getLineForOffset(int offset) {
+		int lo = 0, hi = numLines - 1;
+		while (lo < hi) { // Last Line Starting at or Before the Offset
+			int mid = (lo + hi + 1) >>> 1;
+			if (starts[mid] <= offset)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	public int getRelaidLines() {
+		return relaidLines;
+	}
+}
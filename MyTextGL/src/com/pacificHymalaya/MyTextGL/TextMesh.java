@@ -0,0 +1,202 @@
+// A retained text mesh. The glyph quads for a string are laid out once (in
+// unscaled font units, with the origin at the bottom-left of the string) and
+// stored in a GPU vertex buffer. Redrawing the mesh only sets the translation,
+// scale and color uniforms and issues a single draw call, so the per-frame
+// cost of static text no longer depends on the number of glyphs.
+//
+// NOTE: the mesh is re-laid out only when its string changes, or when the
+// owning GLText reloads its font or changes its spacing. Scaling is applied
+// by the shader and never forces a re-layout.
+
+package com.pacificHymalaya.MyTextGL;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import android.opengl.GLES20;
+
+public class TextMesh {
+
+	// --Constants--//
+	final static int VERTEX_SIZE = 4; // Vertex Size (in Components) ie. (X,Y, U,V)
+	final static int VERTEX_BYTES = VERTEX_SIZE * 4; // Vertex Byte Size
+	final static int VERTICES_PER_GLYPH = 4; // Vertices Per Glyph Quad
+	final static int INDICES_PER_GLYPH = 6; // Indices Per Glyph Quad
+	// Maximum Glyphs Per Mesh (Limited by 16-bit Indices)
+	public final static int MAX_GLYPHS = 65536 / VERTICES_PER_GLYPH - 1;
+
+	// --Members--//
+	final GLText glText; // Font Used to Lay Out the Mesh
+	String text; // Current Text of the Mesh
+	int numGlyphs; // Number of Glyph Quads in the Mesh
+	int capacity; // Number of Glyph Quads the GPU Buffers Can Hold
+	float width; // Laid Out Width (Unscaled; Pixels)
+	int fontVersion; // Font Version the Mesh was Laid Out With
+	float spaceX; // Font Spacing the Mesh was Laid Out With
+	boolean dirty; // Re-layout Required Before Next Draw
+	final float[] color; // Mesh Color {R G B A}
+	// GPU buffer handles: [0] = Vertex Buffer, [1] = Index Buffer
+	final int[] bufferIds;
+
+	// --Constructor--//
+	// D: create an (empty) mesh for the specified font. use GLText.createMesh()
+	// A: glText - the font used to lay out the mesh
+	// text - the initial string of the mesh
+	TextMesh(GLText glText, String text) {
+		this.glText = glText;
+		this.text = text;
+		this.color = new float[] { 1.0f, 1.0f, 1.0f, 1.0f }; // Default White
+		this.bufferIds = new int[2];
+		this.numGlyphs = 0;
+		this.capacity = 0;
+		this.width = 0.0f;
+		this.dirty = true;
+	}
+
+	// --Set Text--//
+	// D: change the string of the mesh. the mesh is re-laid out on the next
+	// draw only if the string actually changed
+	// A: text - the new string
+	// R: [none]
+	public void setText(String text) {
+		if (!text.equals(this.text)) {
+			this.text = text;
+			dirty = true;
+		}
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	// --Set Color--//
+	// D: set the color used when drawing the mesh (applied as a uniform)
+	// A: red, green, blue, alpha - the RGBA color of the text
+	// R: [none]
+	public void setColor(float red, float green, float blue, float alpha) {
+		color[0] = red;
+		color[1] = green;
+		color[2] = blue;
+		color[3] = alpha;
+	}
+
+	// --Get Width--//
+	// D: return the width of the mesh if drawn with the current font scale
+	// A: [none]
+	// R: the scaled width of the mesh (pixels)
+	public float getWidth() {
+		if (!glText.isLoaded()) // IF Font Still Loading
+			return 0.0f;
+		if (isStale())
+			layout();
+		return width * glText.scaleX;
+	}
+
+	// --Draw--//
+	// D: draw the mesh at the specified position
+	// A: x, y - the x,y position to draw the text at (bottom left of text;
+	// including descent)
+	// scale - additional scale applied on top of the font scale
+	// NOTE: draws nothing while the font is still loading (see loadAsync())
+	// R: [none]
+	public void draw(float x, float y) {
+		draw(x, y, 1.0f);
+	}
+
+	public void draw(float x, float y, float scale) {
+		if (!glText.isLoaded()) // IF Font Still Loading
+			return;
+		if (isStale())
+			layout();
+		if (numGlyphs == 0)
+			return; // Nothing to Draw
+		glText.drawMesh(this, x, y, glText.scaleX * scale, glText.scaleY * scale);
+	}
+
+	// --Release--//
+	// D: free the GPU buffers of the mesh. the mesh can still be drawn again
+	// afterwards, in which case it is re-laid out and re-uploaded
+	// A: [none]
+	// R: [none]
+	public void release() {
+		if (bufferIds[0] != 0) {
+			GLES20.glDeleteBuffers(2, bufferIds, 0);
+			bufferIds[0] = 0;
+			bufferIds[1] = 0;
+		}
+		capacity = 0;
+		dirty = true;
+	}
+
+	// check whether the baked vertices are out of date
+	boolean isStale() {
+		return dirty || fontVersion != glText.fontVersion
+				|| spaceX != glText.spaceX;
+	}
+
+	// --Create Indices--//
+	// D: generate the (constant) indices of a number of glyph quads
+	// A: quads - the number of quads (at most MAX_GLYPHS)
+	// R: the indices (flipped, ready to upload)
+	static ShortBuffer createIndices(int quads) {
+		ShortBuffer indices = ByteBuffer
+				.allocateDirect(quads * INDICES_PER_GLYPH * 2)
+				.order(ByteOrder.nativeOrder()).asShortBuffer();
+		for (int i = 0, j = 0; i < quads; i++, j += VERTICES_PER_GLYPH) {
+			indices.put((short) (j + 0));
+			indices.put((short) (j + 1));
+			indices.put((short) (j + 2));
+			indices.put((short) (j + 2));
+			indices.put((short) (j + 3));
+			indices.put((short) (j + 0));
+		}
+		indices.flip();
+		return indices;
+	}
+
+	// --Layout--//
+	// D: lay out the glyph quads of the current string and upload them to
+	// the GPU buffers (growing the buffers if required)
+	// A: [none]
+	// R: [none]
+	void layout() {
+		int len = Math.min(text.length(), MAX_GLYPHS);
+		FloatBuffer vertices = ByteBuffer
+				.allocateDirect(len * VERTICES_PER_GLYPH * VERTEX_BYTES)
+				.order(ByteOrder.nativeOrder()).asFloatBuffer();
+		width = glText.layoutMesh(text, len, vertices, 0.0f);
+		vertices.flip();
+
+		if (bufferIds[0] == 0) // IF Buffers Not Yet Created
+			GLES20.glGenBuffers(2, bufferIds, 0);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferIds[0]);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferIds[1]);
+		if (len > capacity) { // IF Buffers Too Small
+			// Re-allocate the vertex buffer for a quad per character (empty
+			// glyphs are skipped, so this text may write fewer)
+			GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, len
+					* VERTICES_PER_GLYPH * VERTEX_BYTES, null,
+					GLES20.GL_STATIC_DRAW);
+			// Generate and upload the (constant) quad indices
+			ShortBuffer indices = createIndices(len);
+			GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER,
+					indices.limit() * 2, indices, GLES20.GL_STATIC_DRAW);
+			capacity = len;
+		}
+		if (vertices.limit() > 0) // Replace the Vertices
+			GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0,
+					vertices.limit() * 4, vertices);
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.add(RenderMetrics.BYTES_UPLOADED, vertices.limit() * 4);
+
+		// empty glyphs (eg. spaces) are not written, so count the quads
+		numGlyphs = vertices.limit() / (VERTICES_PER_GLYPH * VERTEX_SIZE);
+		fontVersion = glText.fontVersion;
+		spaceX = glText.spaceX;
+		dirty = false;
+	}
+}
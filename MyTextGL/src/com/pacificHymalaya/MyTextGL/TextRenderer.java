@@ -0,0 +1,353 @@
+package com.pacificHymalaya.MyTextGL;
+
+import android.opengl.GLES20;
+
+// Frame level text renderer shared by any number of GLText instances (see
+// GLText.setRenderer()). Instead of flushing their own batch in end(), the
+// attached fonts record their glyph quads (compact vertex layout) into
+// buckets keyed by everything that needs its own draw call: the texture and
+// the edge parameters of the shader (distance field thresholds). flush()
+// then draws each bucket with one draw call (more only if a bucket exceeds
+// the largest batch, see SpriteBatch.MAX_SPRITES), all with the same program,
+// in the order the buckets were first used during the frame. Quads keep their
+// order within a bucket.
+//
+// Blending order is kept across buckets: each bucket tracks the vertical
+// extent of its quads, and text recorded for a bucket that is drawn before
+// another bucket already holding quads in the same band (ie. text that may
+// overlap text recorded earlier) goes into a new bucket of the same texture
+// and edge, drawn last. Text that does not overlap costs no extra draw call.
+//
+// With an OpenGL ES 3.0 context the renderer can be created instanced (see
+// InstancedGlyphBatch): buckets then record one compact instance per glyph
+// instead of 4 vertices, and each bucket is drawn with one instanced draw
+// call whatever its size.
+//
+// NOTE: anything drawn without the renderer (meshes, consoles, fonts not
+// attached) is drawn right away, ie. beneath the text recorded so far; call
+// flush() first when it must be on top. Must only be used on the GL thread.
+public class TextRenderer {
+
+	// --Constants--//
+	final static int BATCH_SIZE = 2048; // Sprites per Draw Call (Initially)
+	final static int SPRITE_INTS = SpriteBatch.VERTICES_PER_SPRITE
+			* SpriteBatch.COMPACT_VERTEX_SIZE; // Elements per Sprite
+
+	// One Bucket: Quads Sharing Texture and Shader Parameters
+	class Bucket {
+		int textureId; // Texture of the Quads
+		float edgeStart, edgeScale; // u_edge of the Quads
+		int[] data = new int[64 * stride]; // Packed Quads (or Instances)
+		int numSprites; // Number of Quads in data
+		float minY, maxY; // Vertical Extent of the Quads (Empty: min > max)
+
+		// remove all quads
+		void clear() {
+			numSprites = 0;
+			minY = Float.POSITIVE_INFINITY;
+			maxY = Float.NEGATIVE_INFINITY;
+		}
+
+		// --Add Sprite--//
+		// D: record a quad (same layout as SpriteBatch.drawSpriteCompact(), or
+		// an instance record of InstancedGlyphBatch)
+		// A: x1, y1, x2, y2 - the left, bottom, right and top of the quad
+		// region - the texture region of the quad
+		// color - the packed color (see Vertices.packColor())
+		// R: [none]
+		void addSprite(float x1, float y1, float x2, float y2,
+				TextureRegion region, int color) {
+			int i = numSprites * stride;
+			if (i + stride > data.length) { // Grow (Kept for Next Frames)
+				int[] grown = new int[data.length * 2];
+				System.arraycopy(data, 0, grown, 0, i);
+				data = grown;
+			}
+			int[] d = data;
+			if (instanced != null) {
+				d[i++] = Float.floatToRawIntBits(x1);
+				d[i++] = Float.floatToRawIntBits(y1);
+				d[i++] = Float.floatToRawIntBits(x2);
+				d[i++] = Float.floatToRawIntBits(y2);
+				d[i++] = Vertices.packTexCoords(region.su1, region.sv2);
+				d[i++] = Vertices.packTexCoords(region.su2, region.sv1);
+				d[i] = color;
+			} else {
+				SpriteBatch.packSprite(d, i, x1, y1, x2, y2, region, color);
+			}
+			minY = Math.min(minY, Math.min(y1, y2));
+			maxY = Math.max(maxY, Math.max(y1, y2));
+			numSprites++;
+			numPending++;
+		}
+
+		// --Translate/Truncate--//
+		// D: move recorded quads horizontally (see GLText.drawAligned()) / drop
+		// the quads recorded after the specified number
+		// A: first - the first quad to move
+		// count - the number of quads
+		// dx - the distance to move them by
+		// sprites - the number of quads to keep
+		// R: [none]
+		void translate(int first, int count, float dx) {
+			int[] d = data;
+			int end = (first + count) * stride;
+			if (instanced != null) { // x1, x2 of Each Instance
+				for (int i = first * stride; i < end; i += stride) {
+					d[i] = Float.floatToRawIntBits(Float.intBitsToFloat(d[i]) + dx);
+					d[i + 2] = Float.floatToRawIntBits(Float.intBitsToFloat(d[i + 2])
+							+ dx);
+				}
+				return;
+			}
+			for (int i = first * stride; i < end; i += SpriteBatch.COMPACT_VERTEX_SIZE)
+				d[i] = Float.floatToRawIntBits(Float.intBitsToFloat(d[i]) + dx);
+		}
+
+		void truncate(int sprites) {
+			numPending -= numSprites - sprites;
+			numSprites = sprites;
+		}
+
+		// --Add Packed Sprites--//
+		// D: record quads already packed (see TextCommandBuffer), converted to
+		// instance records when instanced
+		// A: src - the packed quads (compact layout)
+		// first - the first quad in src
+		// count - the number of quads
+		// R: [none]
+		void addPacked(int[] src, int first, int count) {
+			int i = numSprites * stride;
+			int length = count * stride;
+			if (i + length > data.length) { // Grow (Kept for Next Frames)
+				int[] grown = new int[Math.max(data.length * 2, i + length)];
+				System.arraycopy(data, 0, grown, 0, i);
+				data = grown;
+			}
+			if (instanced != null)
+				InstancedGlyphBatch.convert(src, first * SPRITE_INTS, data, i,
+						count);
+			else
+				System.arraycopy(src, first * SPRITE_INTS, data, i, length);
+			for (int s = first * SPRITE_INTS, end = s + count * SPRITE_INTS; s < end; s += SPRITE_INTS) {
+				float y1 = Float.intBitsToFloat(src[s + 1]); // p0
+				float y2 = Float.intBitsToFloat(src[s + 9]); // p2
+				minY = Math.min(minY, Math.min(y1, y2));
+				maxY = Math.max(maxY, Math.max(y1, y2));
+			}
+			numSprites += count;
+			numPending += count;
+		}
+	}
+
+	// --Members--//
+	final SpriteBatch batch; // Shared Batch (Compact Layout)
+	final ShaderProgram mProgram; // Shared Program (GLText Shaders)
+	final int mEdgeHandle; // u_edge Location
+	final InstancedGlyphBatch instanced; // GLES 3.0 Backend (null if GLES2)
+	final int stride; // Elements per Recorded Quad
+	Bucket[] buckets = new Bucket[8]; // Buckets (Active First, Then Pooled)
+	int numBuckets; // Number of Active Buckets (Drawing Order)
+	int numPending; // Number of Quads Recorded and Not Yet Drawn
+	int flushCount; // Number of Flushes So Far (Glyph Cache Stamps)
+
+	private int drawCalls; // Draw Calls Issued (Current Frame)
+	private int lastDrawCalls; // Draw Calls Issued (Last Frame)
+	private int lastBuckets; // Buckets Used (Last Frame)
+
+	// --Constructor--//
+	// D: create the renderer (requires a current GL context; an OpenGL ES 3.0
+	// one if instanced)
+	// A: mvpMatrix - reference to the MVP matrix used for rendering
+	// instanced - draw with the instanced GLES 3.0 backend
+	public TextRenderer(float[] mvpMatrix) {
+		this(mvpMatrix, false);
+	}
+
+	public TextRenderer(float[] mvpMatrix, boolean instanced) {
+		this.instanced = (instanced ? new InstancedGlyphBatch(mvpMatrix) : null);
+		stride = (instanced ? InstancedGlyphBatch.INSTANCE_INTS : SPRITE_INTS);
+		int vertexShader = TextGLRenderer.compileShader(
+				GLES20.GL_VERTEX_SHADER, GLText.mVertexShader);
+		int fragmentShader = TextGLRenderer.compileShader(
+				GLES20.GL_FRAGMENT_SHADER, GLText.mFragmentShader);
+		mProgram = TextGLRenderer.createAndLinkProgram(vertexShader,
+				fragmentShader, Vertices.ATTRIBUTES, GLText.TEXT_UNIFORMS);
+		mEdgeHandle = mProgram.getUniformLocation("u_edge");
+		batch = new SpriteBatch(BATCH_SIZE, mProgram, mvpMatrix, true);
+	}
+
+	// --Bucket--//
+	// D: return the bucket recording quads for a texture/edge combination
+	// (made active, ie. drawn by the next flush, on first use), for quads
+	// within a vertical band: if a bucket drawn after the combination's
+	// bucket holds quads in the band, a new bucket (drawn last) is returned
+	// A: textureId - the texture of the quads
+	// edgeStart, edgeScale - the u_edge values of the quads
+	// bottom, top - the band (none: the quads overlap nothing)
+	// R: the bucket
+	Bucket bucket(int textureId, float edgeStart, float edgeScale) {
+		return bucket(textureId, edgeStart, edgeScale,
+				Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY);
+	}
+
+	Bucket bucket(int textureId, float edgeStart, float edgeScale,
+			float bottom, float top) {
+		for (int i = numBuckets - 1; i >= 0; i--) { // Last of the Combination
+			Bucket b = buckets[i];
+			if (b.textureId == textureId && b.edgeStart == edgeStart
+					&& b.edgeScale == edgeScale) {
+				if (!overlapsAfter(i, bottom, top))
+					return b;
+				break; // Would Be Drawn Beneath Earlier Text
+			}
+		}
+		if (numBuckets == buckets.length) { // Grow
+			Bucket[] grown = new Bucket[buckets.length * 2];
+			System.arraycopy(buckets, 0, grown, 0, numBuckets);
+			buckets = grown;
+		}
+		Bucket b = buckets[numBuckets];
+		if (b == null)
+			b = buckets[numBuckets] = new Bucket();
+		numBuckets++;
+		b.textureId = textureId;
+		b.edgeStart = edgeStart;
+		b.edgeScale = edgeScale;
+		b.clear();
+		return b;
+	}
+
+	// check whether a bucket after the specified one holds quads in a band
+	private boolean overlapsAfter(int index, float bottom, float top) {
+		for (int i = index + 1; i < numBuckets; i++) {
+			Bucket b = buckets[i];
+			if (b.numSprites > 0 && b.minY < top && b.maxY > bottom)
+				return true;
+		}
+		return false;
+	}
+
+	// --Flush--//
+	// D: draw all recorded quads, one draw call per bucket (in order), and
+	// empty the buckets. the buckets stay assigned, so fonts
+	// between begin() and end() can keep recording
+	// NOTE: like batches, draws without depth testing, restored once after
+	// all buckets (see GLState)
+	// A: [none]
+	// R: [none]
+	public void flush() {
+		if (numPending == 0)
+			return;
+		boolean depthTest = GLState.overrideDepthTest(false);
+		for (int i = 0; i < numBuckets; i++) {
+			Bucket b = buckets[i];
+			if (b.numSprites == 0)
+				continue;
+			if (instanced != null) {
+				instanced.draw(b.data, b.numSprites, b.textureId, b.edgeStart,
+						b.edgeScale);
+				drawCalls++;
+				b.clear();
+				continue;
+			}
+			mProgram.use();
+			GLES20.glUniform2f(mEdgeHandle, b.edgeStart, b.edgeScale);
+			batch.beginBatch(b.textureId, null);
+			batch.reserve(b.numSprites); // Grow to Fit the Bucket (If Possible)
+			for (int first = 0; first < b.numSprites; first += batch.maxSprites) {
+				int count = Math.min(batch.maxSprites, b.numSprites - first);
+				batch.drawPacked(b.data, first * SPRITE_INTS, count);
+				batch.endBatch();
+				drawCalls++;
+			}
+			b.clear();
+		}
+		GLState.restoreDepthTest(depthTest);
+		numPending = 0;
+		flushCount++;
+	}
+
+	// --Submit--//
+	// D: record the text most recently published by a command buffer (the
+	// same text again if nothing new was published since). segments of fonts
+	// reloaded since they were recorded are dropped
+	// A: commands - the command buffer
+	// R: [none]
+	public void submit(TextCommandBuffer commands) {
+		TextCommandBuffer.Recording r = commands.acquire();
+		for (int i = 0; i < r.numSegments; i++) {
+			GLText font = r.fonts[i];
+			if (r.counts[i] == 0 || font.mUploads != r.uploads[i])
+				continue; // Nothing Recorded, or Stale Texture Coordinates
+			font.computeEdge(r.scales[i]);
+			packedBucket(font, r.data, r.starts[i], r.counts[i]).addPacked(
+					r.data, r.starts[i], r.counts[i]);
+		}
+	}
+
+	// --Submit Labels--//
+	// D: record bulk labels laid out before (see TextLabels.layout()); the
+	// labels are dropped if their font was reloaded since
+	// A: labels - the laid out labels
+	// R: [none]
+	public void submit(TextLabels labels) {
+		GLText font = labels.font;
+		if (font == null || labels.numSprites == 0
+				|| font.mUploads != labels.uploads)
+			return;
+		font.computeEdge(labels.scale);
+		packedBucket(font, labels.data, 0, labels.numSprites).addPacked(
+				labels.data, 0, labels.numSprites);
+	}
+
+	// return the bucket for packed quads of a font (see bucket())
+	private Bucket packedBucket(GLText font, int[] src, int first, int count) {
+		float bottom = Float.POSITIVE_INFINITY, top = Float.NEGATIVE_INFINITY;
+		for (int s = first * SPRITE_INTS, end = s + count * SPRITE_INTS; s < end; s += SPRITE_INTS) {
+			float y1 = Float.intBitsToFloat(src[s + 1]); // p0
+			float y2 = Float.intBitsToFloat(src[s + 9]); // p2
+			bottom = Math.min(bottom, Math.min(y1, y2));
+			top = Math.max(top, Math.max(y1, y2));
+		}
+		return bucket(font.textureId, font.mEdge[0], font.mEdge[1], bottom, top);
+	}
+
+	// --End Frame--//
+	// D: draw everything recorded and release all buckets (call once per
+	// frame, after all fonts called end())
+	// A: [none]
+	// R: [none]
+	public void endFrame() {
+		flush();
+		lastBuckets = numBuckets;
+		numBuckets = 0;
+		lastDrawCalls = drawCalls;
+		drawCalls = 0;
+	}
+
+	// --Frame Statistics--//
+	// D: return the number of draw calls issued/buckets used during the last
+	// (completed) frame
+	public int getDrawCalls() {
+		return lastDrawCalls;
+	}
+
+	public int getBuckets() {
+		return lastBuckets;
+	}
+
+	// --Get Uploaded Bytes--//
+	// D: return the total number of vertex/index (or instance) bytes sent to
+	// GL by this renderer so far (see GLText.getUploadedBytes())
+	public long getUploadedBytes() {
+		return batch.vertices.bytesUploaded
+				+ (instanced != null ? instanced.bytesUploaded : 0);
+	}
+
+	// --Is Instanced--//
+	// D: return whether the instanced GLES 3.0 backend is used
+	public boolean isInstanced() {
+		return instanced != null;
+	}
+}
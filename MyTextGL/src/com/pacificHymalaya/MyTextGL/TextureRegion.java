@@ -5,6 +5,11 @@ class TextureRegion {
    //--Members--//
    public float u1, v1;                               // Top/Left U,V Coordinates
    public float u2, v2;                               // Bottom/Right U,V Coordinates
+   // Normalized Unsigned Short U,V Coordinates (Packed Vertex Layout)
+   public int su1, sv1, su2, sv2;
+   // Quad of the Region (Pixels; Offset from the Pen Position, Y Up)
+   public float offsetX, offsetY;
+   public float width, height;
 
    //--Constructor--//
    // D: calculate U,V coordinates from specified texture coordinates
@@ -13,9 +18,31 @@ class TextureRegion {
    //    width, height - the width and height of the region on the texture (in pixels)
    public TextureRegion(float texWidth, float texHeight, 
 		   float x, float y, float width, float height)  {
+      set( texWidth, texHeight, x, y, width, height, 0, 0 );
+   }
+
+   // A: offsetX, offsetY - offset of the bottom/left of the quad drawn for the region
+   //    from the pen position (in pixels; glyph regions)
+   public TextureRegion(float texWidth, float texHeight, 
+		   float x, float y, float width, float height, float offsetX, float offsetY)  {
+      set( texWidth, texHeight, x, y, width, height, offsetX, offsetY );
+   }
+
+   //--Set--//
+   // D: (re)calculate the region, see constructor (lets glyph cache slots reuse their region)
+   public void set(float texWidth, float texHeight, 
+		   float x, float y, float width, float height, float offsetX, float offsetY)  {
       this.u1 = x / texWidth;                         // Calculate U1
       this.v1 = y / texHeight;                        // Calculate V1
       this.u2 = this.u1 + ( width / texWidth );       // Calculate U2
       this.v2 = this.v1 + ( height / texHeight );     // Calculate V2
+      this.su1 = Vertices.packTexCoord( this.u1 );     // Pack U1
+      this.sv1 = Vertices.packTexCoord( this.v1 );     // Pack V1
+      this.su2 = Vertices.packTexCoord( this.u2 );     // Pack U2
+      this.sv2 = Vertices.packTexCoord( this.v2 );     // Pack V2
+      this.offsetX = offsetX;                         // Save Quad Offset X
+      this.offsetY = offsetY;                         // Save Quad Offset Y
+      this.width = width;                             // Save Quad Width
+      this.height = height;                           // Save Quad Height
    }
 }
@@ -2,11 +2,10 @@ package com.pacificHymalaya.MyTextGL;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-//import java.nio.IntBuffer;
+import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 import java.nio.FloatBuffer;
 import android.opengl.GLES20;
-import android.util.Log;
 
 public class Vertices {
 
@@ -19,6 +18,15 @@ public class Vertices {
 	final static int TEXCOORD_CNT = 2; // Number of Components in Vertex Texture
 										// Coords
 	final static int NORMAL_CNT = 3; // Number of Components in Vertex Normal
+	// Packed layout: RGBA as 4 normalized unsigned bytes and U,V as 2
+	// normalized unsigned shorts, each packed into a single 32-bit element
+	final static int PACKED_COLOR_CNT = 1; // Elements for Packed Color
+	final static int PACKED_TEXCOORD_CNT = 1; // Elements for Packed Tex Coords
+	final static boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+	// Attribute/Uniform Names Expected in the Program
+	public final static String[] ATTRIBUTES = { "a_position", "a_color",
+			"a_texCoord" };
+	public final static String[] UNIFORMS = { "u_mvpMatrix", "s_texture" };
 	final static int INDEX_SIZE = Short.SIZE / 8; // Index Byte Size (Short.SIZE
 													// = bits)
 
@@ -27,32 +35,53 @@ public class Vertices {
 	final boolean hasColor; // Use Color in Vertices
 	final boolean hasTexCoords; // Use Texture Coords in Vertices
 	final boolean hasNormals; // Use Normals in Vertices
+	final boolean packed; // Use Packed Color/Texture Coords (see above)
 	public final int positionCnt; // Number of Position Components (2=2D, 3=3D)
 	public final int vertexStride; // Vertex Stride (Element Size of a Single
 									// Vertex)
 	public final int vertexSize; // Bytesize of a Single Vertex
-	// final IntBuffer vertices; // Vertex Buffer
+	final int colorOffset; // Offset of Color in a Vertex (Elements)
+	final int texCoordOffset; // Offset of Texture Coords in a Vertex (Elements)
+	final IntBuffer intVertices; // Vertex Buffer (Viewed as Raw 32-bit Elements)
 	final FloatBuffer vertices; // Vertex Buffer
 	final ShortBuffer indices; // Index Buffer
 	public int numVertices; // Number of Vertices in Buffer
 	public int numIndices; // Number of Indices in Buffer
-	// final int[] tmpBuffer; // Temp Buffer for Vertex Conversion
-	final float[] tmpBuffer; // Temp Buffer for Vertex Conversion
 
-	final int mProgramHandle; // Handle to program
+	final ShaderProgram mProgram; // Program (With Resolved Locations)
 
-	private int mvpMatrixHandle;
-	private int vertexPositionHandle;
-	private int vertexColorHandle;
-	private int textureCoordHandle;
-	private int textureUniformHandle;
+	private final int mvpMatrixHandle;
+	private final int vertexPositionHandle;
+	private final int vertexColorHandle;
+	private final int textureCoordHandle;
 	private int textureId;
 	float[] mvpMatrix;
 
+	// GPU buffer handles: [0] = Vertex Buffer, [1] = Index Buffer
+	// NOTE: created lazily on the first bind(), 0 while not created
+	final int[] bufferIds;
+	final int vertexCapacity; // Bytesize of the Vertex Buffer (Max)
+	boolean indicesDirty; // Indices Changed Since Last Upload
+	boolean useBufferObjects = true; // Render From Buffer Objects (see Setter)
+	public long bytesUploaded; // Total Vertex/Index Bytes Sent to GL
+
 	public void setTextureId(int textureId) {
 		this.textureId = textureId;
 	}
 
+	// --Use Buffer Objects--//
+	// D: render from GPU buffer objects (true, default): the indices are
+	// uploaded once to a static element array buffer and the vertices are
+	// streamed into an orphaned array buffer. Otherwise (false) the
+	// client-side buffers are passed to GL directly, which makes the driver
+	// copy both on every draw; for comparing the two paths
+	// NOTE: change on the GL thread only, and not between bind() and unbind()
+	// A: use - true to render from buffer objects
+	// R: [none]
+	public void setUseBufferObjects(boolean use) {
+		useBufferObjects = use;
+	}
+
 	// --Constructor--//
 	// D: create the vertices/indices as specified (for 2d/3d)
 	// A:
@@ -63,6 +92,8 @@ public class Vertices {
 	// hasNormals - use normals in vertices
 	// use3D - (false) use 2d positions (ie. x/y only)
 	// (true, default) use 3d positions (ie. x/y/z)
+	// packed - (false, default) float color and texture coords
+	// (true) packed byte color and short texture coords
 	public Vertices(int programHandle, float[] mvpMatrix, int maxVertices,
 			int maxIndices, boolean hasColor, boolean hasTexCoords,
 			boolean hasNormals) {
@@ -73,16 +104,43 @@ public class Vertices {
 	public Vertices(int programHandle, float[] mvpMatrix, int maxVertices,
 			int maxIndices, boolean hasColor, boolean hasTexCoords,
 			boolean hasNormals, boolean use3D) {
+		this(programHandle, mvpMatrix, maxVertices, maxIndices, hasColor,
+				hasTexCoords, hasNormals, use3D, false); // Call Overloaded Constructor
+	}
+
+	public Vertices(int programHandle, float[] mvpMatrix, int maxVertices,
+			int maxIndices, boolean hasColor, boolean hasTexCoords,
+			boolean hasNormals, boolean use3D, boolean packed) {
+		this(new ShaderProgram(programHandle, ATTRIBUTES, UNIFORMS),
+				mvpMatrix, maxVertices, maxIndices, hasColor, hasTexCoords,
+				hasNormals, use3D, packed); // Call Overloaded Constructor
+	}
+
+	public Vertices(ShaderProgram program, float[] mvpMatrix, int maxVertices,
+			int maxIndices, boolean hasColor, boolean hasTexCoords,
+			boolean hasNormals, boolean use3D, boolean packed) {
 		this.mvpMatrix = mvpMatrix;
-		this.mProgramHandle = programHandle;
+		this.mProgram = program;
+		// Save the Locations (Resolved When the Program was Linked)
+		this.mvpMatrixHandle = program.getUniformLocation("u_mvpMatrix");
+		this.vertexPositionHandle = program.getAttribLocation("a_position");
+		this.vertexColorHandle = program.getAttribLocation("a_color");
+		this.textureCoordHandle = program.getAttribLocation("a_texCoord");
+		// The Sampler Always Reads Texture Unit 0; Set it Once
+		program.use();
+		GLES20.glUniform1i(program.getUniformLocation("s_texture"), 0);
 		this.hasColor = hasColor; // Save Color Flag
 		this.hasTexCoords = hasTexCoords; // Save Texture Coords Flag
 		this.hasNormals = hasNormals; // Save Normals Flag
+		this.packed = packed; // Save Packed Flag
 		// Set Position Component Count
 		this.positionCnt = use3D ? POSITION_CNT_3D : POSITION_CNT_2D;
 		// Calculate Vertex Stride
-		this.vertexStride = this.positionCnt + (hasColor ? COLOR_CNT : 0)
-				+ (hasTexCoords ? TEXCOORD_CNT : 0)
+		this.colorOffset = this.positionCnt;
+		this.texCoordOffset = this.colorOffset
+				+ (hasColor ? (packed ? PACKED_COLOR_CNT : COLOR_CNT) : 0);
+		this.vertexStride = this.texCoordOffset
+				+ (hasTexCoords ? (packed ? PACKED_TEXCOORD_CNT : TEXCOORD_CNT) : 0)
 				+ (hasNormals ? NORMAL_CNT : 0);
 		// Calculate Vertex Byte Size
 		this.vertexSize = this.vertexStride * 4;
@@ -91,7 +149,7 @@ public class Vertices {
 		ByteBuffer buffer = ByteBuffer.allocateDirect(maxVertices * vertexSize);
 		// Set Native Byte Order
 		buffer.order(ByteOrder.nativeOrder());
-		// this.vertices = buffer.asIntBuffer(); // Save Vertex Buffer
+		this.intVertices = buffer.asIntBuffer(); // Save Vertex Buffer
 		this.vertices = buffer.asFloatBuffer();
 
 		if (maxIndices > 0) { // IF Indices Required
@@ -105,16 +163,14 @@ public class Vertices {
 
 		numVertices = 0; // Zero Vertices in Buffer
 		numIndices = 0; // Zero Indices in Buffer
-
-		// this.tmpBuffer = new int[maxVertices * vertexSize / 4]; // Create
-		// Temp Buffer
-		this.tmpBuffer = new float[maxVertices * vertexSize / 4]; // Create Temp
-																	// Buffer
+		this.bufferIds = new int[2];
+		this.vertexCapacity = maxVertices * vertexSize;
+		this.indicesDirty = false;
 	}
 
 	// --Set Vertices--//
 	// D: set the specified vertices in the vertex buffer
-	// NOTE: optimized to use integer buffer!
+	// NOTE: copies straight from the array, nothing is allocated!
 	// A: vertices - array of vertices (floats) to set
 	// offset - offset to first vertex in array
 	// length - number of floats in the vertex array (total)
@@ -122,18 +178,40 @@ public class Vertices {
 	// R: [none]
 	public void setVertices(float[] vertices, int offset, int length) {
 		this.vertices.clear(); // Remove Existing Vertices
-		int last = offset + length; // Calculate Last Element
-		float[] finalPosData = new float[last];
-		for (int i = offset, j = 0; i < last; i++, j++) {
-			finalPosData[j] = vertices[i];
-		}
-		this.vertices.put(finalPosData, 0, length);
-		// this.vertices.put( tmpBuffer, 0, length ); // Set New Vertices
+		this.vertices.put(vertices, offset, length); // Set New Vertices
 		this.vertices.flip(); // Flip Vertex Buffer
 		// Save Number of Vertices
 		this.numVertices = length / this.vertexStride;
 	}
 
+	// D: set the specified vertices, given as raw 32-bit elements (float bits
+	// for positions, packed values for color/texture coords)
+	// A: vertices - array of vertex elements to set
+	// offset - offset to first element in array
+	// length - number of elements in the vertex array (total)
+	// R: [none]
+	public void setVertices(int[] vertices, int offset, int length) {
+		this.intVertices.clear(); // Remove Existing Vertices
+		this.intVertices.put(vertices, offset, length); // Set New Vertices
+		this.intVertices.flip(); // Flip Vertex Buffer
+		// Save Number of Vertices
+		this.numVertices = length / this.vertexStride;
+	}
+
+	// --Commit Vertices--//
+	// D: use the vertices that were written directly into the vertex buffer
+	// (via absolute puts on 'vertices' or 'intVertices'), without copying
+	// NOTE: the buffers keep their full limit, so the next batch can be written
+	// the same way whatever its length (uploads use the vertex count)
+	// A: length - number of elements written (from the start of the buffer)
+	// R: [none]
+	public void commitVertices(int length) {
+		this.vertices.clear();
+		this.intVertices.clear();
+		// Save Number of Vertices
+		this.numVertices = length / this.vertexStride;
+	}
+
 	// --Set Indices--//
 	// D: set the specified indices in the index buffer
 	// A: indices - array of indices (shorts) to set
@@ -145,6 +223,7 @@ public class Vertices {
 		this.indices.put(indices, offset, length); // Set New Indices
 		this.indices.flip(); // Flip Index Buffer
 		this.numIndices = length; // Save Number of Indices
+		this.indicesDirty = true; // Upload on Next Bind
 	}
 
 	// --Bind--//
@@ -153,48 +232,44 @@ public class Vertices {
 	// A: [none]
 	// R: [none]
 	public void bind() {
-		GLES20.glUseProgram(mProgramHandle);
-		mvpMatrixHandle = GLES20.glGetUniformLocation(mProgramHandle,
-				"u_mvpMatrix");
-		vertexPositionHandle = GLES20.glGetAttribLocation(mProgramHandle,
-				"a_position");
-		vertexColorHandle = GLES20.glGetAttribLocation(mProgramHandle,
-				"a_color");
-		textureCoordHandle = GLES20.glGetAttribLocation(mProgramHandle,
-				"a_texCoord");
-		textureUniformHandle = GLES20.glGetUniformLocation(mProgramHandle,
-				"s_texture");
+		mProgram.use(); // Skipped if Already Current
 		// Pass in the mvp matrix
 		GLES20.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
 
-		vertices.position(0); // Set Vertex Buffer to Position
+		if (useBufferObjects) { // IF Rendering From Buffer Objects
+			bindBufferObjects();
+		}
+
 		//set vertex pointer
-		GLES20.glVertexAttribPointer(vertexPositionHandle, positionCnt,
-				GLES20.GL_FLOAT, false, vertexSize, vertices); 
+		setAttribPointer(vertexPositionHandle, positionCnt, GLES20.GL_FLOAT,
+				0);
 		//enable position in vertices
 		GLES20.glEnableVertexAttribArray(vertexPositionHandle); 
 
 		if (hasColor) { // IF Vertices Have Color
-			vertices.position(positionCnt); // Set Vertex Buffer to Color			
 			//set color pointer
-			GLES20.glVertexAttribPointer(vertexColorHandle, COLOR_CNT,
-					GLES20.GL_FLOAT, false, vertexSize, vertices);
+			if (packed)
+				setAttribPointer(vertexColorHandle, COLOR_CNT,
+						GLES20.GL_UNSIGNED_BYTE, colorOffset);
+			else
+				setAttribPointer(vertexColorHandle, COLOR_CNT,
+						GLES20.GL_FLOAT, colorOffset);
 			//enable color in vertices
 			GLES20.glEnableVertexAttribArray(vertexColorHandle); 
 		}
 
 		if (hasTexCoords) { // IF Vertices Have Texture Coords
-			// Set Vertex Buffer to Texture Coords (NOTE: position based on
+			// Set Texture Coords Pointer (NOTE: position based on
 			// whether color is also specified)
-			vertices.position(positionCnt + (hasColor ? COLOR_CNT : 0));
-			// Set Color Pointer
-			GLES20.glVertexAttribPointer(textureCoordHandle, TEXCOORD_CNT,
-					GLES20.GL_FLOAT, false, vertexSize, vertices); 					
+			if (packed)
+				setAttribPointer(textureCoordHandle, TEXCOORD_CNT,
+						GLES20.GL_UNSIGNED_SHORT, texCoordOffset);
+			else
+				setAttribPointer(textureCoordHandle, TEXCOORD_CNT,
+						GLES20.GL_FLOAT, texCoordOffset);
 			// Enable Texture Coords Pointer
 			GLES20.glEnableVertexAttribArray(textureCoordHandle); 
-			GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
-			GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
-			GLES20.glUniform1i(textureUniformHandle, 0);
+			GLState.bindTexture(textureId); // Skipped if Already Bound
 		}
 		if (hasNormals) {
 			// ToDo -- Add processing for Normal
@@ -202,6 +277,69 @@ public class Vertices {
 
 	}
 
+	// --Bind Buffer Objects--//
+	// D: create the GPU buffers if required, upload the indices if they
+	// changed and stream the current vertices into the vertex buffer
+	// A: [none]
+	// R: [none]
+	private void bindBufferObjects() {
+		if (bufferIds[0] == 0) { // IF Buffers Not Yet Created
+			GLES20.glGenBuffers(2, bufferIds, 0);
+			indicesDirty = true;
+		}
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferIds[0]);
+		// Orphan the previous storage so the driver doesn't have to wait for
+		// pending draws using it, then upload only the used part
+		GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, vertexCapacity, null,
+				GLES20.GL_STREAM_DRAW);
+		vertices.position(0);
+		GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, numVertices
+				* vertexSize, vertices);
+		countUpload(numVertices * vertexSize);
+
+		if (indices != null) { // IF Indices Exist
+			GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferIds[1]);
+			if (indicesDirty) { // Indices are static; upload them only once
+				indices.position(0);
+				GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, numIndices
+						* INDEX_SIZE, indices, GLES20.GL_STATIC_DRAW);
+				countUpload(numIndices * INDEX_SIZE);
+				indicesDirty = false;
+			}
+		}
+	}
+
+	// --Set Attribute Pointer--//
+	// D: point the attribute at the specified vertex component, either as an
+	// offset into the bound vertex buffer object or into the client buffer
+	// NOTE: integer types are always normalized (to 0..1)
+	// A: handle - the attribute location
+	// size - the number of components of the attribute
+	// type - the GL type of the components
+	// offset - the offset of the attribute in a vertex (32-bit elements)
+	// R: [none]
+	private void setAttribPointer(int handle, int size, int type, int offset) {
+		boolean normalized = (type != GLES20.GL_FLOAT);
+		if (useBufferObjects) {
+			GLES20.glVertexAttribPointer(handle, size, type, normalized,
+					vertexSize, offset * 4);
+		} else {
+			vertices.position(offset); // Set Vertex Buffer to Attribute
+			GLES20.glVertexAttribPointer(handle, size, type, normalized,
+					vertexSize, vertices);
+			// The driver copies the client-side arrays on every draw
+			countUpload(numVertices
+					* (type == GLES20.GL_FLOAT ? size * 4 : 4));
+		}
+	}
+
+	// count bytes sent to GL (see bytesUploaded)
+	private void countUpload(long bytes) {
+		bytesUploaded += bytes;
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.add(RenderMetrics.BYTES_UPLOADED, bytes);
+	}
+
 	// --Draw--//
 	// D: draw the currently bound vertices in the vertex/index buffers
 	// USAGE: can only be called after calling bind() for this buffer.
@@ -210,14 +348,22 @@ public class Vertices {
 	// numVertices - the number of vertices (indices) to draw
 	// R: [none]
 	public void draw(int primitiveType, int offset, int numVertices) {
+		if (RenderMetrics.ENABLED)
+			RenderMetrics.add(RenderMetrics.DRAW_CALLS, 1);
 		// primitiveType needs to be something like GLES20.GL_TRIANGLES
 		if (indices != null) { // IF Indices Exist
-			// Set Index Buffer to Specified Offset
-			indices.position(offset); 
-			// Draw Indexed
-			GLES20.glDrawElements(primitiveType, numVertices,
-					GLES20.GL_UNSIGNED_SHORT, indices);
-			Log.d("Vertices", "Draw elements with " + numVertices + " indices");
+			if (useBufferObjects) {
+				// Draw Indexed (From Bound Index Buffer)
+				GLES20.glDrawElements(primitiveType, numVertices,
+						GLES20.GL_UNSIGNED_SHORT, offset * INDEX_SIZE);
+			} else {
+				// Set Index Buffer to Specified Offset
+				indices.position(offset);
+				// Draw Indexed
+				GLES20.glDrawElements(primitiveType, numVertices,
+						GLES20.GL_UNSIGNED_SHORT, indices);
+				countUpload(numVertices * INDEX_SIZE);
+			}
 			
 		} else { // ELSE No Indices Exist
 			// Draw Direct (Array)
@@ -237,7 +383,22 @@ public class Vertices {
 			GLES20.glDisableVertexAttribArray(vertexColorHandle);
 		if (hasTexCoords)
 			GLES20.glDisableVertexAttribArray(textureCoordHandle);
+		if (useBufferObjects) { // Restore Client-Side Array Rendering
+			GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+			GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+		}
+	}
 
+	// --Release--//
+	// D: free the GPU buffers (if created). they are re-created on next bind()
+	// A: [none]
+	// R: [none]
+	public void release() {
+		if (bufferIds[0] != 0) {
+			GLES20.glDeleteBuffers(2, bufferIds, 0);
+			bufferIds[0] = 0;
+			bufferIds[1] = 0;
+		}
 	}
 
 	// --Draw Full--//
@@ -253,6 +414,40 @@ public class Vertices {
 		unbind();
 	}
 
+	// --Pack Vertex Elements--//
+	// D: pack color/texture coords into single 32-bit elements for the packed
+	// layout. the bytes/shorts end up in memory in R,G,B,A / U,V order
+	// A: r, g, b, a - the r,g,b,a color (0..1; clamped)
+	// u, v - the u,v texture coords (0..65535, see packTexCoord)
+	// R: the packed element
+	static int packColor(float r, float g, float b, float a) {
+		int ir = colorByte(r);
+		int ig = colorByte(g);
+		int ib = colorByte(b);
+		int ia = colorByte(a);
+		if (LITTLE_ENDIAN)
+			return ir | (ig << 8) | (ib << 16) | (ia << 24);
+		return (ir << 24) | (ig << 16) | (ib << 8) | ia;
+	}
+
+	static int packTexCoords(int u, int v) {
+		if (LITTLE_ENDIAN)
+			return u | (v << 16);
+		return (u << 16) | v;
+	}
+
+	// D: convert a color component (0..1) to a normalized unsigned byte,
+	// clamping values outside the range (eg. 1.2 stays white, not 50)
+	static int colorByte(float c) {
+		int i = (int) (c * 255.0f + 0.5f); // (NaN Converts to 0)
+		return (i < 0 ? 0 : i > 255 ? 255 : i);
+	}
+
+	// D: convert a texture coordinate (0..1) to a normalized unsigned short
+	static int packTexCoord(float t) {
+		return (int) (t * 65535.0f + 0.5f) & 0xffff;
+	}
+
 	// --Set Vertex Elements--//
 	// D: use these methods to alter the values (position, color, textcoords,
 	// normals) for vertices
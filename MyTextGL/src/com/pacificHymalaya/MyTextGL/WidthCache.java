@@ -0,0 +1,133 @@
+package com.pacificHymalaya.MyTextGL;
+
+// Bounded cache of measured string widths (see GLText.setWidthCache()), for
+// text that is measured over and over (menus, table cells). Entries hold the
+// unscaled sum of the advances and the number of characters, so they stay
+// valid when the scale or spacing changes; GLText clears the cache when the
+// font is (re)loaded. Entries are found through chained hashing over int
+// arrays and kept in least-recently-used order (see LruList), so a full
+// cache replaces the entry used longest ago.
+//
+// NOTE: a lookup with the String instance that was stored costs no more than
+// its (cached) hash code and a reference compare; other CharSequences are
+// hashed and compared character by character. only a miss allocates (the
+// String key).
+class WidthCache {
+
+	// --Constants--//
+	final static int NONE = -1; // No Entry / End of Chain or List
+
+	// --Members--//
+	final int capacity; // Number of Entries
+	final String[] keys; // Entry -> Text (null = Free)
+	final int[] hashes; // Entry -> Hash Code of the Text
+	final float[] widths; // Entry -> Sum of the Advances (Unscaled)
+	final int[] counts; // Entry -> Number of Characters (Code Points)
+	final int[] buckets; // Hash -> First Entry of the Chain
+	final int[] chain; // Entry -> Next Entry of the Same Bucket
+	final LruList lru; // Entries in Least Recently Used Order
+	int hits, misses; // Lookups Found/Not Found So Far
+
+	// --Constructor--//
+	// A: capacity - the number of entries
+	WidthCache(int capacity) {
+		this.capacity = capacity;
+		int size = 1;
+		while (size < capacity * 2) // Power of Two (Load Below 0.5)
+			size <<= 1;
+		this.buckets = new int[size];
+		this.keys = new String[capacity];
+		this.hashes = new int[capacity];
+		this.widths = new float[capacity];
+		this.counts = new int[capacity];
+		this.chain = new int[capacity];
+		this.lru = new LruList(capacity);
+		clear();
+	}
+
+	// --Clear--//
+	// D: remove all entries
+	void clear() {
+		for (int i = 0; i < buckets.length; i++)
+			buckets[i] = NONE;
+		for (int i = 0; i < capacity; i++)
+			keys[i] = null;
+		lru.clear();
+	}
+
+	// --Hash--//
+	// D: return the hash code of a text (same as String.hashCode(), which is
+	// cached by the String)
+	static int hash(CharSequence text) {
+		if (text instanceof String)
+			return text.hashCode();
+		int h = 0;
+		for (int i = 0, n = text.length(); i < n; i++)
+			h = 31 * h + text.charAt(i);
+		return h;
+	}
+
+	// --Find--//
+	// D: return the entry of a text (made most recently used)
+	// A: text - the text to look up
+	// hash - its hash code (see hash())
+	// R: the entry, or NONE if the text is not cached
+	int find(CharSequence text, int hash) {
+		for (int e = buckets[hash & (buckets.length - 1)]; e != NONE; e = chain[e]) {
+			if (hashes[e] == hash && matches(keys[e], text)) {
+				hits++;
+				lru.touch(e);
+				return e;
+			}
+		}
+		misses++;
+		return NONE;
+	}
+
+	// --Put--//
+	// D: cache the measurement of a text (not cached yet), replacing the
+	// least recently used entry if the cache is full
+	// A: text - the text
+	// hash - its hash code (see hash())
+	// width - the sum of its advances (unscaled)
+	// count - its number of characters (code points)
+	// R: [none]
+	void put(CharSequence text, int hash, float width, int count) {
+		boolean replace = lru.isFull();
+		int e = lru.take();
+		if (replace) // Replace Least Recently Used
+			removeFromBucket(e);
+		keys[e] = text.toString();
+		hashes[e] = hash;
+		widths[e] = width;
+		counts[e] = count;
+		int b = hash & (buckets.length - 1);
+		chain[e] = buckets[b];
+		buckets[b] = e;
+	}
+
+	// compare a key with a text
+	private static boolean matches(String key, CharSequence text) {
+		if (key == text)
+			return true; // Same Instance (Usual for Repeated Strings)
+		int n = key.length();
+		if (text.length() != n)
+			return false;
+		for (int i = 0; i < n; i++)
+			if (key.charAt(i) != text.charAt(i))
+				return false;
+		return true;
+	}
+
+	private void removeFromBucket(int e) {
+		int b = hashes[e] & (buckets.length - 1);
+		if (buckets[b] == e) {
+			buckets[b] = chain[e];
+			return;
+		}
+		int p = buckets[b];
+		while (chain[p] != e)
+			p = chain[p];
+		chain[p] = chain[e];
+	}
+}